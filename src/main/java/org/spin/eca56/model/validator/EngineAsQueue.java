@@ -16,7 +16,10 @@ package org.spin.eca56.model.validator;
 
 import org.adempiere.core.domains.models.I_AD_Form;
 import org.adempiere.core.domains.models.I_AD_Process;
+import org.adempiere.core.domains.models.I_AD_Ref_Table;
+import org.adempiere.core.domains.models.I_AD_Reference;
 import org.adempiere.core.domains.models.I_AD_Table;
+import org.adempiere.core.domains.models.I_AD_Val_Rule;
 import org.compiere.model.MClient;
 import org.compiere.model.MTable;
 import org.compiere.model.ModelValidationEngine;
@@ -25,8 +28,12 @@ import org.compiere.model.PO;
 import org.compiere.model.Query;
 import org.compiere.util.CLogger;
 import org.compiere.util.Env;
-import org.spin.eca56.util.queue.ApplicationDictionary;
+import org.spin.eca56.util.queue.ChangeCoalescer;
 import org.spin.eca56.util.queue.DocumentManagement;
+import org.spin.eca56.util.queue.ExportWatermark;
+import org.spin.eca56.util.queue.RoleAccessEvents;
+import org.spin.eca56.util.queue.TransactionPublisher;
+import org.spin.eca56.util.support.documents.ReferenceUtil;
 import org.spin.queue.util.QueueLoader;
 
 /**
@@ -56,6 +63,19 @@ public class EngineAsQueue implements ModelValidator {
                 .<MTable>list().forEach(table -> {
                 	engine.addDocValidate(table.getTableName(), this);
                 });
+		//	Reference definitions cached
+		engine.addModelChange(I_AD_Reference.Table_Name, this);
+		engine.addModelChange(I_AD_Ref_Table.Table_Name, this);
+		engine.addModelChange(I_AD_Val_Rule.Table_Name, this);
+		//	Dictionary changes
+		engine.addModelChange(I_AD_Process.Table_Name, this);
+		engine.addModelChange(I_AD_Process.Table_Name + "_Trl", this);
+		engine.addModelChange(I_AD_Form.Table_Name, this);
+		engine.addModelChange(I_AD_Form.Table_Name + "_Trl", this);
+		//	Deleted child rows for incremental export
+		ExportWatermark.getChildTableNames().forEach(tableName -> engine.addModelChange(tableName, this));
+		//	Role access changes
+		RoleAccessEvents.getAccessTableNames().forEach(tableName -> engine.addModelChange(tableName, this));
 	}
 	
 	@Override
@@ -71,18 +91,37 @@ public class EngineAsQueue implements ModelValidator {
 	
 	@Override
 	public String modelChange(PO entity, int type) throws Exception {
-		if(type == TYPE_BEFORE_NEW
-				|| type == TYPE_BEFORE_CHANGE) {
+		if(type == TYPE_AFTER_NEW
+				|| type == TYPE_AFTER_CHANGE
+				|| type == TYPE_AFTER_DELETE) {
+			if(entity.get_TableName().equals(I_AD_Reference.Table_Name)
+					|| entity.get_TableName().equals(I_AD_Ref_Table.Table_Name)
+					|| entity.get_TableName().equals(I_AD_Val_Rule.Table_Name)) {
+				//	Other transactions can read the old definition until commit
+				TransactionPublisher.getInstance().add(entity.get_TrxName(), ReferenceUtil::resetReferenceDefinition);
+			} else if(RoleAccessEvents.isAccessTable(entity.get_TableName())) {
+				RoleAccessEvents.getInstance().publish(entity, type);
+			}
+		}
+		if(type == TYPE_AFTER_DELETE
+				&& ExportWatermark.isChildTable(entity.get_TableName())) {
+			//	The deleted row is not found by incremental export, then the parent is marked as changed
+			ExportWatermark.setParentUpdated(entity);
+		}
+		if(type == TYPE_AFTER_NEW
+				|| type == TYPE_AFTER_CHANGE) {
+			//	The changes of same entity are sent once with last state
 			if(entity.get_TableName().equals(I_AD_Process.Table_Name)) {
-				//	For Sales Orders
-				if(entity.is_new()
+				//	Skip statistics
+				if(type == TYPE_AFTER_NEW
 						|| (!entity.is_ValueChanged(I_AD_Process.COLUMNNAME_Statistic_Count)
 								&& !entity.is_ValueChanged(I_AD_Process.COLUMNNAME_Statistic_Seconds))) {
-					QueueLoader.getInstance().getQueueManager(ApplicationDictionary.CODE).withEntity(entity);
+					ChangeCoalescer.getInstance().add(entity);
 				}
-			} else if (entity.get_TableName().equals(I_AD_Form.Table_Name)
+			} else if (entity.get_TableName().equals(I_AD_Process.Table_Name + "_Trl")
+				|| entity.get_TableName().equals(I_AD_Form.Table_Name)
 				|| entity.get_TableName().equals(I_AD_Form.Table_Name + "_Trl")) {
-				QueueLoader.getInstance().getQueueManager(ApplicationDictionary.CODE).withEntity(entity);
+				ChangeCoalescer.getInstance().add(entity);
 			}
 		}
 		return null;
@@ -94,6 +133,7 @@ public class EngineAsQueue implements ModelValidator {
 				|| timing == TIMING_AFTER_REVERSECORRECT
 				|| timing == TIMING_AFTER_REVERSEACCRUAL
 				|| timing == TIMING_AFTER_VOID) {
+			//	The entry is saved with document, it is sent when transaction is committed
 			QueueLoader.getInstance().getQueueManager(DocumentManagement.CODE).withEntity(entity).addToQueue();
 		}
 		return null;
@@ -18,9 +18,11 @@
 
 package org.spin.eca56.process;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.adempiere.core.domains.models.I_AD_Browse;
 import org.adempiere.core.domains.models.I_AD_Form;
@@ -37,8 +39,15 @@ import org.compiere.model.MRole;
 import org.compiere.model.MTree;
 import org.compiere.model.MWindow;
 import org.compiere.model.Query;
-import org.spin.eca56.util.queue.ApplicationDictionary;
-import org.spin.queue.util.QueueLoader;
+import org.compiere.util.Util;
+import org.spin.eca56.util.queue.DefaultEngineQueueUtil;
+import org.spin.eca56.util.queue.DictionaryExportEngine;
+import org.spin.eca56.util.queue.ExportWatermark;
+import org.spin.eca56.util.support.documents.Browser;
+import org.spin.eca56.util.support.documents.Form;
+import org.spin.eca56.util.support.documents.MenuItem;
+import org.spin.eca56.util.support.documents.Process;
+import org.spin.eca56.util.support.documents.Window;
 
 /** 
  * 	Generated Process for (Export Dictionary Definition)
@@ -48,52 +57,178 @@ import org.spin.queue.util.QueueLoader;
  */
 public class ExportDictionaryDefinition extends ExportDictionaryDefinitionAbstract {
 
-	private AtomicInteger counter = new AtomicInteger();
+	/**	Child rows of window used by incremental export, the alias of child is c	*/
+	private static final String[] WINDOW_CHILDREN = {
+		"AD_Window_Trl c WHERE c.AD_Window_ID = AD_Window.AD_Window_ID",
+		"AD_Tab c WHERE c.AD_Window_ID = AD_Window.AD_Window_ID",
+		"AD_Tab_Trl c INNER JOIN AD_Tab t ON(t.AD_Tab_ID = c.AD_Tab_ID) WHERE t.AD_Window_ID = AD_Window.AD_Window_ID",
+		"AD_Field c INNER JOIN AD_Tab t ON(t.AD_Tab_ID = c.AD_Tab_ID) WHERE t.AD_Window_ID = AD_Window.AD_Window_ID",
+		"AD_Field_Trl c INNER JOIN AD_Field f ON(f.AD_Field_ID = c.AD_Field_ID) INNER JOIN AD_Tab t ON(t.AD_Tab_ID = f.AD_Tab_ID) WHERE t.AD_Window_ID = AD_Window.AD_Window_ID",
+		"AD_Column c INNER JOIN AD_Tab t ON(t.AD_Table_ID = c.AD_Table_ID) WHERE t.AD_Window_ID = AD_Window.AD_Window_ID"
+	};
+	/**	Child rows of process	*/
+	private static final String[] PROCESS_CHILDREN = {
+		"AD_Process_Trl c WHERE c.AD_Process_ID = AD_Process.AD_Process_ID",
+		"AD_Process_Para c WHERE c.AD_Process_ID = AD_Process.AD_Process_ID",
+		"AD_Process_Para_Trl c INNER JOIN AD_Process_Para p ON(p.AD_Process_Para_ID = c.AD_Process_Para_ID) WHERE p.AD_Process_ID = AD_Process.AD_Process_ID"
+	};
+	/**	Child rows of browser	*/
+	private static final String[] BROWSE_CHILDREN = {
+		"AD_Browse_Trl c WHERE c.AD_Browse_ID = AD_Browse.AD_Browse_ID",
+		"AD_Browse_Field c WHERE c.AD_Browse_ID = AD_Browse.AD_Browse_ID",
+		"AD_Browse_Field_Trl c INNER JOIN AD_Browse_Field f ON(f.AD_Browse_Field_ID = c.AD_Browse_Field_ID) WHERE f.AD_Browse_ID = AD_Browse.AD_Browse_ID"
+	};
+	/**	Child rows of form	*/
+	private static final String[] FORM_CHILDREN = {
+		"AD_Form_Trl c WHERE c.AD_Form_ID = AD_Form.AD_Form_ID"
+	};
+	/**	Child rows of menu	*/
+	private static final String[] MENU_CHILDREN = {
+		"AD_Menu_Trl c WHERE c.AD_Menu_ID = AD_Menu.AD_Menu_ID"
+	};
+
+	/**	Last successful export by channel, used for incremental export	*/
+	private Map<String, Timestamp> watermarks = new TreeMap<>();
+	/**	Channels exported without filter by record, the watermark is saved for it	*/
+	private List<String> completeChannels = new ArrayList<>();
 
 	@Override
 	protected String doIt() throws Exception {
+		//	Entities changed after start are exported again by next incremental export, it is taken from database
+		Timestamp exportStart = ExportWatermark.getExportStart(get_TrxName());
+		//	Send documents without changes, used for repair the topics
+		if(isForceExport()) {
+			DefaultEngineQueueUtil.resetPublished();
+		}
+		//	The entities are exported in partitions from workers, a failed run is resumed by next run with same parameters
+		DictionaryExportEngine engine = DictionaryExportEngine.newInstance()
+			.withLogger(this::addLog)
+		;
 		//	For Windows Definition
 		if(isExportWindows()) {
-			exportWindowsDefinition();
+			engine.withEntities(I_AD_Window.Table_Name, getWindowIds(), windowId -> new MWindow(getCtx(), windowId, null));
+			addCompleteChannel(Window.CHANNEL, getWindowId() <= 0);
 		}
 
 		//	For Processes Definition
 		if(isExportProcess()) {
-			exportProcessesDefinition();
+			engine.withEntities(I_AD_Process.Table_Name, getProcessIds(), processId -> new MProcess(getCtx(), processId, null));
+			addCompleteChannel(Process.CHANNEL, getADProcessId() <= 0);
 		}
 
 		//	For Browsers Definition
 		if(isExportBrowsers()) {
-			exportBrowsersDefinition();
+			engine.withEntities(I_AD_Browse.Table_Name, getBrowseIds(), browseId -> new MBrowse(getCtx(), browseId, null));
+			addCompleteChannel(Browser.CHANNEL, getBrowseId() <= 0);
 		}
 
 		//	For Forms Definition
 		if(isExportForms()) {
-			exportFormsDefinition();
+			engine.withEntities(I_AD_Form.Table_Name, getFormIds(), formId -> new MForm(getCtx(), formId, null));
+			addCompleteChannel(Form.CHANNEL, getFormId() <= 0);
 		}
 
 		//	For Roless Access
 		if(isExportRoles()) {
-			exportRolesDefinition();
+			engine.withEntities(I_AD_Role.Table_Name, getRoleIds(), roleId -> MRole.get(getCtx(), roleId));
 		}
 
 		//	For Tree
 		if(isExportTree()) {
-			exportTreeDefinition();
+			engine.withEntities(I_AD_Tree.Table_Name, getTreeIds(), treeId -> new MTree(getCtx(), treeId, false, false, null, null));
 		}
 
 		//	For Menu
 		if(isExportMenu()) {
-			exportMenuItemDefinition();
+			engine.withEntities(I_AD_Menu.Table_Name, getMenuIds(), menuId -> new MMenu(getCtx(), menuId, null));
+			addCompleteChannel(MenuItem.CHANNEL, getMenuId() <= 0 && !(isFilterByTree() && isExportTree() && getTreeId() > 0));
 		}
-
+		int exported = engine.withRunKey(getRunKey()).export();
+		//	Save last successful export of channels, the export ends when server acknowledge all entries
+		//	and it fails if any entry is not acknowledged
+		completeChannels.forEach(channel -> ExportWatermark.setWatermark(getCtx(), channel, getAD_Client_ID(), exportStart, get_TrxName()));
 		//	
-		return "@Created@ " + counter.get();
+		return "@Created@ " + exported;
 	}
 
-	private void exportWindowsDefinition() {
-		addLog("@AD_Window_ID@");
+	/**
+	 * Add a channel exported for save watermark after export
+	 * @param channel
+	 * @param isComplete true if all entities are selected (not filtered by record)
+	 */
+	private void addCompleteChannel(String channel, boolean isComplete) {
+		if(isComplete) {
+			completeChannels.add(channel);
+		}
+	}
 
+	/**
+	 * Get last successful export of channel when the export is incremental
+	 * @param channel
+	 * @return timestamp or null for export all entities
+	 */
+	private Timestamp getWatermark(String channel) {
+		if(!isIncremental()) {
+			return null;
+		}
+		return watermarks.computeIfAbsent(channel, key -> {
+			Timestamp watermark = ExportWatermark.getWatermark(getCtx(), key, getAD_Client_ID());
+			if(watermark == null) {
+				addLog(key + ": @All@");
+			} else {
+				addLog(key + ": @Updated@ > " + watermark);
+			}
+			return watermark;
+		});
+	}
+
+	/**
+	 * Add filter of entities changed after last export: the entity or any child row has a newer Updated
+	 * @param whereClause
+	 * @param filtersList
+	 * @param tableName
+	 * @param channel
+	 * @param children child rows with alias c
+	 * @return where clause with filter
+	 */
+	private String addChangedFilter(String whereClause, List<Object> filtersList, String tableName, String channel, String[] children) {
+		Timestamp watermark = getWatermark(channel);
+		if(watermark == null) {
+			return whereClause;
+		}
+		StringBuilder changedClause = new StringBuilder("(")
+			.append(tableName).append(".Updated > ?")
+		;
+		filtersList.add(watermark);
+		for(String child : children) {
+			changedClause.append(" OR EXISTS(SELECT 1 FROM ").append(child).append(" AND c.Updated > ?)");
+			filtersList.add(watermark);
+		}
+		changedClause.append(")");
+		if(Util.isEmpty(whereClause, true)) {
+			return changedClause.toString();
+		}
+		return whereClause + " AND " + changedClause;
+	}
+
+	/**
+	 * Key of run with all parameters, the checkpoint of a failed run is used only by a run with same parameters
+	 * @return
+	 */
+	private String getRunKey() {
+		return getAD_Client_ID()
+			+ "|W:" + isExportWindows() + ":" + getWindowId()
+			+ "|P:" + isExportProcess() + ":" + getADProcessId()
+			+ "|B:" + isExportBrowsers() + ":" + getBrowseId()
+			+ "|F:" + isExportForms() + ":" + getFormId()
+			+ "|R:" + isExportRoles() + ":" + getRoleId()
+			+ "|T:" + isExportTree() + ":" + getTreeId() + ":" + isFilterByTree()
+			+ "|M:" + isExportMenu() + ":" + getMenuId()
+			+ "|I:" + isIncremental() + ":" + watermarks
+		;
+	}
+
+	private List<Integer> getWindowIds() {
 		// Add filter a specific Window
 		String whereClause = "";
 		List<Object> filtersList = new ArrayList<>();
@@ -101,7 +236,8 @@ public class ExportDictionaryDefinition extends ExportDictionaryDefinitionAbstra
 			whereClause = "AD_Window_ID = ?";
 			filtersList.add(this.getWindowId());
 		}
-		new Query(
+		whereClause = addChangedFilter(whereClause, filtersList, I_AD_Window.Table_Name, Window.CHANNEL, WINDOW_CHILDREN);
+		return new Query(
 				getCtx(),
 				I_AD_Window.Table_Name,
 				whereClause,
@@ -110,23 +246,11 @@ public class ExportDictionaryDefinition extends ExportDictionaryDefinitionAbstra
 			.setOnlyActiveRecords(true)
 			.setParameters(filtersList)
 			.getIDsAsList()
-			.forEach(windowId -> {
-				MWindow window = new MWindow(getCtx(), windowId, get_TrxName());
-				QueueLoader.getInstance()
-					.getQueueManager(ApplicationDictionary.CODE)
-					.withEntity(window)
-					.addToQueue()
-				;
-				addLog(window.getAD_Window_ID() + " - " + window.getName());
-				counter.incrementAndGet();
-			})
 		;
 	}
 
 
-	private void exportProcessesDefinition() {
-		addLog("@AD_Process_ID@");
-
+	private List<Integer> getProcessIds() {
 		// Add filter a specific Process
 		String whereClause = "";
 		List<Object> filtersList = new ArrayList<>();
@@ -134,7 +258,8 @@ public class ExportDictionaryDefinition extends ExportDictionaryDefinitionAbstra
 			whereClause = "AD_Process_ID = ?";
 			filtersList.add(this.getADProcessId());
 		}
-		new Query(
+		whereClause = addChangedFilter(whereClause, filtersList, I_AD_Process.Table_Name, Process.CHANNEL, PROCESS_CHILDREN);
+		return new Query(
 				getCtx(),
 				I_AD_Process.Table_Name,
 				whereClause,
@@ -143,22 +268,11 @@ public class ExportDictionaryDefinition extends ExportDictionaryDefinitionAbstra
 			.setOnlyActiveRecords(true)
 			.setParameters(filtersList)
 			.getIDsAsList()
-			.forEach(processId -> {
-				MProcess process = new MProcess(getCtx(), processId, get_TrxName());
-				QueueLoader.getInstance()
-					.getQueueManager(ApplicationDictionary.CODE)
-					.withEntity(process)
-					.addToQueue()
-				;
-				addLog(process.getValue() + " - " + process.getName());
-				counter.incrementAndGet();
-		});
+		;
 	}
 
 
-	private void exportBrowsersDefinition() {
-		addLog("@AD_Browse_ID@");
-
+	private List<Integer> getBrowseIds() {
 		// Add filter a specific Browse
 		String whereClause = "";
 		List<Object> filtersList = new ArrayList<>();
@@ -166,7 +280,8 @@ public class ExportDictionaryDefinition extends ExportDictionaryDefinitionAbstra
 			whereClause = "AD_Browse_ID = ?";
 			filtersList.add(this.getBrowseId());
 		}
-		new Query(
+		whereClause = addChangedFilter(whereClause, filtersList, I_AD_Browse.Table_Name, Browser.CHANNEL, BROWSE_CHILDREN);
+		return new Query(
 				getCtx(),
 				I_AD_Browse.Table_Name,
 				whereClause,
@@ -175,23 +290,11 @@ public class ExportDictionaryDefinition extends ExportDictionaryDefinitionAbstra
 			.setOnlyActiveRecords(true)
 			.setParameters(filtersList)
 			.getIDsAsList()
-			.forEach(browseId -> {
-				MBrowse browser = new MBrowse(getCtx(), browseId, get_TrxName());
-				QueueLoader.getInstance()
-					.getQueueManager(ApplicationDictionary.CODE)
-					.withEntity(browser)
-					.addToQueue()
-				;
-				addLog(browser.getValue() + " - " + browser.getName());
-				counter.incrementAndGet();
-			})
 		;
 	}
 
 
-	private void exportFormsDefinition() {
-		addLog("@AD_Form_ID@");
-
+	private List<Integer> getFormIds() {
 		// Add filter a specific Form
 		String whereClause = "";
 		List<Object> filtersList = new ArrayList<>();
@@ -199,7 +302,8 @@ public class ExportDictionaryDefinition extends ExportDictionaryDefinitionAbstra
 			whereClause = "AD_Form_ID = ?";
 			filtersList.add(this.getFormId());
 		}
-		new Query(
+		whereClause = addChangedFilter(whereClause, filtersList, I_AD_Form.Table_Name, Form.CHANNEL, FORM_CHILDREN);
+		return new Query(
 				getCtx(),
 				I_AD_Form.Table_Name,
 				whereClause,
@@ -208,23 +312,11 @@ public class ExportDictionaryDefinition extends ExportDictionaryDefinitionAbstra
 			.setOnlyActiveRecords(true)
 			.setParameters(filtersList)
 			.getIDsAsList()
-			.forEach(formId -> {
-				MForm form = new MForm(getCtx(), formId, get_TrxName());
-				QueueLoader.getInstance()
-					.getQueueManager(ApplicationDictionary.CODE)
-					.withEntity(form)
-					.addToQueue()
-				;
-				addLog(form.getClassname() + " - " + form.getName());
-				counter.incrementAndGet();
-			})
 		;
 	}
 
 
-	private void exportRolesDefinition() {
-		addLog("@AD_Role_ID@");
-
+	private List<Integer> getRoleIds() {
 		// Add filter a specific Role
 		String whereClause = "";
 		List<Object> filtersList = new ArrayList<>();
@@ -232,7 +324,7 @@ public class ExportDictionaryDefinition extends ExportDictionaryDefinitionAbstra
 			whereClause = "AD_Role_ID = ?";
 			filtersList.add(this.getRoleId());
 		}
-		new Query(
+		return new Query(
 				getCtx(),
 				I_AD_Role.Table_Name,
 				whereClause,
@@ -241,23 +333,12 @@ public class ExportDictionaryDefinition extends ExportDictionaryDefinitionAbstra
 			.setOnlyActiveRecords(true)
 			.setParameters(filtersList)
 			.getIDsAsList()
-			.forEach(roleId -> {
-				MRole role = MRole.get(getCtx(), roleId);
-				QueueLoader.getInstance()
-					.getQueueManager(ApplicationDictionary.CODE)
-					.withEntity(role)
-					.addToQueue()
-				;
-				addLog(role.getAD_Role_ID() + " - " + role.getName());
-				counter.incrementAndGet();
-			})
 		;
 	}
 
 
-	private void exportTreeDefinition() {
-		addLog("@AD_Tree_ID@");
-		new Query(
+	private List<Integer> getTreeIds() {
+		return new Query(
 				getCtx(),
 				I_AD_Tree.Table_Name,
 				I_AD_Tree.COLUMNNAME_TreeType + " = ?",
@@ -266,23 +347,11 @@ public class ExportDictionaryDefinition extends ExportDictionaryDefinitionAbstra
 			.setOnlyActiveRecords(true)
 			.setParameters(MTree.TREETYPE_Menu)
 			.getIDsAsList()
-			.forEach(treeId -> {
-				MTree tree = new MTree(getCtx(), treeId, false, false, null, null);
-				QueueLoader.getInstance()
-					.getQueueManager(ApplicationDictionary.CODE)
-					.withEntity(tree)
-					.addToQueue()
-				;
-				addLog(tree.getAD_Tree_ID() + " - " + tree.getName());
-				counter.incrementAndGet();
-			})
 		;
 	}
 
 
-	private void exportMenuItemDefinition() {
-		addLog("@AD_Menu_ID@");
-
+	private List<Integer> getMenuIds() {
 		// Add filter a specific Menu
 		String whereClause = "";
 		List<Object> filtersList = new ArrayList<>();
@@ -299,7 +368,8 @@ public class ExportDictionaryDefinition extends ExportDictionaryDefinitionAbstra
 			;
 			filtersList.add(this.getTreeId());
 		}
-		new Query(
+		whereClause = addChangedFilter(whereClause, filtersList, I_AD_Menu.Table_Name, MenuItem.CHANNEL, MENU_CHILDREN);
+		return new Query(
 				getCtx(),
 				I_AD_Menu.Table_Name,
 				whereClause,
@@ -308,16 +378,6 @@ public class ExportDictionaryDefinition extends ExportDictionaryDefinitionAbstra
 			.setOnlyActiveRecords(true)
 			.setParameters(filtersList)
 			.getIDsAsList()
-			.forEach(menuId -> {
-				MMenu menu = new MMenu(getCtx(), menuId, get_TrxName());
-				QueueLoader.getInstance()
-					.getQueueManager(ApplicationDictionary.CODE)
-					.withEntity(menu)
-					.addToQueue()
-				;
-				addLog(menu.getAD_Menu_ID() + " - " + menu.getName());
-				counter.incrementAndGet();
-			})
 		;
 	}
 
@@ -61,6 +61,10 @@ public abstract class ExportDictionaryDefinitionAbstract extends SvrProcess {
 	public static final String AD_TREE_ID = "AD_Tree_ID";
 	/**	Parameter Name for Filter By Tree	*/
 	public static final String ECA56_ISFILTERBYTREE = "ECA56_IsFilterByTree";
+	/**	Parameter Name for Incremental	*/
+	public static final String ECA56_ISINCREMENTAL = "ECA56_IsIncremental";
+	/**	Parameter Name for Force Export	*/
+	public static final String ECA56_ISFORCEEXPORT = "ECA56_IsForceExport";
 	/**	Parameter Value for Export Menu	*/
 	private boolean isExportMenu;
 	/**	Parameter Value for Menu	*/
@@ -91,6 +95,10 @@ public abstract class ExportDictionaryDefinitionAbstract extends SvrProcess {
 	private int treeId;
 	/**	Parameter Value for Filter By Tree	*/
 	private boolean isFilterByTree;
+	/**	Parameter Value for Incremental	*/
+	private boolean isIncremental;
+	/**	Parameter Value for Force Export	*/
+	private boolean isForceExport;
 
 	@Override
 	protected void prepare() {
@@ -109,6 +117,8 @@ public abstract class ExportDictionaryDefinitionAbstract extends SvrProcess {
 		isExportTree = getParameterAsBoolean(ECA56_EXPORTTREE);
 		treeId = getParameterAsInt(AD_TREE_ID);
 		isFilterByTree = getParameterAsBoolean(ECA56_ISFILTERBYTREE);
+		isIncremental = getParameterAsBoolean(ECA56_ISINCREMENTAL);
+		isForceExport = getParameterAsBoolean(ECA56_ISFORCEEXPORT);
 	}
 
 	/**	 Getter Parameter Value for Export Menu	*/
@@ -261,6 +271,26 @@ public abstract class ExportDictionaryDefinitionAbstract extends SvrProcess {
 		this.isFilterByTree = isFilterByTree;
 	}
 
+	/**	 Getter Parameter Value for Incremental	*/
+	protected boolean isIncremental() {
+		return isIncremental;
+	}
+
+	/**	 Setter Parameter Value for Incremental	*/
+	protected void setIsIncremental(boolean isIncremental) {
+		this.isIncremental = isIncremental;
+	}
+
+	/**	 Getter Parameter Value for Force Export	*/
+	protected boolean isForceExport() {
+		return isForceExport;
+	}
+
+	/**	 Setter Parameter Value for Force Export	*/
+	protected void setIsForceExport(boolean isForceExport) {
+		this.isForceExport = isForceExport;
+	}
+
 	/**	 Getter Parameter Value for Process ID	*/
 	public static final int getProcessId() {
 		return ID_FOR_PROCESS;
@@ -27,6 +27,7 @@ import org.compiere.model.MRole;
 import org.compiere.model.Query;
 import org.compiere.util.Env;
 import org.spin.eca56.util.queue.ApplicationDictionary;
+import org.spin.eca56.util.queue.DefaultEngineQueueUtil;
 import org.spin.queue.util.QueueLoader;
 
 /** Generated Process for (Export Role Accesses)
@@ -46,6 +47,10 @@ public class ExportRoleAccesses extends ExportRoleAccessesAbstract
 	@Override
 	protected String doIt() throws Exception
 	{
+		//	Send documents without changes, used for repair the topics
+		if(isForceExport()) {
+			DefaultEngineQueueUtil.resetPublished();
+		}
 		exportRoleAccesses();
 
 		//	
@@ -33,12 +33,17 @@ public abstract class ExportRoleAccessesAbstract extends SvrProcess {
 	private static final int ID_FOR_PROCESS = 54758;
 	/**	Parameter Name for Role	*/
 	public static final String AD_ROLE_ID = "AD_Role_ID";
+	/**	Parameter Name for Force Export	*/
+	public static final String ECA56_ISFORCEEXPORT = "ECA56_IsForceExport";
 	/**	Parameter Value for Role	*/
 	private int roleId;
+	/**	Parameter Value for Force Export	*/
+	private boolean isForceExport;
 
 	@Override
 	protected void prepare() {
 		roleId = getParameterAsInt(AD_ROLE_ID);
+		isForceExport = getParameterAsBoolean(ECA56_ISFORCEEXPORT);
 	}
 
 	/**	 Getter Parameter Value for Role	*/
@@ -51,6 +56,16 @@ public abstract class ExportRoleAccessesAbstract extends SvrProcess {
 		this.roleId = roleId;
 	}
 
+	/**	 Getter Parameter Value for Force Export	*/
+	protected boolean isForceExport() {
+		return isForceExport;
+	}
+
+	/**	 Setter Parameter Value for Force Export	*/
+	protected void setIsForceExport(boolean isForceExport) {
+		this.isForceExport = isForceExport;
+	}
+
 	/**	 Getter Parameter Value for Process ID	*/
 	public static final int getProcessId() {
 		return ID_FOR_PROCESS;
@@ -0,0 +1,115 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.eca56.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Encoding of record value, it is sent in the header {@link #HEADER} of each record.
+ * A record without header is JSON
+ * @author Yamel Senih, ysenih@erpya.com , http://www.erpya.com
+ */
+public enum DocumentEncoding {
+	/**	JSON text (default)	*/
+	JSON("json", new ObjectMapper()),
+	/**	Binary JSON	*/
+	SMILE("smile", new ObjectMapper(new SmileFactory())),
+	/**	Concise Binary Object Representation	*/
+	CBOR("cbor", new ObjectMapper(new CBORFactory()));
+
+	/**	Header with encoding	*/
+	public static final String HEADER = "value.encoding";
+	/**	Name	*/
+	private final String name;
+	/**	Shared writer	*/
+	private final ObjectWriter writer;
+	/**	Shared reader	*/
+	private final ObjectReader reader;
+
+	private DocumentEncoding(String name, ObjectMapper mapper) {
+		this.name = name;
+		this.writer = mapper.writerFor(Map.class);
+		this.reader = mapper.readerFor(Map.class);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public ObjectWriter getWriter() {
+		return writer;
+	}
+
+	public ObjectReader getReader() {
+		return reader;
+	}
+
+	/**
+	 * Get value for header
+	 * @return
+	 */
+	public byte[] getHeaderValue() {
+		return name.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Get encoding from name
+	 * @param name
+	 * @return encoding or null if it is not supported
+	 */
+	public static DocumentEncoding fromName(String name) {
+		if(name == null) {
+			return null;
+		}
+		for(DocumentEncoding encoding : values()) {
+			if(encoding.getName().equalsIgnoreCase(name.trim())) {
+				return encoding;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get encoding from record headers, default is JSON
+	 * @param headers
+	 * @return
+	 */
+	public static DocumentEncoding fromHeaders(Headers headers) {
+		if(headers == null) {
+			return JSON;
+		}
+		Header header = headers.lastHeader(HEADER);
+		if(header == null
+				|| header.value() == null) {
+			return JSON;
+		}
+		DocumentEncoding encoding = fromName(new String(header.value(), StandardCharsets.UTF_8));
+		if(encoding == null) {
+			throw new IllegalArgumentException("Unsupported value encoding: " + new String(header.value(), StandardCharsets.UTF_8));
+		}
+		return encoding;
+	}
+}
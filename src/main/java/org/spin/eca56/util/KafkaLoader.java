@@ -16,87 +16,419 @@
 package org.spin.eca56.util;
 
 import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 
 import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewPartitions;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.TopicDescription;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.config.TopicConfig;
 import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.compiere.util.CLogger;
+import org.compiere.util.Util;
+import org.spin.eca56.util.support.kafka.ProducerProfile;
 
 /**
- * Singleton for load kafka client
+ * Singleton for load kafka client, it keep a producer by cluster (registration) shared by all channels.
+ * Each producer is reference counted, producers without references are closed after idle time
  * @author Yamel Senih, ysenih@erpya.com , http://www.erpya.com
  */
 public class KafkaLoader {
-	/**	Instance	*/
-	private static KafkaLoader instance;
+	/**	Logger	*/
+	private static CLogger log = CLogger.getCLogger(KafkaLoader.class);
+	/**	Idle time before close a producer without references	*/
+	private static final long DEFAULT_IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(10);
+	/**	Time for wait pending records on close	*/
+	private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(30);
+	/**	Time for wait a request of admin client (milliseconds)	*/
+	private static final long ADMIN_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
 
-	/**	Producer	*/
-	private HashMap<String, KafkaProducer<String, Object>> producers = new HashMap<>();
+	/**	Producers by cluster	*/
+	private final ConcurrentHashMap<String, ProducerReference> producers = new ConcurrentHashMap<>();
+	/**	Partitions of topics already provisioned by this JVM	*/
+	private final ConcurrentHashMap<String, Integer> knownTopics = new ConcurrentHashMap<>();
+	/**	Lock for provision each topic once	*/
+	private final ConcurrentHashMap<String, Object> topicLocks = new ConcurrentHashMap<>();
+	/**	Lock for create the producer of cluster once	*/
+	private final ConcurrentHashMap<String, Object> producerLocks = new ConcurrentHashMap<>();
+	/**	Clusters with a reference kept for callers of {@link #getProducer(String, String)}	*/
+	private final Set<String> legacyProducers = ConcurrentHashMap.newKeySet();
+	/**	Admin client by cluster	*/
+	private final ConcurrentHashMap<String, AdminClient> adminClients = new ConcurrentHashMap<>();
+	/**	Evict idle producers	*/
+	private final ScheduledExecutorService evictor;
+	/**	Idle timeout	*/
+	private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
 
+	/**
+	 * Lazy and thread safe holder
+	 */
+	private static final class Holder {
+		private static final KafkaLoader INSTANCE = new KafkaLoader();
+	}
 
 	/**
 	 * default instance
 	 * @return
 	 */
 	public static KafkaLoader getInstance() {
-		if(instance == null) {
-			instance = new KafkaLoader();
+		return Holder.INSTANCE;
+	}
+
+	private KafkaLoader() {
+		evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "ECA56-Kafka-Producer-Evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		evictor.scheduleWithFixedDelay(this::evictIdleProducers, 1, 1, TimeUnit.MINUTES);
+		Runtime.getRuntime().addShutdownHook(new Thread(this::close, "ECA56-Kafka-Producer-Shutdown"));
+	}
+
+	/**
+	 * Set idle time for close producers without references
+	 * @param idleTimeout milliseconds
+	 */
+	public void setIdleTimeout(long idleTimeout) {
+		if(idleTimeout > 0) {
+			this.idleTimeout = idleTimeout;
 		}
-		return instance;
 	}
 
 	/**
-	 * Create topic if not exist
+	 * Get a shared admin client for cluster
+	 * @param url
+	 * @return
+	 */
+	private AdminClient getAdminClient(String url) {
+		return adminClients.computeIfAbsent(url, key -> {
+			HashMap<String, Object> adminConfigs = new HashMap<>();
+			try {
+				adminConfigs.put(AdminClientConfig.CLIENT_ID_CONFIG, InetAddress.getLocalHost().getHostName());
+			} catch (UnknownHostException e) {
+				log.warning(e.getLocalizedMessage());
+			}
+			adminConfigs.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, key);
+			return AdminClient.create(adminConfigs);
+		});
+	}
+
+	/**
+	 * Get current partitions of topic
+	 * @param adminClient
 	 * @param topic
-	 * @param cloud
-	 */
-	private void createTopic(final String topic, final HashMap<String, Object> cloud) {
-		final NewTopic newTopic = new NewTopic(topic, Optional.empty(), Optional.empty());
-		try (final AdminClient adminClient = AdminClient.create(cloud)) {
-			HashMap<String, String> topicConfigs = new HashMap<>();
-			topicConfigs.put(TopicConfig.MAX_MESSAGE_BYTES_CONFIG, "20971520");
-			topicConfigs.put(TopicConfig.MAX_MESSAGE_BYTES_CONFIG, "20971520");
-
-			newTopic.configs(topicConfigs);
-			adminClient.createTopics(Collections.singletonList(newTopic)).all().get();
-		} catch (final InterruptedException | ExecutionException e) {
+	 * @return partitions or -1 if the topic does not exist
+	 * @throws Exception
+	 */
+	private int getPartitions(AdminClient adminClient, String topic) throws Exception {
+		try {
+			TopicDescription description = adminClient.describeTopics(Collections.singleton(topic)).all().get(ADMIN_TIMEOUT, TimeUnit.MILLISECONDS).get(topic);
+			return description.partitions().size();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof UnknownTopicOrPartitionException) {
+				return -1;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Create topic if not exist
+	 * @param adminClient
+	 * @param definition
+	 * @throws Exception
+	 */
+	private void createTopic(AdminClient adminClient, TopicDefinition definition) throws Exception {
+		final NewTopic newTopic = new NewTopic(definition.getName(),
+				definition.getPartitions() > 0? Optional.of(definition.getPartitions()): Optional.empty(),
+				definition.getReplicationFactor() > 0? Optional.of(definition.getReplicationFactor()): Optional.empty());
+		HashMap<String, String> topicConfigs = new HashMap<>();
+		topicConfigs.put(TopicConfig.MAX_MESSAGE_BYTES_CONFIG, "20971520");
+		if(!Util.isEmpty(definition.getCompressionType(), true)) {
+			topicConfigs.put(TopicConfig.COMPRESSION_TYPE_CONFIG, definition.getCompressionType());
+		}
+		if(!Util.isEmpty(definition.getCleanupPolicy(), true)) {
+			topicConfigs.put(TopicConfig.CLEANUP_POLICY_CONFIG, definition.getCleanupPolicy());
+		}
+		newTopic.configs(topicConfigs);
+		try {
+			adminClient.createTopics(Collections.singletonList(newTopic)).all().get(ADMIN_TIMEOUT, TimeUnit.MILLISECONDS);
+			log.fine("Topic created: " + definition);
+		} catch (final ExecutionException e) {
 			// Ignore if TopicExistsException, which may be valid if topic exists
 			if (!(e.getCause() instanceof TopicExistsException)) {
-				throw new RuntimeException(e);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Create topic only once by JVM
+	 * @param url
+	 * @param topic
+	 * @throws Exception
+	 */
+	public void ensureTopic(String url, String topic) throws Exception {
+		ensureTopic(url, TopicDefinition.newInstance(topic));
+	}
+
+	/**
+	 * Create topic if it does not exist or add partitions if the definition has more partitions than
+	 * the topic, the partitions of each topic are cached and the admin client is only used when the topic is unknown
+	 * or the definition request more partitions. The configs of an existing topic are not changed.
+	 * Each topic is provisioned by one thread at a time, the requests to admin client fail after 30 seconds
+	 * @param url
+	 * @param definition
+	 * @throws Exception
+	 */
+	public void ensureTopic(String url, TopicDefinition definition) throws Exception {
+		String key = url + "|" + definition.getName();
+		if(isProvisioned(key, definition)) {
+			return;
+		}
+		synchronized (topicLocks.computeIfAbsent(key, lockKey -> new Object())) {
+			if(isProvisioned(key, definition)) {
+				return;
+			}
+			AdminClient adminClient = getAdminClient(url);
+			int partitions = getPartitions(adminClient, definition.getName());
+			if(partitions < 0) {
+				createTopic(adminClient, definition);
+				partitions = getPartitions(adminClient, definition.getName());
+			} else if(definition.getPartitions() > partitions) {
+				adminClient.createPartitions(Collections.singletonMap(definition.getName(), NewPartitions.increaseTo(definition.getPartitions()))).all().get(ADMIN_TIMEOUT, TimeUnit.MILLISECONDS);
+				log.info("Partitions of " + definition.getName() + " increased from " + partitions + " to " + definition.getPartitions());
+				partitions = definition.getPartitions();
+			}
+			//	The metadata of a new topic can be not available yet, it is described again on next send
+			if(partitions > 0) {
+				knownTopics.put(key, partitions);
 			}
 		}
-	 }
-	
+	}
+
 	/**
-	 * Get current producer
+	 * Verify if the topic is known with enough partitions
+	 * @param key
+	 * @param definition
+	 * @return
+	 */
+	private boolean isProvisioned(String key, TopicDefinition definition) {
+		Integer partitions = knownTopics.get(key);
+		return partitions != null
+				&& partitions >= definition.getPartitions();
+	}
+
+	/**
+	 * Create a new producer for cluster
 	 * @param url
+	 * @param settings producer configuration, the defaults are values of {@link ProducerProfile}
 	 * @return
 	 * @throws Exception
 	 */
+	private KafkaProducer<String, Object> createProducer(String url, Map<String, Object> settings) throws Exception {
+		HashMap<String, Object> producerConfigs = new HashMap<>();
+		producerConfigs.put(ProducerConfig.CLIENT_ID_CONFIG, InetAddress.getLocalHost().getHostName());
+		//	Performance profile
+		producerConfigs.putAll(settings);
+		producerConfigs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, url);
+		producerConfigs.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, org.apache.kafka.common.serialization.StringSerializer.class.getName());
+		producerConfigs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, MapSerializer.class.getName());
+		log.fine("Producer Configs: " + producerConfigs);
+		return new KafkaProducer<String, Object>(producerConfigs);
+	}
+
+	/**
+	 * Get current producer, the topic is created if it does not exist. The producer is never closed
+	 * by evictor because the caller can not release it
+	 * @param url
+	 * @param topic
+	 * @return
+	 * @throws Exception
+	 * @deprecated use {@link #acquireProducer(String, String)} and {@link #releaseProducer(String)}
+	 * after {@link #ensureTopic(String, String)}
+	 */
+	@Deprecated
 	public KafkaProducer<String, Object> getProducer(String url, String topic) throws Exception {
-		String key = url + "|" + topic;
-		KafkaProducer<String, Object> producer = producers.get(key);
-		if (producer == null) {
-			HashMap<String, Object> producerConfigs = new HashMap<>();
-			producerConfigs.put(ProducerConfig.CLIENT_ID_CONFIG, InetAddress.getLocalHost().getHostName());
-			producerConfigs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, url);
-			producerConfigs.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, org.apache.kafka.common.serialization.StringSerializer.class.getName());
-			producerConfigs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, MapSerializer.class.getName());
-			producerConfigs.put(ProducerConfig.ACKS_CONFIG, "all");
-
-			producerConfigs.put(ProducerConfig.MAX_REQUEST_SIZE_CONFIG, 1024 * 1024 * 3);
-
-			createTopic(topic, producerConfigs);
-			producer = new KafkaProducer<String, Object>(producerConfigs);
-			producers.put(key, producer);
-		}
-		//	
+		ensureTopic(url, topic);
+		KafkaProducer<String, Object> producer = acquireProducer(url, url);
+		//	Only one reference is kept by cluster
+		if(!legacyProducers.add(url)) {
+			releaseProducer(url);
+		}
 		return producer;
 	}
+
+	/**
+	 * Get a producer for cluster and add a reference to it, the caller must call {@link #releaseProducer(String)}
+	 * when it is not used
+	 * @param clusterKey a key for cluster or registration
+	 * @param url bootstrap servers
+	 * @return
+	 * @throws Exception
+	 */
+	public KafkaProducer<String, Object> acquireProducer(String clusterKey, String url) throws Exception {
+		return acquireProducer(clusterKey, url, null);
+	}
+
+	/**
+	 * Get a producer for cluster and add a reference to it, the caller must call {@link #releaseProducer(String)}
+	 * when it is not used. The settings are only read when the producer is created
+	 * @param clusterKey a key for cluster or registration
+	 * @param url bootstrap servers
+	 * @param settings producer configuration, if it is null the default profile is used
+	 * @return
+	 * @throws Exception
+	 */
+	public KafkaProducer<String, Object> acquireProducer(String clusterKey, String url, Supplier<Map<String, Object>> settings) throws Exception {
+		ProducerReference reference = acquireExisting(clusterKey);
+		if(reference != null) {
+			return reference.getProducer();
+		}
+		//	The producer connect to cluster, it is created outside of map lock and only once by cluster
+		synchronized (producerLocks.computeIfAbsent(clusterKey, key -> new Object())) {
+			reference = acquireExisting(clusterKey);
+			if(reference != null) {
+				return reference.getProducer();
+			}
+			Map<String, Object> configs = settings == null ? ProducerProfile.newInstance(null).getConfigs() : settings.get();
+			reference = new ProducerReference(createProducer(url, configs));
+			reference.acquire();
+			producers.put(clusterKey, reference);
+			return reference.getProducer();
+		}
+	}
+
+	/**
+	 * Add a reference to current producer of cluster, the evictor never close a producer with references
+	 * @param clusterKey
+	 * @return reference or null if the cluster does not have producer
+	 */
+	private ProducerReference acquireExisting(String clusterKey) {
+		return producers.computeIfPresent(clusterKey, (key, current) -> {
+			current.acquire();
+			return current;
+		});
+	}
+
+	/**
+	 * Release a reference of producer
+	 * @param clusterKey
+	 */
+	public void releaseProducer(String clusterKey) {
+		ProducerReference reference = producers.get(clusterKey);
+		if(reference != null) {
+			reference.release();
+		}
+	}
+
+	/**
+	 * Close producers without references that are idle
+	 */
+	private void evictIdleProducers() {
+		long now = System.currentTimeMillis();
+		producers.keySet().forEach(clusterKey -> {
+			ProducerReference[] evicted = new ProducerReference[1];
+			producers.computeIfPresent(clusterKey, (key, reference) -> {
+				if(reference.getReferences() <= 0
+						&& now - reference.getLastUsed() >= idleTimeout) {
+					evicted[0] = reference;
+					return null;
+				}
+				return reference;
+			});
+			if(evicted[0] != null) {
+				log.fine("Closing idle producer: " + clusterKey);
+				closeProducer(evicted[0]);
+			}
+		});
+	}
+
+	/**
+	 * Close a producer waiting for pending records
+	 * @param reference
+	 */
+	private void closeProducer(ProducerReference reference) {
+		try {
+			reference.getProducer().close(CLOSE_TIMEOUT);
+		} catch (Exception e) {
+			log.log(Level.WARNING, e.getLocalizedMessage(), e);
+		}
+	}
+
+	/**
+	 * Close all producers and admin clients, pending records are sent before close
+	 */
+	public void close() {
+		legacyProducers.clear();
+		producers.keySet().forEach(clusterKey -> {
+			ProducerReference reference = producers.remove(clusterKey);
+			if(reference != null) {
+				closeProducer(reference);
+			}
+		});
+		adminClients.keySet().forEach(url -> {
+			AdminClient adminClient = adminClients.remove(url);
+			if(adminClient != null) {
+				try {
+					adminClient.close(CLOSE_TIMEOUT);
+				} catch (Exception e) {
+					log.log(Level.WARNING, e.getLocalizedMessage(), e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Producer with references
+	 */
+	private static final class ProducerReference {
+		private final KafkaProducer<String, Object> producer;
+		private final AtomicInteger references = new AtomicInteger();
+		private volatile long lastUsed = System.currentTimeMillis();
+
+		private ProducerReference(KafkaProducer<String, Object> producer) {
+			this.producer = producer;
+		}
+
+		private KafkaProducer<String, Object> getProducer() {
+			return producer;
+		}
+
+		private void acquire() {
+			references.incrementAndGet();
+			lastUsed = System.currentTimeMillis();
+		}
+
+		private void release() {
+			lastUsed = System.currentTimeMillis();
+			references.updateAndGet(value -> value > 0 ? value - 1 : 0);
+		}
+
+		private int getReferences() {
+			return references.get();
+		}
+
+		private long getLastUsed() {
+			return lastUsed;
+		}
+	}
 }
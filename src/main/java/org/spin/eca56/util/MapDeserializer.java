@@ -17,26 +17,40 @@ package org.spin.eca56.util;
 
 import java.util.Map;
 
+import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.serialization.Deserializer;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 /**
- * Deserializer for Entity Wrapper
+ * Deserializer for Entity Wrapper, it use a shared reader (thread safe).
+ * The encoding is read from header {@link DocumentEncoding#HEADER}, default is JSON
  * @author Yamel Senih, ysenih@erpya.com , http://www.erpya.com
  */
 public class MapDeserializer implements Deserializer<Map<String , Object>> {
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public Map<String , Object> deserialize(String topic, byte[] data) {
-		ObjectMapper objectMapper = new ObjectMapper();
-		Map<String , Object> wrapper = null;
+		return deserialize(DocumentEncoding.JSON, data);
+	}
+
+	@Override
+	public Map<String, Object> deserialize(String topic, Headers headers, byte[] data) {
+		return deserialize(DocumentEncoding.fromHeaders(headers), data);
+	}
+
+	/**
+	 * Deserialize with a encoding
+	 * @param encoding
+	 * @param data
+	 * @return
+	 */
+	public Map<String , Object> deserialize(DocumentEncoding encoding, byte[] data) {
+		if(data == null) {
+			return null;
+		}
 		try {
-			wrapper = objectMapper.readValue(data, Map.class);
+			return encoding.getReader().readValue(data);
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
-		return wrapper;
 	}
 }
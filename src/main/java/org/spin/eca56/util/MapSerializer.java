@@ -17,29 +17,63 @@ package org.spin.eca56.util;
 
 import java.util.Map;
 
+import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.serialization.Serializer;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
 
 /**
- * Serializer for Entity Wrapper
+ * Serializer for Entity Wrapper, it use a shared writer (thread safe) and write the bytes
+ * to a buffer reused by thread. The encoding is read from header {@link DocumentEncoding#HEADER}, default is JSON (UTF-8)
  * @author Yamel Senih, ysenih@erpya.com , http://www.erpya.com
  */
 public class MapSerializer implements Serializer<Map<String , Object>> {
 
+	/**	Buffers bigger than it are not kept by thread	*/
+	private static final int MAX_RETAINED_BUFFER = 1024 * 1024 * 4;
+	/**	Output buffer by thread	*/
+	private static final ThreadLocal<ByteArrayBuilder> BUFFER = ThreadLocal.withInitial(ByteArrayBuilder::new);
+	
 	public MapSerializer() {
 		
 	}
 	
 	@Override
 	public byte[] serialize(String topic, Map<String , Object> data) {
-		byte[] serializedObject = null;
-		ObjectMapper objectMapper = new ObjectMapper();
+		return serialize(DocumentEncoding.JSON, data);
+	}
+
+	@Override
+	public byte[] serialize(String topic, Headers headers, Map<String, Object> data) {
+		return serialize(DocumentEncoding.fromHeaders(headers), data);
+	}
+
+	/**
+	 * Serialize with a encoding
+	 * @param encoding
+	 * @param data
+	 * @return
+	 */
+	public byte[] serialize(DocumentEncoding encoding, Map<String , Object> data) {
+		if(data == null) {
+			return null;
+		}
+		ByteArrayBuilder buffer = BUFFER.get();
+		//	Bytes written, it is read before toByteArray because it can reset the buffer
+		int size = 0;
 		try {
-			serializedObject = objectMapper.writeValueAsString(data).getBytes();
+			encoding.getWriter().writeValue(buffer, data);
+			size = buffer.size();
+			return buffer.toByteArray();
 		} catch (Exception e) {
 			throw new RuntimeException(e);
+		} finally {
+			//	A thread that wrote a big document release the buffer
+			if(size > MAX_RETAINED_BUFFER) {
+				BUFFER.remove();
+			} else {
+				buffer.reset();
+			}
 		}
-		return serializedObject;
 	}
 }
@@ -0,0 +1,93 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.eca56.util;
+
+/**
+ * Definition used for create a topic: partitions, replication factor and topic configs.
+ * A value less or equal than zero for partitions or replication use the broker default
+ * @author Yamel Senih, ysenih@erpya.com , http://www.erpya.com
+ */
+public class TopicDefinition {
+	/**	Topic name	*/
+	private final String name;
+	/**	Partitions	*/
+	private int partitions;
+	/**	Replication Factor	*/
+	private short replicationFactor;
+	/**	Compression type	*/
+	private String compressionType;
+	/**	Cleanup Policy	*/
+	private String cleanupPolicy;
+
+	private TopicDefinition(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Default instance
+	 * @param name
+	 * @return
+	 */
+	public static TopicDefinition newInstance(String name) {
+		return new TopicDefinition(name);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getPartitions() {
+		return partitions;
+	}
+
+	public TopicDefinition withPartitions(int partitions) {
+		this.partitions = partitions;
+		return this;
+	}
+
+	public short getReplicationFactor() {
+		return replicationFactor;
+	}
+
+	public TopicDefinition withReplicationFactor(short replicationFactor) {
+		this.replicationFactor = replicationFactor;
+		return this;
+	}
+
+	public String getCompressionType() {
+		return compressionType;
+	}
+
+	public TopicDefinition withCompressionType(String compressionType) {
+		this.compressionType = compressionType;
+		return this;
+	}
+
+	public String getCleanupPolicy() {
+		return cleanupPolicy;
+	}
+
+	public TopicDefinition withCleanupPolicy(String cleanupPolicy) {
+		this.cleanupPolicy = cleanupPolicy;
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "TopicDefinition [name=" + name + ", partitions=" + partitions + ", replicationFactor="
+				+ replicationFactor + ", compressionType=" + compressionType + ", cleanupPolicy=" + cleanupPolicy + "]";
+	}
+}
@@ -17,6 +17,7 @@
 package org.spin.eca56.util.queue;
 
 import java.util.List;
+import java.util.Properties;
 
 import org.adempiere.core.domains.models.I_AD_Browse;
 import org.adempiere.core.domains.models.I_AD_Form;
@@ -42,7 +43,6 @@ import org.spin.eca56.util.support.documents.MenuTree;
 import org.spin.eca56.util.support.documents.Process;
 import org.spin.eca56.util.support.documents.Role;
 import org.spin.eca56.util.support.documents.Window;
-import org.spin.queue.model.MADQueue;
 import org.spin.queue.util.QueueManager;
 
 /**
@@ -58,14 +58,29 @@ public class ApplicationDictionary extends QueueManager implements IEngineDictio
 	@Override
 	public void add(int queueId) {
 		logger.fine("Queue Added: " + queueId);
+		//	The worker load the entity again, it never use the entity or transaction of caller
+		QueueEntry entry = QueueEntry.newInstance(queueId, getEntity());
+		//	The document is built and sent from a worker when the entry is committed
+		OutboxWorkerPool.getInstance().executeAfterCommit(getTransactionName(), queueId, () -> deliver(entry));
+	}
+
+	/**
+	 * Send documents of queue entry
+	 * @param entry
+	 */
+	private void deliver(QueueEntry entry) {
+		//	Processed is set when server acknowledge all documents, failed entries are sent again by tracker
+		QueueDelivery delivery = QueueDeliveryTracker.getInstance().newDelivery(entry.getQueueId())
+			.withRetry(() -> deliver(entry));
 		try {
-			send(queueId);
-			MADQueue queue = new MADQueue(getContext(), queueId, getTransactionName());
-			queue.setProcessed(true);
-			queue.saveEx();
+			PO entity = entry.getEntity();
+			delivery.withEntity(entity);
+			send(entry.getQueueId(), entity, delivery);
 		} catch (Throwable e) {
-			// e.printStackTrace();
+			delivery.fail(e);
 			logger.warning(e.getLocalizedMessage());
+		} finally {
+			delivery.close();
 		}
 	}
 
@@ -74,9 +89,9 @@ public class ApplicationDictionary extends QueueManager implements IEngineDictio
 		send(queueId);
 	}
 
-	private String getDictionaryCode() {
+	private String getDictionaryCode(Properties context) {
 		// Only system
-		MClientInfo clientInfo = MClientInfo.get(getContext(), 0);
+		MClientInfo clientInfo = MClientInfo.get(context, 0);
 		String code = clientInfo.get_ValueAsString(ECA56_DictionaryCode);
 		if(Util.isEmpty(code, true)) {
 			code = "";
@@ -85,22 +100,38 @@ public class ApplicationDictionary extends QueueManager implements IEngineDictio
 	}
 
 	public void send(int queueId) {
-		PO entity = getEntity();
+		send(queueId, getEntity(), null);
+	}
+
+	/**
+	 * Send all documents of entity, if delivery is not null then the documents are tracked
+	 * @param queueId
+	 * @param entity
+	 * @param delivery
+	 */
+	private void send(int queueId, PO entity, QueueDelivery delivery) {
 		if(entity != null) {
 			IGenericSender sender = DefaultEngineQueueUtil.getEngineManager();
 			if(sender != null) {
 				IGenericDictionaryDocument documentByLanguage = getDocumentManager(entity);
 				if(documentByLanguage != null) {
-					sender.send(documentByLanguage, documentByLanguage.getChannel());
+					send(sender, documentByLanguage, delivery);
 				}
 				// TODO: Skip with `AD_Tree` and `AD_Role`
-				getLanguages().forEach(languageId -> {
-					MLanguage language = new MLanguage(getContext(), languageId, getTransactionName());
-					IGenericDictionaryDocument aloneDocument = getDocumentManager(entity, language.getAD_Language());
-					if(aloneDocument != null) {
-						sender.send(aloneDocument, aloneDocument.getChannel());
+				//	The document is built once and translated for each language
+				IGenericDictionaryDocument aloneDocument = null;
+				for(int languageId : getLanguages(entity)) {
+					MLanguage language = new MLanguage(entity.getCtx(), languageId, entity.get_TrxName());
+					if(aloneDocument == null) {
+						aloneDocument = getDocumentManager(entity, language.getAD_Language());
+						if(aloneDocument == null) {
+							break;
+						}
+						send(sender, aloneDocument, delivery);
+					} else {
+						send(sender, aloneDocument.withTranslation(language.getAD_Language()), delivery);
 					}
-				});
+				}
 			} else {
 				throw new AdempiereException("@AD_AppRegistration_ID@ @NotFound@");
 			}
@@ -108,8 +139,22 @@ public class ApplicationDictionary extends QueueManager implements IEngineDictio
 		}
 	}
 
-	private List<Integer> getLanguages() {
-		return new Query(getContext(), I_AD_Language.Table_Name, "(IsBaseLanguage = 'Y' OR IsSystemLanguage = 'Y')", getTransactionName())
+	/**
+	 * Send a document
+	 * @param sender
+	 * @param document
+	 * @param delivery
+	 */
+	private void send(IGenericSender sender, IGenericDictionaryDocument document, QueueDelivery delivery) {
+		if(delivery == null) {
+			sender.send(document, document.getChannel());
+			return;
+		}
+		sender.send(document, document.getChannel(), delivery.register());
+	}
+
+	private List<Integer> getLanguages(PO entity) {
+		return new Query(entity.getCtx(), I_AD_Language.Table_Name, "(IsBaseLanguage = 'Y' OR IsSystemLanguage = 'Y')", entity.get_TrxName())
 				.setOnlyActiveRecords(true)
 				.getIDsAsList();
 	}
@@ -120,17 +165,17 @@ public class ApplicationDictionary extends QueueManager implements IEngineDictio
 		if(Util.isEmpty(tableName)) {
 			return null;
 		}
-		if(MClientInfo.get(getContext()).get_ValueAsBoolean(ECA56_TemplateDictionary)) {
+		if(MClientInfo.get(entity.getCtx()).get_ValueAsBoolean(ECA56_TemplateDictionary)) {
 			if(tableName.equals(I_AD_Tree.Table_Name)) {
 				return MenuTree.newInstance().withEntity(entity);
 			}
 		} else {
 			if(tableName.equals(I_AD_Tree.Table_Name)) {
-				return MenuTree.newInstance().withClientId(getDictionaryCode()).withEntity(entity);
+				return MenuTree.newInstance().withClientId(getDictionaryCode(entity.getCtx())).withEntity(entity);
 			}
 		}
 		if(tableName.equals(I_AD_Role.Table_Name)) {
-			String localClientId = MClient.get(getContext(), entity.getAD_Client_ID()).getUUID();
+			String localClientId = MClient.get(entity.getCtx(), entity.getAD_Client_ID()).getUUID();
 			return Role.newInstance().withClientId(localClientId).withEntity(entity);
 		}
 		return null;
@@ -142,7 +187,7 @@ public class ApplicationDictionary extends QueueManager implements IEngineDictio
 		if(Util.isEmpty(tableName)) {
 			return null;
 		}
-		if(MClientInfo.get(getContext()).get_ValueAsBoolean(ECA56_TemplateDictionary)) {
+		if(MClientInfo.get(entity.getCtx()).get_ValueAsBoolean(ECA56_TemplateDictionary)) {
 			if(tableName.equals(I_AD_Process.Table_Name)) {
 				return Process.newInstance().withLanguage(language).withEntity(entity);
 			} else if(tableName.equals(I_AD_Browse.Table_Name)) {
@@ -156,15 +201,15 @@ public class ApplicationDictionary extends QueueManager implements IEngineDictio
 			}
 		} else {
 			if(tableName.equals(I_AD_Process.Table_Name)) {
-				return Process.newInstance().withLanguage(language).withClientId(getDictionaryCode()).withEntity(entity);
+				return Process.newInstance().withLanguage(language).withClientId(getDictionaryCode(entity.getCtx())).withEntity(entity);
 			} else if(tableName.equals(I_AD_Browse.Table_Name)) {
-				return Browser.newInstance().withLanguage(language).withClientId(getDictionaryCode()).withEntity(entity);
+				return Browser.newInstance().withLanguage(language).withClientId(getDictionaryCode(entity.getCtx())).withEntity(entity);
 			} else if(tableName.equals(I_AD_Window.Table_Name)) {
-				return Window.newInstance().withLanguage(language).withClientId(getDictionaryCode()).withEntity(entity);
+				return Window.newInstance().withLanguage(language).withClientId(getDictionaryCode(entity.getCtx())).withEntity(entity);
 			} else if(tableName.equals(I_AD_Menu.Table_Name)) {
-				return MenuItem.newInstance().withLanguage(language).withClientId(getDictionaryCode()).withEntity(entity);
+				return MenuItem.newInstance().withLanguage(language).withClientId(getDictionaryCode(entity.getCtx())).withEntity(entity);
 			} else if (tableName.equals(I_AD_Form.Table_Name)) {
-				return Form.newInstance().withLanguage(language).withClientId(getDictionaryCode()).withEntity(entity);
+				return Form.newInstance().withLanguage(language).withClientId(getDictionaryCode(entity.getCtx())).withEntity(entity);
 			}
 		}
 		return null;
@@ -0,0 +1,257 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+
+import org.compiere.model.MSysConfig;
+import org.compiere.model.MTable;
+import org.compiere.model.PO;
+import org.compiere.util.CLogger;
+import org.compiere.util.Env;
+import org.spin.queue.util.QueueLoader;
+
+/**
+ * Collapse the changes of a dictionary entity in a single queue entry with the last state of entity.
+ * The entry is added when the entity don't have changes for {@link #ECA56_ChangeQuietPeriod} milliseconds
+ * or when {@link #ECA56_ChangeMaxDelay} milliseconds passed from first change. A change of translation
+ * (table with suffix _Trl) is a change of parent entity.
+ * The pending changes are kept only in memory until they are added to queue: the changes are flushed to queue
+ * when the JVM is stopped normally, but the changes of last {@link #ECA56_ChangeMaxDelay} milliseconds are lost if the
+ * server is killed or crash. Run the process Export Dictionary Definition after a crash for send these entities
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class ChangeCoalescer {
+
+	/**	System Configurator for time without changes before send	*/
+	public static final String ECA56_ChangeQuietPeriod = "ECA56_ChangeQuietPeriod";
+	/**	System Configurator for max time from first change before send	*/
+	public static final String ECA56_ChangeMaxDelay = "ECA56_ChangeMaxDelay";
+	/**	Default quiet period (milliseconds)	*/
+	private static final long DEFAULT_QUIET_PERIOD = 2000;
+	/**	Default max delay (milliseconds)	*/
+	private static final long DEFAULT_MAX_DELAY = 10000;
+	/**	Translation suffix	*/
+	private static final String TRANSLATION_SUFFIX = "_Trl";
+	/**	Logger	*/
+	private static CLogger log = CLogger.getCLogger(ChangeCoalescer.class);
+	/**	Pending changes by table and record	*/
+	private final Map<String, PendingChange> pendingChanges = new ConcurrentHashMap<>();
+	/**	Scheduler	*/
+	private final ScheduledExecutorService scheduler;
+	/**	Quiet period (milliseconds)	*/
+	private final LongSupplier quietPeriod;
+	/**	Max delay (milliseconds)	*/
+	private final LongSupplier maxDelay;
+	/**	Add a record to queue	*/
+	private final BiConsumer<String, Integer> queue;
+
+	/**
+	 * Lazy and thread safe holder
+	 */
+	private static final class Holder {
+		private static final ChangeCoalescer INSTANCE = new ChangeCoalescer();
+	}
+
+	/**
+	 * Default instance
+	 * @return
+	 */
+	public static ChangeCoalescer getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	private ChangeCoalescer() {
+		this(Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "ECA56-Change-Coalescer");
+				thread.setDaemon(true);
+				return thread;
+			}),
+			() -> MSysConfig.getIntValue(ECA56_ChangeQuietPeriod, (int) DEFAULT_QUIET_PERIOD),
+			() -> MSysConfig.getIntValue(ECA56_ChangeMaxDelay, (int) DEFAULT_MAX_DELAY),
+			ChangeCoalescer::addEntityToQueue);
+		//	Pending changes are saved in queue before stop
+		Runtime.getRuntime().addShutdownHook(new Thread(this::flushAll, "ECA56-Change-Coalescer-Shutdown"));
+	}
+
+	/**
+	 * Used for test without system configurator or queue
+	 * @param scheduler
+	 * @param quietPeriod
+	 * @param maxDelay
+	 * @param queue
+	 */
+	ChangeCoalescer(ScheduledExecutorService scheduler, LongSupplier quietPeriod, LongSupplier maxDelay, BiConsumer<String, Integer> queue) {
+		this.scheduler = scheduler;
+		this.quietPeriod = quietPeriod;
+		this.maxDelay = maxDelay;
+		this.queue = queue;
+	}
+
+	/**
+	 * Add a change of entity after commit of transaction, a translation is added as change of parent
+	 * @param entity
+	 */
+	public void add(PO entity) {
+		String tableName = entity.get_TableName();
+		int recordId = entity.get_ID();
+		if(tableName.endsWith(TRANSLATION_SUFFIX)) {
+			tableName = tableName.substring(0, tableName.length() - TRANSLATION_SUFFIX.length());
+			recordId = entity.get_ValueAsInt(tableName + "_ID");
+		}
+		if(recordId <= 0) {
+			return;
+		}
+		String changedTableName = tableName;
+		int changedRecordId = recordId;
+		TransactionPublisher.getInstance().add(entity.get_TrxName(), () -> add(changedTableName, changedRecordId));
+	}
+
+	/**
+	 * Add a change of a record
+	 * @param tableName
+	 * @param recordId
+	 */
+	public void add(String tableName, int recordId) {
+		long quietPeriod = Math.max(0, this.quietPeriod.getAsLong());
+		long maxDelay = Math.max(quietPeriod, this.maxDelay.getAsLong());
+		long now = System.currentTimeMillis();
+		String key = tableName + "|" + recordId;
+		PendingChange change = pendingChanges.compute(key, (currentKey, current) -> {
+			if(current == null) {
+				return new PendingChange(tableName, recordId, now, now + maxDelay);
+			}
+			current.lastChange = now;
+			return current;
+		});
+		long dueTime = change.getDueTime(quietPeriod);
+		scheduler.schedule(() -> flush(key, quietPeriod), Math.max(0, dueTime - now), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Add the entity to queue if it is due, else it is checked by next schedule of same entity
+	 * @param key
+	 * @param quietPeriod
+	 */
+	private void flush(String key, long quietPeriod) {
+		PendingChange change = pendingChanges.get(key);
+		if(change == null
+				|| change.getDueTime(quietPeriod) > System.currentTimeMillis()
+				|| !pendingChanges.remove(key, change)) {
+			return;
+		}
+		addToQueue(key, change);
+	}
+
+	/**
+	 * Add all pending changes to queue without wait, it is called when the JVM is stopped
+	 */
+	public void flushAll() {
+		pendingChanges.forEach((key, change) -> {
+			if(pendingChanges.remove(key, change)) {
+				addToQueue(key, change);
+			}
+		});
+	}
+
+	/**
+	 * Add a pending change to queue
+	 * @param key
+	 * @param change
+	 */
+	private void addToQueue(String key, PendingChange change) {
+		try {
+			queue.accept(change.tableName, change.recordId);
+		} catch (Exception e) {
+			log.log(Level.WARNING, "Error adding " + key + " to queue: " + e.getLocalizedMessage(), e);
+		}
+	}
+
+	/**
+	 * Add last state of record to queue of dictionary
+	 * @param tableName
+	 * @param recordId
+	 */
+	private static void addEntityToQueue(String tableName, int recordId) {
+		PO entity = MTable.get(Env.getCtx(), tableName).getPO(recordId, null);
+		if(entity == null
+				|| entity.get_ID() <= 0) {
+			return;
+		}
+		QueueLoader.getInstance()
+			.getQueueManager(ApplicationDictionary.CODE)
+			.withEntity(entity)
+			.addToQueue()
+		;
+	}
+
+	/**
+	 * Get changes waiting for be added to queue
+	 * @return
+	 */
+	public int getPendingChanges() {
+		return pendingChanges.size();
+	}
+
+	/**
+	 * Time to add entity to queue: after quiet period of last change but never after max time
+	 * @param lastChange time of last change
+	 * @param quietPeriod time without changes
+	 * @param maxTime max time from first change
+	 * @return
+	 */
+	static long getDueTime(long lastChange, long quietPeriod, long maxTime) {
+		return Math.min(lastChange + quietPeriod, maxTime);
+	}
+
+	/**
+	 * Changes of a record
+	 */
+	private static final class PendingChange {
+		/**	Table	*/
+		private final String tableName;
+		/**	Record	*/
+		private final int recordId;
+		/**	Max time for add to queue	*/
+		private final long maxTime;
+		/**	Last change	*/
+		private volatile long lastChange;
+
+		private PendingChange(String tableName, int recordId, long lastChange, long maxTime) {
+			this.tableName = tableName;
+			this.recordId = recordId;
+			this.lastChange = lastChange;
+			this.maxTime = maxTime;
+		}
+
+		/**
+		 * Time to add entity to queue
+		 * @param quietPeriod
+		 * @return
+		 */
+		private long getDueTime(long quietPeriod) {
+			return ChangeCoalescer.getDueTime(lastChange, quietPeriod, maxTime);
+		}
+	}
+}
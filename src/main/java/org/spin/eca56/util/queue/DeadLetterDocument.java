@@ -0,0 +1,186 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.compiere.model.PO;
+import org.compiere.util.Util;
+import org.spin.eca56.util.DocumentEncoding;
+import org.spin.eca56.util.MapSerializer;
+import org.spin.eca56.util.support.IGenericDocument;
+
+/**
+ * Document sent to dead letter channel (channel of failed document with suffix {@link #CHANNEL_SUFFIX})
+ * when a queue entry is not delivered after all retries, it contains the failed document and the error.
+ * A failed document bigger than {@link #MAX_DOCUMENT_SIZE} is not included (the failure can be the size),
+ * only the key, channel and entity of document are sent
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class DeadLetterDocument implements IGenericDocument {
+
+	/**	Suffix of dead letter channel	*/
+	public static final String CHANNEL_SUFFIX = "_dlq";
+	/**	Channel used when the entry fails before build a document	*/
+	public static final String DEFAULT_CHANNEL = "queue";
+	/**	Max length of stack trace	*/
+	private static final int MAX_STACK_TRACE_LENGTH = 4000;
+	/**	Max size of failed document included (bytes as JSON)	*/
+	public static final int MAX_DOCUMENT_SIZE = 256 * 1024;
+
+	/**	Queue entry	*/
+	private int queueId;
+	/**	Failed attempts	*/
+	private int attempts;
+	/**	Entity of queue	*/
+	private PO entity;
+	/**	Failed document	*/
+	private IGenericDocument document;
+	/**	Error	*/
+	private Throwable error;
+
+	private DeadLetterDocument() {
+
+	}
+
+	/**
+	 * Default instance
+	 * @return
+	 */
+	public static DeadLetterDocument newInstance() {
+		return new DeadLetterDocument();
+	}
+
+	public DeadLetterDocument withQueueId(int queueId) {
+		this.queueId = queueId;
+		return this;
+	}
+
+	public DeadLetterDocument withAttempts(int attempts) {
+		this.attempts = attempts;
+		return this;
+	}
+
+	public DeadLetterDocument withEntity(PO entity) {
+		this.entity = entity;
+		return this;
+	}
+
+	public DeadLetterDocument withDocument(IGenericDocument document) {
+		this.document = document;
+		return this;
+	}
+
+	public DeadLetterDocument withError(Throwable error) {
+		this.error = error;
+		return this;
+	}
+
+	/**
+	 * Get channel of failed document
+	 * @return
+	 */
+	public String getSourceChannel() {
+		if(document == null
+				|| Util.isEmpty(document.getChannel(), true)) {
+			return DEFAULT_CHANNEL;
+		}
+		return document.getChannel();
+	}
+
+	@Override
+	public String getKey() {
+		return getKey(KEY_STRATEGY_ENTITY_LANGUAGE_CLIENT);
+	}
+
+	@Override
+	public String getKey(String keyStrategy) {
+		//	Same key of failed document for keep the order
+		if(document != null) {
+			return document.getKey(keyStrategy);
+		}
+		if(entity != null
+				&& !Util.isEmpty(entity.get_UUID())) {
+			return entity.get_UUID();
+		}
+		return String.valueOf(queueId);
+	}
+
+	@Override
+	public String getChannel() {
+		return getSourceChannel() + CHANNEL_SUFFIX;
+	}
+
+	@Override
+	public Map<String, Object> getValues() {
+		Map<String, Object> detail = new HashMap<>();
+		detail.put("queue_id", queueId);
+		detail.put("attempts", attempts);
+		detail.put("channel", getSourceChannel());
+		if(entity != null) {
+			detail.put("table_name", entity.get_TableName());
+			detail.put("record_id", entity.get_ID());
+			detail.put("uuid", entity.get_UUID());
+		}
+		if(error != null) {
+			Map<String, Object> errorDetail = new HashMap<>();
+			errorDetail.put("type", error.getClass().getName());
+			errorDetail.put("message", error.getLocalizedMessage());
+			StringWriter stackTrace = new StringWriter();
+			error.printStackTrace(new PrintWriter(stackTrace));
+			String value = stackTrace.toString();
+			if(value.length() > MAX_STACK_TRACE_LENGTH) {
+				value = value.substring(0, MAX_STACK_TRACE_LENGTH);
+			}
+			errorDetail.put("stack_trace", value);
+			detail.put("error", errorDetail);
+		}
+		if(document != null) {
+			detail.put("key", document.getKey());
+			Map<String, Object> documentValues = document.getValues();
+			int size = getSize(documentValues);
+			if(size <= MAX_DOCUMENT_SIZE) {
+				detail.put("document", documentValues);
+			} else {
+				detail.put("document_size", size);
+				detail.put("is_document_omitted", true);
+			}
+		}
+		Map<String, Object> values = new HashMap<>();
+		values.put("dead_letter", detail);
+		return values;
+	}
+
+	/**
+	 * Get size of values as JSON
+	 * @param values
+	 * @return size in bytes, a document that can not be serialized is too big
+	 */
+	private static int getSize(Map<String, Object> values) {
+		if(values == null) {
+			return 0;
+		}
+		try {
+			return new MapSerializer().serialize(DocumentEncoding.JSON, values).length;
+		} catch (RuntimeException e) {
+			return Integer.MAX_VALUE;
+		}
+	}
+}
@@ -57,6 +57,17 @@ public class DefaultEngineQueueUtil {
 		return null;
 	}
 	
+	/**
+	 * Forget the documents published by sender, the next export send all documents again.
+	 * Note that the published documents are kept by each server
+	 */
+	public static void resetPublished() {
+		IGenericSender sender = getEngineManager();
+		if(sender != null) {
+			sender.resetPublished();
+		}
+	}
+
 	/**
 	 * Get registration from cache or search it
 	 * @return
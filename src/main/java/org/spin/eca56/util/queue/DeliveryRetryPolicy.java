@@ -0,0 +1,114 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.compiere.model.MSysConfig;
+
+/**
+ * Retries of a failed delivery: the delay is doubled for each retry until max delay and a half of delay
+ * is random (jitter) for avoid that all failed entries are sent at same time
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class DeliveryRetryPolicy {
+
+	/**	Default max retries	*/
+	private static final int DEFAULT_MAX_RETRIES = 5;
+	/**	Default delay of first retry	*/
+	private static final int DEFAULT_RETRY_DELAY = 1000;
+	/**	Default max delay	*/
+	private static final int DEFAULT_RETRY_MAX_DELAY = 60000;
+	/**	Max retries before dead letter	*/
+	private final int maxRetries;
+	/**	Delay of first retry	*/
+	private final long initialDelay;
+	/**	Max delay	*/
+	private final long maxDelay;
+
+	private DeliveryRetryPolicy(int maxRetries, long initialDelay, long maxDelay) {
+		this.maxRetries = Math.max(0, maxRetries);
+		this.initialDelay = Math.max(1, initialDelay);
+		this.maxDelay = Math.max(this.initialDelay, maxDelay);
+	}
+
+	/**
+	 * Policy of system configurators, see {@link QueueDeliveryTracker#ECA56_DeliveryMaxRetries}
+	 * @return
+	 */
+	public static DeliveryRetryPolicy newInstance() {
+		return newInstance(
+			MSysConfig.getIntValue(QueueDeliveryTracker.ECA56_DeliveryMaxRetries, DEFAULT_MAX_RETRIES),
+			MSysConfig.getIntValue(QueueDeliveryTracker.ECA56_DeliveryRetryDelay, DEFAULT_RETRY_DELAY),
+			MSysConfig.getIntValue(QueueDeliveryTracker.ECA56_DeliveryRetryMaxDelay, DEFAULT_RETRY_MAX_DELAY)
+		);
+	}
+
+	/**
+	 * Policy with values
+	 * @param maxRetries
+	 * @param initialDelay milliseconds
+	 * @param maxDelay milliseconds
+	 * @return
+	 */
+	public static DeliveryRetryPolicy newInstance(int maxRetries, long initialDelay, long maxDelay) {
+		return new DeliveryRetryPolicy(maxRetries, initialDelay, maxDelay);
+	}
+
+	/**
+	 * Verify if a failed attempt is sent again
+	 * @param attempt failed attempts (starting with 1)
+	 * @return
+	 */
+	public boolean isRetry(int attempt) {
+		return attempt <= maxRetries;
+	}
+
+	/**
+	 * Get delay before a retry
+	 * @param attempt failed attempts (starting with 1)
+	 * @return delay in milliseconds
+	 */
+	public long getDelay(int attempt) {
+		return getDelay(attempt, ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Get delay before a retry, it is between a half of delay and delay
+	 * @param attempt failed attempts (starting with 1)
+	 * @param random
+	 * @return delay in milliseconds
+	 */
+	long getDelay(int attempt, Random random) {
+		long delay = initialDelay << Math.min(Math.max(attempt, 1) - 1, 30);
+		if(delay <= 0
+				|| delay > maxDelay) {
+			delay = maxDelay;
+		}
+		long half = delay / 2;
+		return half + (long) (random.nextDouble() * (delay - half + 1));
+	}
+
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	public long getMaxDelay() {
+		return maxDelay;
+	}
+}
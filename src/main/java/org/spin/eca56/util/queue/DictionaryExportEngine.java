@@ -0,0 +1,464 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.compiere.model.MSysConfig;
+import org.compiere.model.PO;
+import org.compiere.util.CLogger;
+import org.spin.eca56.util.support.SubDocumentCache;
+import org.spin.queue.util.QueueLoader;
+
+/**
+ * Export of dictionary entities: the entities are split in partitions by entity type and ID range
+ * and each partition is queued from a worker ({@link #ECA56_ExportWorkers}). The export ends when server acknowledge
+ * all entries (see {@link QueueDeliveryTracker#track(IQueueEntryListener, Runnable)}), the checkpoint of each partition
+ * is the entity before the first entity not acknowledged and it is saved on a {@link ExportCheckpointStore},
+ * then a run that fails is resumed from last checkpoint by next run with same run key
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class DictionaryExportEngine {
+
+	/**	System Configurator for quantity of workers	*/
+	public static final String ECA56_ExportWorkers = "ECA56_ExportWorkers";
+	/**	System Configurator for entities by partition	*/
+	public static final String ECA56_ExportPartitionSize = "ECA56_ExportPartitionSize";
+	/**	System Configurator for max time without acknowledgement of server (milliseconds)	*/
+	public static final String ECA56_ExportAcknowledgeTimeout = "ECA56_ExportAcknowledgeTimeout";
+	/**	Default workers	*/
+	private static final int DEFAULT_WORKERS = 4;
+	/**	Default entities by partition	*/
+	private static final int DEFAULT_PARTITION_SIZE = 100;
+	/**	Default max time without acknowledgement	*/
+	private static final long DEFAULT_ACKNOWLEDGE_TIMEOUT = 300000;
+	/**	Entities queued between checkpoints	*/
+	private static final int CHECKPOINT_INTERVAL = 10;
+	/**	Time between checkpoints while wait for acknowledgement	*/
+	private static final long CHECKPOINT_WAIT = 1000;
+	/**	Logger	*/
+	private static CLogger log = CLogger.getCLogger(DictionaryExportEngine.class);
+	/**	Partitions	*/
+	private final List<ExportPartition> partitions = new ArrayList<>();
+	/**	Key of run, used for resume	*/
+	private String runKey;
+	/**	Log of process	*/
+	private Consumer<String> logger;
+
+	private DictionaryExportEngine() {
+
+	}
+
+	/**
+	 * Default instance
+	 * @return
+	 */
+	public static DictionaryExportEngine newInstance() {
+		return new DictionaryExportEngine();
+	}
+
+	/**
+	 * Set run key, a failed run is resumed only by a run with same key
+	 * @param runKey
+	 * @return
+	 */
+	public DictionaryExportEngine withRunKey(String runKey) {
+		this.runKey = runKey;
+		return this;
+	}
+
+	/**
+	 * Set log of process, it is called from caller thread with a summary of each partition
+	 * @param logger
+	 * @return
+	 */
+	public DictionaryExportEngine withLogger(Consumer<String> logger) {
+		this.logger = logger;
+		return this;
+	}
+
+	/**
+	 * Add entities of a type, they are split in partitions of consecutive IDs
+	 * @param tableName
+	 * @param ids
+	 * @param loader load entity from ID
+	 * @return
+	 */
+	public DictionaryExportEngine withEntities(String tableName, List<Integer> ids, IntFunction<PO> loader) {
+		if(ids == null || ids.isEmpty()) {
+			return this;
+		}
+		int partitionSize = Math.max(1, MSysConfig.getIntValue(ECA56_ExportPartitionSize, DEFAULT_PARTITION_SIZE));
+		List<Integer> sortedIds = new ArrayList<>(ids);
+		sortedIds.sort(null);
+		for(int index = 0; index < sortedIds.size(); index += partitionSize) {
+			List<Integer> partitionIds = sortedIds.subList(index, Math.min(index + partitionSize, sortedIds.size()));
+			partitions.add(new ExportPartition(tableName, new ArrayList<>(partitionIds), loader));
+		}
+		return this;
+	}
+
+	/**
+	 * Export all partitions and wait for acknowledgement of all entries, if any partition fails
+	 * the progress is kept for resume
+	 * @return quantity of entities exported
+	 */
+	public int export() {
+		if(partitions.isEmpty()) {
+			return 0;
+		}
+		ExportCheckpointStore store = ExportCheckpointStore.newInstance(runKey == null ? "" : runKey);
+		if(store.isResumed()) {
+			addLog("Resume export from last checkpoint");
+		}
+		int workers = Math.min(partitions.size(), Math.max(1, MSysConfig.getIntValue(ECA56_ExportWorkers, DEFAULT_WORKERS)));
+		AtomicInteger threadNumber = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+			Thread thread = new Thread(runnable, "ECA56-Export-Worker-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		//	Processes, browsers, forms and workflows referenced are built once for all documents of export
+		SubDocumentCache cache = SubDocumentCache.newInstance();
+		int exported = 0;
+		Throwable error = null;
+		int failed = 0;
+		try {
+			Map<ExportPartition, Future<ExportProgress>> results = new LinkedHashMap<>();
+			partitions.forEach(partition -> results.put(partition, executor.submit(() -> cache.call(() -> export(partition, store)))));
+			Map<ExportPartition, ExportProgress> queued = new LinkedHashMap<>();
+			for(Map.Entry<ExportPartition, Future<ExportProgress>> result : results.entrySet()) {
+				ExportPartition partition = result.getKey();
+				try {
+					queued.put(partition, result.getValue().get());
+				} catch (ExecutionException e) {
+					failed++;
+					if(error == null) {
+						error = e.getCause();
+					}
+					log.log(Level.WARNING, partition.getDescription() + ": " + e.getCause().getLocalizedMessage(), e.getCause());
+					addLog(partition.getDescription() + ": @Error@ " + e.getCause().getLocalizedMessage());
+				}
+			}
+			//	The entries are sent asynchronously, the checkpoints advance with acknowledgement of server
+			waitAcknowledgement(queued, store);
+			for(Map.Entry<ExportPartition, ExportProgress> result : queued.entrySet()) {
+				ExportPartition partition = result.getKey();
+				ExportProgress progress = result.getValue();
+				Throwable partitionError = progress.getError();
+				if(partitionError == null
+						&& !progress.isCompleted()) {
+					partitionError = new AdempiereException("@AD_Queue_ID@ " + progress.getWaiting() + " not acknowledged");
+				}
+				if(partitionError == null) {
+					exported += progress.getQueued();
+					addLog(partition.getDescription() + ": " + progress.getQueued());
+					continue;
+				}
+				failed++;
+				if(error == null) {
+					error = partitionError;
+				}
+				log.warning(partition.getDescription() + ": " + partitionError.getLocalizedMessage());
+				addLog(partition.getDescription() + ": @Error@ " + partitionError.getLocalizedMessage());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AdempiereException(e);
+		} finally {
+			executor.shutdownNow();
+			cache.clear();
+		}
+		if(error != null) {
+			throw new AdempiereException("@Error@ (" + failed + "/" + partitions.size() + "): " + error.getLocalizedMessage(), error);
+		}
+		store.clear();
+		return exported;
+	}
+
+	/**
+	 * Queue entities of a partition after last checkpoint, the documents are sent from worker
+	 * @param partition
+	 * @param store
+	 * @return progress of partition
+	 */
+	private ExportProgress export(ExportPartition partition, ExportCheckpointStore store) {
+		String partitionKey = partition.getKey();
+		ExportProgress progress = new ExportProgress(store.getCheckpoint(partitionKey));
+		OutboxWorkerPool.runDirect(() -> {
+			for(int id : partition.ids) {
+				if(id <= progress.getStartId()) {
+					continue;
+				}
+				PO entity = partition.loader.apply(id);
+				if(entity == null
+						|| entity.get_ID() <= 0) {
+					progress.skip(id);
+					continue;
+				}
+				progress.add(id);
+				List<Integer> queueIds = QueueDeliveryTracker.getInstance().track(progress.getListener(id), () -> {
+					QueueLoader.getInstance()
+						.getQueueManager(ApplicationDictionary.CODE)
+						.withEntity(entity)
+						.addToQueue()
+					;
+				});
+				if(queueIds.isEmpty()) {
+					progress.failed(id, new AdempiereException("@AD_Queue_ID@ @NotFound@ (" + partition.tableName + " " + id + ")"));
+				}
+				if(progress.getQueued() % CHECKPOINT_INTERVAL == 0) {
+					saveCheckpoint(store, partitionKey, progress);
+				}
+			}
+		});
+		saveCheckpoint(store, partitionKey, progress);
+		return progress;
+	}
+
+	/**
+	 * Wait until all entries are acknowledged or failed, the checkpoints are saved while wait.
+	 * It ends when there are not acknowledgement for {@link #ECA56_ExportAcknowledgeTimeout}
+	 * @param queued
+	 * @param store
+	 * @throws InterruptedException
+	 */
+	private void waitAcknowledgement(Map<ExportPartition, ExportProgress> queued, ExportCheckpointStore store) throws InterruptedException {
+		long timeout = MSysConfig.getIntValue(ECA56_ExportAcknowledgeTimeout, (int) DEFAULT_ACKNOWLEDGE_TIMEOUT);
+		for(Map.Entry<ExportPartition, ExportProgress> result : queued.entrySet()) {
+			ExportProgress progress = result.getValue();
+			while(!progress.await(CHECKPOINT_WAIT)) {
+				queued.forEach((partition, partitionProgress) -> saveCheckpoint(store, partition.getKey(), partitionProgress));
+				if(progress.getIdleTime() > timeout) {
+					log.warning(result.getKey().getDescription() + ": " + progress.getWaiting() + " entries not acknowledged after " + timeout + " ms");
+					break;
+				}
+			}
+			saveCheckpoint(store, result.getKey().getKey(), progress);
+		}
+	}
+
+	/**
+	 * Save checkpoint of partition if it changed
+	 * @param store
+	 * @param partitionKey
+	 * @param progress
+	 */
+	private void saveCheckpoint(ExportCheckpointStore store, String partitionKey, ExportProgress progress) {
+		int checkpoint = progress.getCheckpoint();
+		if(checkpoint > store.getCheckpoint(partitionKey)) {
+			store.setCheckpoint(partitionKey, checkpoint);
+		}
+	}
+
+	/**
+	 * Add log to process
+	 * @param message
+	 */
+	private void addLog(String message) {
+		if(logger != null) {
+			logger.accept(message);
+		}
+	}
+
+	/**
+	 * Progress of a partition, an entity is pending until its entry is acknowledged, the entities failed
+	 * are kept as pending then the checkpoint never pass it
+	 */
+	private static final class ExportProgress {
+		/**	Checkpoint of previous run	*/
+		private final int startId;
+		/**	Entities not acknowledged	*/
+		private final TreeSet<Integer> pending = new TreeSet<>();
+		/**	Entities failed	*/
+		private final Set<Integer> failed = new HashSet<>();
+		/**	Last entity queued or skipped	*/
+		private int lastId;
+		/**	Entities queued	*/
+		private int queued = 0;
+		/**	Entities waiting for acknowledgement	*/
+		private int waiting = 0;
+		/**	First error	*/
+		private Throwable error;
+		/**	Last change	*/
+		private long lastChange = System.currentTimeMillis();
+
+		private ExportProgress(int startId) {
+			this.startId = startId;
+			this.lastId = startId;
+		}
+
+		private int getStartId() {
+			return startId;
+		}
+
+		/**
+		 * Get listener of entry for a entity
+		 * @param id
+		 * @return
+		 */
+		private IQueueEntryListener getListener(int id) {
+			return new IQueueEntryListener() {
+				@Override
+				public void onProcessed(int queueId) {
+					processed(id);
+				}
+
+				@Override
+				public void onFailed(int queueId, Throwable exception) {
+					failed(id, exception);
+				}
+			};
+		}
+
+		private synchronized void skip(int id) {
+			lastId = id;
+		}
+
+		private synchronized void add(int id) {
+			pending.add(id);
+			lastId = id;
+			queued++;
+			waiting++;
+			lastChange = System.currentTimeMillis();
+		}
+
+		private synchronized void processed(int id) {
+			if(failed.contains(id)
+					|| !pending.remove(id)) {
+				return;
+			}
+			waiting--;
+			lastChange = System.currentTimeMillis();
+			notifyAll();
+		}
+
+		private synchronized void failed(int id, Throwable exception) {
+			if(!pending.contains(id)
+					|| !failed.add(id)) {
+				return;
+			}
+			if(error == null) {
+				error = exception;
+			}
+			waiting--;
+			lastChange = System.currentTimeMillis();
+			notifyAll();
+		}
+
+		/**
+		 * Last entity acknowledged without entities pending before it
+		 * @return
+		 */
+		private synchronized int getCheckpoint() {
+			if(pending.isEmpty()) {
+				return lastId;
+			}
+			return pending.first() - 1;
+		}
+
+		/**
+		 * Wait for acknowledgement of all entities
+		 * @param timeout
+		 * @return true if all entities are acknowledged or failed
+		 * @throws InterruptedException
+		 */
+		private synchronized boolean await(long timeout) throws InterruptedException {
+			if(waiting > 0) {
+				wait(timeout);
+			}
+			return waiting <= 0;
+		}
+
+		private synchronized boolean isCompleted() {
+			return waiting <= 0;
+		}
+
+		private synchronized int getWaiting() {
+			return waiting;
+		}
+
+		private synchronized int getQueued() {
+			return queued;
+		}
+
+		private synchronized Throwable getError() {
+			return error;
+		}
+
+		private synchronized long getIdleTime() {
+			return System.currentTimeMillis() - lastChange;
+		}
+	}
+
+	/**
+	 * Entities of same type with consecutive IDs
+	 */
+	private static final class ExportPartition {
+		/**	Table	*/
+		private final String tableName;
+		/**	IDs sorted	*/
+		private final List<Integer> ids;
+		/**	Loader	*/
+		private final IntFunction<PO> loader;
+
+		private ExportPartition(String tableName, List<Integer> ids, IntFunction<PO> loader) {
+			this.tableName = tableName;
+			this.ids = ids;
+			this.loader = loader;
+		}
+
+		private int getFirstId() {
+			return ids.get(0);
+		}
+
+		private int getLastId() {
+			return ids.get(ids.size() - 1);
+		}
+
+		/**
+		 * Key used for checkpoint
+		 * @return
+		 */
+		private String getKey() {
+			return tableName + "|" + getFirstId() + "|" + getLastId();
+		}
+
+		/**
+		 * Description for log
+		 * @return
+		 */
+		private String getDescription() {
+			return "@" + tableName + "_ID@ " + getFirstId() + " - " + getLastId();
+		}
+	}
+}
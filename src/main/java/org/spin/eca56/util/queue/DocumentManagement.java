@@ -23,7 +23,6 @@ import org.compiere.model.PO;
 import org.compiere.util.Util;
 import org.spin.eca56.util.support.IGenericSender;
 import org.spin.eca56.util.support.documents.Order;
-import org.spin.queue.model.MADQueue;
 import org.spin.queue.util.QueueManager;
 
 /**
@@ -37,29 +36,48 @@ public class DocumentManagement extends QueueManager implements IEngineManager {
 	@Override
 	public void add(int queueId) {
 		logger.fine("Queue Added: " + queueId);
+		//	The worker load the entity again, it never use the entity or transaction of caller
+		QueueEntry entry = QueueEntry.newInstance(queueId, getEntity());
+		//	The document is built and sent from a worker when the entry is committed
+		OutboxWorkerPool.getInstance().executeAfterCommit(getTransactionName(), queueId, () -> deliver(entry));
+	}
+
+	/**
+	 * Send documents of queue entry
+	 * @param entry
+	 */
+	private void deliver(QueueEntry entry) {
+		//	Processed is set when server acknowledge the document, failed entries are sent again by tracker
+		QueueDelivery delivery = QueueDeliveryTracker.getInstance().newDelivery(entry.getQueueId())
+			.withRetry(() -> deliver(entry));
 		try {
-			send(queueId);
-			MADQueue queue = new MADQueue(getContext(), queueId, getTransactionName());
-			queue.setProcessed(true);
-			queue.saveEx();
+			PO document = entry.getEntity();
+			delivery.withEntity(document);
+			send(entry.getQueueId(), document, delivery);
 		} catch (Throwable e) {
+			delivery.fail(e);
 			logger.warning(e.getLocalizedMessage());
+		} finally {
+			delivery.close();
 		}
 	}
 
 	@Override
 	public void process(int queueId) {
-		send(queueId);
+		send(queueId, getEntity(), null);
 	}
 	
-	private void send(int queueId) {
-		PO document = getEntity();
+	private void send(int queueId, PO document, QueueDelivery delivery) {
 		if(document != null) {
 			Order entityEngine = getDocumentManager(document);
 			if(entityEngine != null) {
 				IGenericSender sender = DefaultEngineQueueUtil.getEngineManager();
 				if(sender != null) {
-					sender.send(entityEngine, entityEngine.getChannel());
+					if(delivery == null) {
+						sender.send(entityEngine, entityEngine.getChannel());
+					} else {
+						sender.send(entityEngine, entityEngine.getChannel(), delivery.register());
+					}
 				} else {
 					throw new AdempiereException("@AD_AppRegistration_ID@ @NotFound@");
 				}
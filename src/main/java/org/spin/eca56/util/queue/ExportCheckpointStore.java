@@ -0,0 +1,171 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import org.compiere.model.MSysConfig;
+import org.compiere.util.CLogger;
+import org.compiere.util.Util;
+import org.spin.eca56.util.support.kafka.DocumentHashStore;
+
+/**
+ * Progress of a dictionary export saved to a file: the last entity exported of each partition.
+ * The file is named with a hash of run key (parameters of export), then a run that fails is resumed
+ * by next run with same parameters. The file is removed when the export ends without errors.
+ * The folder is defined with system configurator {@link #ECA56_ExportCheckpointPath}
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class ExportCheckpointStore {
+
+	/**	System Configurator for folder of checkpoints	*/
+	public static final String ECA56_ExportCheckpointPath = "ECA56_ExportCheckpointPath";
+	/**	Key of run key on file	*/
+	private static final String RUN_KEY = "run.key";
+	/**	Logger	*/
+	private static CLogger log = CLogger.getCLogger(ExportCheckpointStore.class);
+	/**	File	*/
+	private final Path file;
+	/**	Run	*/
+	private final String runKey;
+	/**	Last entity exported by partition	*/
+	private final Map<String, Integer> checkpoints = new ConcurrentHashMap<>();
+
+	private ExportCheckpointStore(String runKey, Path folder) {
+		this.runKey = runKey;
+		Map<String, Object> key = Map.of(RUN_KEY, runKey);
+		file = folder.resolve("eca56-export-" + DocumentHashStore.hash(key).substring(0, 16) + ".properties").toAbsolutePath().normalize();
+		load();
+	}
+
+	/**
+	 * Get store of a run, the progress of a previous run with same key is loaded
+	 * @param runKey
+	 * @return
+	 */
+	public static ExportCheckpointStore newInstance(String runKey) {
+		String path = MSysConfig.getValue(ECA56_ExportCheckpointPath);
+		if(Util.isEmpty(path, true)) {
+			path = System.getProperty("java.io.tmpdir");
+		}
+		return newInstance(runKey, Paths.get(path));
+	}
+
+	/**
+	 * Get store of a run saved on a folder
+	 * @param runKey
+	 * @param folder
+	 * @return
+	 */
+	static ExportCheckpointStore newInstance(String runKey, Path folder) {
+		return new ExportCheckpointStore(runKey, folder);
+	}
+
+	/**
+	 * Verify if it is a previous run not completed
+	 * @return
+	 */
+	public boolean isResumed() {
+		return !checkpoints.isEmpty();
+	}
+
+	/**
+	 * Get last entity exported of partition
+	 * @param partitionKey
+	 * @return last ID or -1 if there are not progress
+	 */
+	public int getCheckpoint(String partitionKey) {
+		return checkpoints.getOrDefault(partitionKey, -1);
+	}
+
+	/**
+	 * Set last entity exported of partition and save it
+	 * @param partitionKey
+	 * @param lastId
+	 */
+	public void setCheckpoint(String partitionKey, int lastId) {
+		checkpoints.put(partitionKey, lastId);
+		save();
+	}
+
+	/**
+	 * Remove progress, the next run start from first entity
+	 */
+	public synchronized void clear() {
+		checkpoints.clear();
+		try {
+			Files.deleteIfExists(file);
+		} catch (Exception e) {
+			log.log(Level.WARNING, "Error removing " + file, e);
+		}
+	}
+
+	/**
+	 * Load progress from file, a file of other run is ignored
+	 */
+	private void load() {
+		if(!Files.exists(file)) {
+			return;
+		}
+		Properties properties = new Properties();
+		try (InputStream input = Files.newInputStream(file)) {
+			properties.load(input);
+			if(!runKey.equals(properties.getProperty(RUN_KEY))) {
+				return;
+			}
+			properties.forEach((key, value) -> {
+				if(!RUN_KEY.equals(key)) {
+					checkpoints.put(String.valueOf(key), Integer.parseInt(String.valueOf(value)));
+				}
+			});
+			log.fine("Export checkpoints loaded: " + checkpoints.size() + " from " + file);
+		} catch (Exception e) {
+			checkpoints.clear();
+			log.log(Level.WARNING, "Error loading " + file + ", the export start from first entity", e);
+		}
+	}
+
+	/**
+	 * Save progress, the file is replaced after write a temporary file
+	 */
+	private synchronized void save() {
+		Properties properties = new Properties();
+		checkpoints.forEach((key, value) -> properties.setProperty(key, String.valueOf(value)));
+		properties.setProperty(RUN_KEY, runKey);
+		try {
+			if(file.getParent() != null) {
+				Files.createDirectories(file.getParent());
+			}
+			Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+			try (OutputStream output = Files.newOutputStream(temporaryFile)) {
+				properties.store(output, "Last entity exported by partition");
+			}
+			Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (Exception e) {
+			log.log(Level.WARNING, "Error saving " + file, e);
+		}
+	}
+}
@@ -0,0 +1,190 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.adempiere.core.domains.models.I_AD_SysConfig;
+import org.compiere.model.MSysConfig;
+import org.compiere.model.PO;
+import org.compiere.model.Query;
+import org.compiere.util.CLogger;
+import org.compiere.util.DB;
+import org.compiere.util.Util;
+
+/**
+ * Last successful export by channel and client, it is saved as a system configurator of client
+ * ({@link #PREFIX} + channel) and it is used by incremental export for select only entities changed after it.
+ * The incremental export compare the Updated of entity and its child rows, a deleted child row is not found then
+ * the Updated of parent is changed when it is deleted (see {@link #setParentUpdated(PO)}). The entities used by reference
+ * (processes of fields, references and validation rules) are not compared, a complete export is required after change it.
+ * The start of export is read from database and a margin of {@link #ECA56_ExportWatermarkMargin} seconds is subtracted,
+ * then a clock of application server behind of database or other servers does not skip entities changed before the export
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class ExportWatermark {
+
+	/**	Prefix of system configurator	*/
+	public static final String PREFIX = "ECA56_ExportWatermark_";
+	/**	System Configurator for seconds subtracted to start of export	*/
+	public static final String ECA56_ExportWatermarkMargin = "ECA56_ExportWatermarkMargin";
+	/**	Default margin: 5 minutes	*/
+	private static final int DEFAULT_MARGIN = 300;
+	/**	Logger	*/
+	private static CLogger log = CLogger.getCLogger(ExportWatermark.class);
+	/**	Update of parent exported by child table, with column of child used as parameter	*/
+	private static final Map<String, String[]> PARENT_UPDATES = new LinkedHashMap<>();
+	static {
+		PARENT_UPDATES.put("AD_Tab", new String[] {"UPDATE AD_Window SET Updated = ? WHERE AD_Window_ID = ?", "AD_Window_ID"});
+		PARENT_UPDATES.put("AD_Field", new String[] {"UPDATE AD_Window SET Updated = ? WHERE AD_Window_ID = (SELECT t.AD_Window_ID FROM AD_Tab t WHERE t.AD_Tab_ID = ?)", "AD_Tab_ID"});
+		PARENT_UPDATES.put("AD_Column", new String[] {"UPDATE AD_Window SET Updated = ? WHERE EXISTS(SELECT 1 FROM AD_Tab t WHERE t.AD_Window_ID = AD_Window.AD_Window_ID AND t.AD_Table_ID = ?)", "AD_Table_ID"});
+		PARENT_UPDATES.put("AD_Process_Para", new String[] {"UPDATE AD_Process SET Updated = ? WHERE AD_Process_ID = ?", "AD_Process_ID"});
+		PARENT_UPDATES.put("AD_Browse_Field", new String[] {"UPDATE AD_Browse SET Updated = ? WHERE AD_Browse_ID = ?", "AD_Browse_ID"});
+	}
+
+	/**
+	 * Get child tables that change the Updated of parent when a row is deleted
+	 * @return
+	 */
+	public static Set<String> getChildTableNames() {
+		return Collections.unmodifiableSet(PARENT_UPDATES.keySet());
+	}
+
+	/**
+	 * Verify if the table is a child table of exported entities
+	 * @param tableName
+	 * @return
+	 */
+	public static boolean isChildTable(String tableName) {
+		return PARENT_UPDATES.containsKey(tableName);
+	}
+
+	/**
+	 * Get the watermark for an export that start now: the time of database less {@link #ECA56_ExportWatermarkMargin}.
+	 * The Updated of entities is written by each application server with its own clock, the margin cover the difference
+	 * between clocks and transactions committed while the export is started. The entities changed on margin are
+	 * exported again by next incremental export, it is cheap when the delta suppression is enabled
+	 * @param transactionName
+	 * @return
+	 */
+	public static Timestamp getExportStart(String transactionName) {
+		Timestamp now = DB.getSQLValueTS(transactionName, "SELECT CURRENT_TIMESTAMP FROM DUAL");
+		if(now == null) {
+			log.warning("Time of database not found, the time of application server is used");
+			now = new Timestamp(System.currentTimeMillis());
+		}
+		long margin = Math.max(0, MSysConfig.getIntValue(ECA56_ExportWatermarkMargin, DEFAULT_MARGIN));
+		return new Timestamp(now.getTime() - (margin * 1000));
+	}
+
+	/**
+	 * Change Updated of parent of a deleted child row on same transaction, then the parent
+	 * is exported again by next incremental export
+	 * @param child
+	 */
+	public static void setParentUpdated(PO child) {
+		String[] parentUpdate = PARENT_UPDATES.get(child.get_TableName());
+		if(parentUpdate == null) {
+			return;
+		}
+		int parentId = child.get_ValueOldAsInt(parentUpdate[1]);
+		if(parentId <= 0) {
+			return;
+		}
+		//	Only Updated is changed: UpdatedBy is kept because the user did not change the parent, the audit of
+		//	deleted child is saved by change log of child table. A update with PO is not used because it run the
+		//	model validators of parent (and its queue) and it fail for entities of other client or read only.
+		//	The parent is a definition of dictionary, a new Updated only mean that it must be exported again
+		DB.executeUpdateEx(parentUpdate[0], new Object[] {new Timestamp(System.currentTimeMillis()), parentId}, child.get_TrxName());
+	}
+
+	/**
+	 * Get last successful export of channel, it is read from database for avoid a value of cache
+	 * @param context
+	 * @param channel
+	 * @param clientId
+	 * @return timestamp or null if the channel was not exported
+	 */
+	public static Timestamp getWatermark(Properties context, String channel, int clientId) {
+		MSysConfig configuration = getConfiguration(context, channel, clientId, null);
+		if(configuration == null
+				|| Util.isEmpty(configuration.getValue(), true)) {
+			return null;
+		}
+		try {
+			return Timestamp.valueOf(configuration.getValue().trim());
+		} catch (IllegalArgumentException e) {
+			log.warning("Invalid " + configuration.getName() + ": " + configuration.getValue() + ", all entities are exported");
+			return null;
+		}
+	}
+
+	/**
+	 * Save last successful export of channel for client of context
+	 * @param context
+	 * @param channel
+	 * @param clientId
+	 * @param watermark
+	 * @param transactionName
+	 */
+	public static void setWatermark(Properties context, String channel, int clientId, Timestamp watermark, String transactionName) {
+		MSysConfig configuration = getConfiguration(context, channel, clientId, transactionName);
+		if(configuration == null) {
+			configuration = new MSysConfig(context, 0, transactionName);
+			configuration.setAD_Org_ID(0);
+			configuration.setName(getName(channel));
+			configuration.setConfigurationLevel(MSysConfig.CONFIGURATIONLEVEL_Client);
+			configuration.setDescription("Last successful dictionary export of channel " + channel);
+		}
+		configuration.setValue(watermark.toString());
+		configuration.saveEx();
+	}
+
+	/**
+	 * Get system configurator of channel for client
+	 * @param context
+	 * @param channel
+	 * @param clientId
+	 * @param transactionName
+	 * @return
+	 */
+	private static MSysConfig getConfiguration(Properties context, String channel, int clientId, String transactionName) {
+		return new Query(
+			context,
+			I_AD_SysConfig.Table_Name,
+			I_AD_SysConfig.COLUMNNAME_Name + " = ? AND " + I_AD_SysConfig.COLUMNNAME_AD_Client_ID + " = ?",
+			transactionName
+		)
+			.setParameters(getName(channel), clientId)
+			.first()
+		;
+	}
+
+	/**
+	 * Name of system configurator
+	 * @param channel
+	 * @return
+	 */
+	private static String getName(String channel) {
+		return PREFIX + channel;
+	}
+}
@@ -0,0 +1,38 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, C.A.                      *
+ * Contributor(s): Yamel Senih ysenih@erpya.com                                      *
+ * This program is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by              *
+ * the Free Software Foundation, either version 3 of the License, or                 *
+ * (at your option) any later version.                                               *
+ * This program is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of                    *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                     *
+ * GNU General Public License for more details.                                      *
+ * You should have received a copy of the GNU General Public License                 *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.            *
+ ************************************************************************************/
+package org.spin.eca56.util.queue;
+
+/**
+ * 	A contract for receive the final state of a queue entry, it is called when all documents of entry
+ * 	are acknowledged or when the entry is not delivered after all retries. It is called from sender I/O thread
+ * 	or tracker thread then the implementation must not block
+ * 	@author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public interface IQueueEntryListener {
+	
+	/**
+	 * Called when all documents of entry were acknowledged by server
+	 * @param queueId
+	 */
+	public void onProcessed(int queueId);
+	
+	/**
+	 * Called when the entry cannot be delivered after all retries
+	 * @param queueId
+	 * @param exception
+	 */
+	public void onFailed(int queueId, Throwable exception);
+}
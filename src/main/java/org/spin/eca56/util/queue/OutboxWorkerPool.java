@@ -0,0 +1,160 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import org.compiere.model.MSysConfig;
+import org.compiere.util.CLogger;
+
+/**
+ * Workers for build and send the documents of queue entries, the model validator only save the queue entry
+ * (outbox) and the document is sent from a worker, then the ERP transaction never wait for server.
+ * When the pending entries are more than {@link #ECA56_OutboxQueueSize} the entry is kept as not processed
+ * and it is sent by queue processor. Use {@link #ECA56_OutboxEnabled} = N for send from caller thread
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class OutboxWorkerPool {
+
+	/**	System Configurator for enable workers	*/
+	public static final String ECA56_OutboxEnabled = "ECA56_OutboxEnabled";
+	/**	System Configurator for quantity of workers	*/
+	public static final String ECA56_OutboxWorkers = "ECA56_OutboxWorkers";
+	/**	System Configurator for max pending entries	*/
+	public static final String ECA56_OutboxQueueSize = "ECA56_OutboxQueueSize";
+	/**	Default workers	*/
+	private static final int DEFAULT_WORKERS = 2;
+	/**	Default pending entries	*/
+	private static final int DEFAULT_QUEUE_SIZE = 1000;
+	/**	Logger	*/
+	private static CLogger log = CLogger.getCLogger(OutboxWorkerPool.class);
+	/**	Workers	*/
+	private final ThreadPoolExecutor executor;
+	/**	Entries added from current thread are sent from it	*/
+	private static final ThreadLocal<Boolean> direct = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+	/**
+	 * Lazy and thread safe holder
+	 */
+	private static final class Holder {
+		private static final OutboxWorkerPool INSTANCE = new OutboxWorkerPool();
+	}
+
+	/**
+	 * Default instance
+	 * @return
+	 */
+	public static OutboxWorkerPool getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	private OutboxWorkerPool() {
+		int workers = Math.max(1, MSysConfig.getIntValue(ECA56_OutboxWorkers, DEFAULT_WORKERS));
+		int queueSize = Math.max(1, MSysConfig.getIntValue(ECA56_OutboxQueueSize, DEFAULT_QUEUE_SIZE));
+		AtomicInteger threadNumber = new AtomicInteger();
+		executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize), runnable -> {
+			Thread thread = new Thread(runnable, "ECA56-Outbox-Worker-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}, new ThreadPoolExecutor.AbortPolicy());
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Verify if the documents are sent from workers, it can be changed without restart
+	 * @return
+	 */
+	public static boolean isEnabled() {
+		return MSysConfig.getBooleanValue(ECA56_OutboxEnabled, true);
+	}
+
+	/**
+	 * Run a task that send the entries added from current thread, it is used by export processes
+	 * that already run in background and need the documents sent before end
+	 * @param task
+	 */
+	public static void runDirect(Runnable task) {
+		boolean previous = direct.get();
+		direct.set(Boolean.TRUE);
+		try {
+			task.run();
+		} finally {
+			direct.set(previous);
+		}
+	}
+
+	/**
+	 * Send a queue entry from a worker, if the workers are disabled it is sent from current thread
+	 * @param queueId
+	 * @param delivery
+	 */
+	public void execute(int queueId, Runnable delivery) {
+		if(!execute("Queue " + queueId, delivery)) {
+			log.warning("Queue " + queueId + " is kept for queue processor, pending entries: " + executor.getQueue().size());
+		}
+	}
+
+	/**
+	 * Send a queue entry from a worker after commit of transaction that saved the entry, the entry
+	 * is discarded with transaction when it is rolled back. Without transaction it is sent now
+	 * @param transactionName
+	 * @param queueId
+	 * @param delivery
+	 */
+	public void executeAfterCommit(String transactionName, int queueId, Runnable delivery) {
+		TransactionPublisher.getInstance().add(transactionName, () -> execute(queueId, delivery));
+	}
+
+	/**
+	 * Run a delivery from a worker, if the workers are disabled it run from current thread
+	 * @param name used for log
+	 * @param delivery
+	 * @return false if there are not space for more entries
+	 */
+	public boolean execute(String name, Runnable delivery) {
+		if(direct.get()
+				|| !isEnabled()) {
+			delivery.run();
+			return true;
+		}
+		try {
+			executor.execute(() -> {
+				try {
+					delivery.run();
+				} catch (Throwable e) {
+					log.log(Level.WARNING, name + " not delivered: " + e.getLocalizedMessage(), e);
+				}
+			});
+			return true;
+		} catch (RejectedExecutionException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Get entries waiting for a worker
+	 * @return
+	 */
+	public int getPendingEntries() {
+		return executor.getQueue().size();
+	}
+}
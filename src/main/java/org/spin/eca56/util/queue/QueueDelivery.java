@@ -0,0 +1,144 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.compiere.model.PO;
+import org.spin.eca56.util.support.IDeliveryListener;
+import org.spin.eca56.util.support.IGenericDocument;
+
+/**
+ * Delivery of all documents generated for a queue entry, the entry is acknowledged
+ * when all documents are acknowledged by server, if any document fails then the entry fails
+ * and it is sent again with {@link #withRetry(Runnable)} or sent to dead letter channel
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class QueueDelivery implements IDeliveryListener {
+
+	/**	Queue	*/
+	private final int queueId;
+	/**	Tracker	*/
+	private final QueueDeliveryTracker tracker;
+	/**	Pending documents, start with one for opened delivery	*/
+	private final AtomicInteger pending = new AtomicInteger(1);
+	/**	First error	*/
+	private final AtomicReference<Throwable> error = new AtomicReference<>();
+	/**	First document failed	*/
+	private final AtomicReference<IGenericDocument> failedDocument = new AtomicReference<>();
+	/**	Entity of queue	*/
+	private PO entity;
+	/**	Delivery of entry again	*/
+	private Runnable retry;
+
+	QueueDelivery(QueueDeliveryTracker tracker, int queueId) {
+		this.tracker = tracker;
+		this.queueId = queueId;
+	}
+
+	/**
+	 * Set entity of queue entry, it is used for dead letter
+	 * @param entity
+	 * @return
+	 */
+	public QueueDelivery withEntity(PO entity) {
+		this.entity = entity;
+		return this;
+	}
+
+	/**
+	 * Set the delivery used for send the entry again when it fails
+	 * @param retry
+	 * @return
+	 */
+	public QueueDelivery withRetry(Runnable retry) {
+		this.retry = retry;
+		return this;
+	}
+
+	/**
+	 * Register a new document to send
+	 * @return listener for send
+	 */
+	public IDeliveryListener register() {
+		pending.incrementAndGet();
+		return this;
+	}
+
+	/**
+	 * Mark delivery as failed without send documents
+	 * @param exception
+	 */
+	public void fail(Throwable exception) {
+		error.compareAndSet(null, exception);
+	}
+
+	/**
+	 * Close delivery, no more documents will be registered
+	 */
+	public void close() {
+		complete();
+	}
+
+	public int getQueueId() {
+		return queueId;
+	}
+
+	public PO getEntity() {
+		return entity;
+	}
+
+	public Runnable getRetry() {
+		return retry;
+	}
+
+	/**
+	 * Get first document not delivered, it is null when the entry fails before send
+	 * @return
+	 */
+	public IGenericDocument getFailedDocument() {
+		return failedDocument.get();
+	}
+
+	@Override
+	public void onDelivered(IGenericDocument document) {
+		complete();
+	}
+
+	@Override
+	public void onFailed(IGenericDocument document, Exception exception) {
+		failedDocument.compareAndSet(null, document);
+		fail(exception);
+		complete();
+	}
+
+	/**
+	 * Notify tracker when all documents are completed
+	 */
+	private void complete() {
+		if(pending.decrementAndGet() != 0) {
+			return;
+		}
+		Throwable exception = error.get();
+		if(exception == null) {
+			tracker.acknowledge(queueId);
+		} else {
+			tracker.failure(this, exception);
+		}
+	}
+}
@@ -0,0 +1,424 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.compiere.util.CLogger;
+import org.compiere.util.DB;
+import org.spin.eca56.util.support.IDeliveryListener;
+import org.spin.eca56.util.support.IGenericDocument;
+import org.spin.eca56.util.support.IGenericSender;
+import org.spin.queue.model.MADQueue;
+
+/**
+ * Keep the state of queue entries sent asynchronously, the acknowledged entries are marked
+ * as processed in batches from a background thread, then the ERP thread never wait for server.
+ * Failed entries are kept as not processed and sent again from a worker with exponential backoff and jitter,
+ * after {@link #ECA56_DeliveryMaxRetries} attempts the failed document and error are sent to dead letter channel
+ * (see {@link DeadLetterDocument}) and the entry is processed when the dead letter is acknowledged. The dead letter
+ * is sent again the same quantity of retries, then the entry is kept as not processed for queue processor.
+ * The retries are scheduled in memory then the database is not read for it.
+ * A caller can receive the final state of entries created by a task with {@link #track(IQueueEntryListener, Runnable)}.
+ * A delivery without queue entry use a negative ID ({@link #newDeliveryId()}), it is retried but it is never marked as processed
+ * or sent to dead letter channel, the caller receive the failure with a listener
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class QueueDeliveryTracker {
+
+	/**	System Configurator for max retries before send to dead letter channel	*/
+	public static final String ECA56_DeliveryMaxRetries = "ECA56_DeliveryMaxRetries";
+	/**	System Configurator for delay of first retry (milliseconds)	*/
+	public static final String ECA56_DeliveryRetryDelay = "ECA56_DeliveryRetryDelay";
+	/**	System Configurator for max delay between retries (milliseconds)	*/
+	public static final String ECA56_DeliveryRetryMaxDelay = "ECA56_DeliveryRetryMaxDelay";
+	/**	Logger	*/
+	private static CLogger log = CLogger.getCLogger(QueueDeliveryTracker.class);
+	/**	Max entries by update	*/
+	private static final int BATCH_SIZE = 200;
+	/**	Time between flush	*/
+	private static final long FLUSH_INTERVAL = 1000;
+	/**	Max flush for wait a entry not visible (transaction not committed)	*/
+	private static final int MAX_PENDING_FLUSH = 120;
+
+	/**	Acknowledged entries	*/
+	private final ConcurrentLinkedQueue<Integer> acknowledged = new ConcurrentLinkedQueue<>();
+	/**	Entries not visible yet with flush count	*/
+	private final Map<Integer, Integer> notVisible = new ConcurrentHashMap<>();
+	/**	Retries by entry	*/
+	private final Map<Integer, AtomicInteger> retries = new ConcurrentHashMap<>();
+	/**	IDs of deliveries without queue entry	*/
+	private final AtomicInteger deliveryIds = new AtomicInteger();
+	/**	Listeners by entry	*/
+	private final Map<Integer, IQueueEntryListener> listeners = new ConcurrentHashMap<>();
+	/**	Listener and entries tracked by current thread	*/
+	private final ThreadLocal<TrackedEntries> tracked = new ThreadLocal<>();
+	/**	Flush and retries	*/
+	private final ScheduledExecutorService flusher;
+	/**	Retry policy, it is read for each failure	*/
+	private final Supplier<DeliveryRetryPolicy> retryPolicy;
+	/**	Sender of dead letters	*/
+	private final Supplier<IGenericSender> sender;
+	/**	Run retries and dead letters from a worker, it return false if the task is not accepted	*/
+	private final BiPredicate<String, Runnable> worker;
+
+	/**
+	 * Lazy and thread safe holder
+	 */
+	private static final class Holder {
+		private static final QueueDeliveryTracker INSTANCE = new QueueDeliveryTracker();
+	}
+
+	/**
+	 * Default instance
+	 * @return
+	 */
+	public static QueueDeliveryTracker getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	private QueueDeliveryTracker() {
+		this(
+			Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "ECA56-Queue-Delivery-Tracker");
+				thread.setDaemon(true);
+				return thread;
+			}),
+			DeliveryRetryPolicy::newInstance,
+			DefaultEngineQueueUtil::getEngineManager,
+			(name, task) -> OutboxWorkerPool.getInstance().execute(name, task)
+		);
+		flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Tracker with own scheduler, retry policy, sender and workers, the flush of acknowledged entries
+	 * is not scheduled
+	 * @param flusher
+	 * @param retryPolicy
+	 * @param sender
+	 * @param worker
+	 */
+	QueueDeliveryTracker(ScheduledExecutorService flusher, Supplier<DeliveryRetryPolicy> retryPolicy, Supplier<IGenericSender> sender, BiPredicate<String, Runnable> worker) {
+		this.flusher = flusher;
+		this.retryPolicy = retryPolicy;
+		this.sender = sender;
+		this.worker = worker;
+	}
+
+	/**
+	 * Create a delivery for queue entry
+	 * @param queueId
+	 * @return
+	 */
+	public QueueDelivery newDelivery(int queueId) {
+		TrackedEntries entries = tracked.get();
+		if(entries != null) {
+			listeners.put(queueId, entries.listener);
+			entries.queueIds.add(queueId);
+		}
+		return new QueueDelivery(this, queueId);
+	}
+
+	/**
+	 * Get a ID for a delivery without queue entry, it is negative
+	 * @return
+	 */
+	public int newDeliveryId() {
+		return deliveryIds.updateAndGet(id -> id <= Integer.MIN_VALUE + 1 ? -1 : id - 1);
+	}
+
+	/**
+	 * Run a task and notify the final state of entries delivered by task from current thread,
+	 * the listener is kept for retries of entries
+	 * @param listener
+	 * @param task
+	 * @return entries delivered by task
+	 */
+	public List<Integer> track(IQueueEntryListener listener, Runnable task) {
+		TrackedEntries previous = tracked.get();
+		TrackedEntries entries = new TrackedEntries(listener);
+		tracked.set(entries);
+		try {
+			task.run();
+		} finally {
+			if(previous == null) {
+				tracked.remove();
+			} else {
+				tracked.set(previous);
+			}
+		}
+		return entries.queueIds;
+	}
+
+	/**
+	 * Entry acknowledged by server
+	 * @param queueId
+	 */
+	void acknowledge(int queueId) {
+		retries.remove(queueId);
+		if(queueId > 0) {
+			acknowledged.add(queueId);
+			if(acknowledged.size() >= BATCH_SIZE) {
+				flusher.execute(this::flush);
+			}
+		}
+		IQueueEntryListener listener = listeners.remove(queueId);
+		if(listener == null) {
+			return;
+		}
+		try {
+			listener.onProcessed(queueId);
+		} catch (Exception e) {
+			log.log(Level.WARNING, e.getLocalizedMessage(), e);
+		}
+	}
+
+	/**
+	 * Entry not delivered after all retries
+	 * @param queueId
+	 * @param exception
+	 */
+	private void notifyFailure(int queueId, Throwable exception) {
+		IQueueEntryListener listener = listeners.remove(queueId);
+		if(listener == null) {
+			return;
+		}
+		try {
+			listener.onFailed(queueId, exception);
+		} catch (Exception e) {
+			log.log(Level.WARNING, e.getLocalizedMessage(), e);
+		}
+	}
+
+	/**
+	 * Entry failed, it is not processed. It is sent again after a delay or to dead letter channel
+	 * when there are not more retries, the entry is processed when dead letter channel acknowledge it
+	 * @param delivery
+	 * @param exception
+	 */
+	void failure(QueueDelivery delivery, Throwable exception) {
+		int queueId = delivery.getQueueId();
+		int retry = retries.computeIfAbsent(queueId, key -> new AtomicInteger()).incrementAndGet();
+		log.warning("Queue " + queueId + " not delivered (Retry " + retry + "): " + exception.getLocalizedMessage());
+		DeliveryRetryPolicy policy = retryPolicy.get();
+		if(delivery.getRetry() != null
+				&& policy.isRetry(retry)) {
+			long delay = policy.getDelay(retry);
+			log.fine("Queue " + queueId + " is sent again in " + delay + " ms");
+			flusher.schedule(() -> {
+				if(!worker.test("Queue " + queueId, delivery.getRetry())) {
+					log.warning("Queue " + queueId + " is kept for queue processor, there are not space for more entries");
+					retries.remove(queueId);
+					notifyFailure(queueId, exception);
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+			return;
+		}
+		//	The listener is notified after remove retries of a discarded delivery
+		if(queueId <= 0) {
+			retries.remove(queueId);
+			log.warning("Delivery " + queueId + " discarded after " + retry + " attempts");
+			notifyFailure(queueId, exception);
+			return;
+		}
+		//	The dead letter only keep the error, the entry was not delivered
+		notifyFailure(queueId, exception);
+		DeadLetterDocument deadLetter = DeadLetterDocument.newInstance()
+			.withQueueId(queueId)
+			.withAttempts(retry)
+			.withEntity(delivery.getEntity())
+			.withDocument(delivery.getFailedDocument())
+			.withError(exception)
+		;
+		sendDeadLetter(queueId, deadLetter, 1);
+	}
+
+	/**
+	 * Send a failed entry to dead letter channel from a worker, the entry is processed when the dead letter
+	 * is acknowledged, else it is sent again after max delay
+	 * @param queueId
+	 * @param deadLetter
+	 * @param attempt attempt of dead letter (starting with 1)
+	 */
+	private void sendDeadLetter(int queueId, DeadLetterDocument deadLetter, int attempt) {
+		String name = "Dead letter of queue " + queueId;
+		boolean isAccepted = worker.test(name, () -> {
+			IGenericSender currentSender = sender.get();
+			if(currentSender == null) {
+				deadLetterFailure(queueId, deadLetter, attempt, new AdempiereException("@AD_AppRegistration_ID@ @NotFound@"));
+				return;
+			}
+			try {
+				currentSender.send(deadLetter, deadLetter.getChannel(), new IDeliveryListener() {
+					@Override
+					public void onDelivered(IGenericDocument document) {
+						log.warning("Queue " + queueId + " sent to dead letter channel " + deadLetter.getChannel());
+						acknowledge(queueId);
+					}
+
+					@Override
+					public void onFailed(IGenericDocument document, Exception exception) {
+						deadLetterFailure(queueId, deadLetter, attempt, exception);
+					}
+				});
+			} catch (Exception e) {
+				deadLetterFailure(queueId, deadLetter, attempt, e);
+			}
+		});
+		if(!isAccepted) {
+			deadLetterFailure(queueId, deadLetter, attempt, new AdempiereException("There are not space for more entries"));
+		}
+	}
+
+	/**
+	 * Dead letter not sent, it is sent again after max delay. After all retries the dead letter
+	 * is discarded and the entry is kept as not processed for queue processor
+	 * @param queueId
+	 * @param deadLetter
+	 * @param attempt failed attempt of dead letter
+	 * @param exception
+	 */
+	private void deadLetterFailure(int queueId, DeadLetterDocument deadLetter, int attempt, Throwable exception) {
+		DeliveryRetryPolicy policy = retryPolicy.get();
+		if(!policy.isRetry(attempt)) {
+			retries.remove(queueId);
+			log.warning("Dead letter of queue " + queueId + " not delivered after " + attempt + " attempts, the entry is kept for queue processor: " + exception.getLocalizedMessage());
+			return;
+		}
+		long delay = policy.getMaxDelay();
+		log.warning("Dead letter of queue " + queueId + " not delivered, it is sent again in " + delay + " ms: " + exception.getLocalizedMessage());
+		flusher.schedule(() -> sendDeadLetter(queueId, deadLetter, attempt + 1), delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Get failed attempts for a entry
+	 * @param queueId
+	 * @return
+	 */
+	public int getRetries(int queueId) {
+		AtomicInteger retry = retries.get(queueId);
+		if(retry == null) {
+			return 0;
+		}
+		return retry.get();
+	}
+
+	/**
+	 * Mark acknowledged entries as processed
+	 */
+	private void flush() {
+		try {
+			//	Only entries acknowledged before flush, the not visible entries are added again
+			int size = acknowledged.size();
+			List<Integer> batch = new ArrayList<>();
+			Integer queueId;
+			while(size-- > 0
+					&& (queueId = acknowledged.poll()) != null) {
+				batch.add(queueId);
+				if(batch.size() >= BATCH_SIZE) {
+					process(batch);
+					batch = new ArrayList<>();
+				}
+			}
+			if(!batch.isEmpty()) {
+				process(batch);
+			}
+		} catch (Exception e) {
+			log.log(Level.WARNING, e.getLocalizedMessage(), e);
+		}
+	}
+
+	/**
+	 * Update a batch of entries
+	 * @param batch
+	 */
+	private void process(List<Integer> batch) {
+		String inClause = batch.stream()
+			.map(queueId -> "?")
+			.collect(Collectors.joining(", "))
+		;
+		try {
+			int updated = DB.executeUpdateEx(
+				"UPDATE " + MADQueue.Table_Name + " SET Processed = 'Y' "
+				+ "WHERE " + MADQueue.COLUMNNAME_AD_Queue_ID + " IN(" + inClause + ")",
+				batch.toArray(),
+				null
+			);
+			if(updated == batch.size()) {
+				batch.forEach(notVisible::remove);
+				return;
+			}
+			//	Some entries were created on a transaction not committed yet
+			Set<Integer> visible = new HashSet<>();
+			DB.runResultSet(null, "SELECT " + MADQueue.COLUMNNAME_AD_Queue_ID + " FROM " + MADQueue.Table_Name
+					+ " WHERE " + MADQueue.COLUMNNAME_AD_Queue_ID + " IN(" + inClause + ")", new ArrayList<Object>(batch), resultSet -> {
+				while (resultSet.next()) {
+					visible.add(resultSet.getInt(1));
+				}
+			}).onFailure(throwable -> {
+				throw new AdempiereException(throwable);
+			});
+			batch.forEach(queueId -> {
+				if(visible.contains(queueId)) {
+					notVisible.remove(queueId);
+					return;
+				}
+				int flushCount = notVisible.merge(queueId, 1, Integer::sum);
+				if(flushCount <= MAX_PENDING_FLUSH) {
+					acknowledged.add(queueId);
+				} else {
+					notVisible.remove(queueId);
+					log.warning("Queue " + queueId + " not found for mark as processed");
+				}
+			});
+		} catch (Exception e) {
+			//	Try again on next flush
+			acknowledged.addAll(batch);
+			throw e;
+		}
+	}
+
+	/**
+	 * Entries delivered from a thread with a listener
+	 */
+	private static final class TrackedEntries {
+		/**	Listener	*/
+		private final IQueueEntryListener listener;
+		/**	Entries	*/
+		private final List<Integer> queueIds = new ArrayList<>();
+
+		private TrackedEntries(IQueueEntryListener listener) {
+			this.listener = listener;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import java.util.Properties;
+
+import org.compiere.model.MTable;
+import org.compiere.model.PO;
+
+/**
+ * Reference of a queue entry captured from caller thread: queue, table, record and a copy of context.
+ * The entity is loaded again without transaction from the thread that send it, then the worker never
+ * use the entity or the transaction of caller
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public final class QueueEntry {
+
+	/**	Queue	*/
+	private final int queueId;
+	/**	Table	*/
+	private final int tableId;
+	/**	Record	*/
+	private final int recordId;
+	/**	Client of entity	*/
+	private final int clientId;
+	/**	Copy of context of entity (client, language)	*/
+	private final Properties context;
+
+	private QueueEntry(int queueId, PO entity) {
+		this.queueId = queueId;
+		if(entity == null) {
+			tableId = 0;
+			recordId = 0;
+			clientId = 0;
+			context = null;
+			return;
+		}
+		tableId = entity.get_Table_ID();
+		recordId = entity.get_ID();
+		clientId = entity.getAD_Client_ID();
+		context = new Properties();
+		context.putAll(entity.getCtx());
+	}
+
+	/**
+	 * Capture a queue entry, it must be called from thread that add the entry
+	 * @param queueId
+	 * @param entity
+	 * @return
+	 */
+	public static QueueEntry newInstance(int queueId, PO entity) {
+		return new QueueEntry(queueId, entity);
+	}
+
+	/**
+	 * Load entity without transaction
+	 * @return entity or null if it not exists
+	 */
+	public PO getEntity() {
+		if(tableId <= 0) {
+			return null;
+		}
+		PO entity = MTable.get(context, tableId).getPO(recordId, null);
+		if(entity == null
+				|| entity.get_ID() != recordId) {
+			return null;
+		}
+		return entity;
+	}
+
+	public int getQueueId() {
+		return queueId;
+	}
+
+	public int getTableId() {
+		return tableId;
+	}
+
+	public int getRecordId() {
+		return recordId;
+	}
+
+	public int getClientId() {
+		return clientId;
+	}
+
+	@Override
+	public String toString() {
+		return "Queue " + queueId + " (" + tableId + ", " + recordId + ")";
+	}
+}
@@ -0,0 +1,358 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import org.adempiere.core.domains.models.I_AD_Role;
+import org.adempiere.exceptions.AdempiereException;
+import org.compiere.model.MClient;
+import org.compiere.model.MRole;
+import org.compiere.model.MSysConfig;
+import org.compiere.model.ModelValidator;
+import org.compiere.model.PO;
+import org.compiere.util.CLogger;
+import org.compiere.util.DB;
+import org.compiere.util.Env;
+import org.compiere.util.Util;
+import org.spin.eca56.util.support.IGenericSender;
+import org.spin.eca56.util.support.documents.RoleAccessDelta;
+import org.spin.queue.util.QueueLoader;
+
+/**
+ * 	Publish a grant or revoke event on role channel when a row of AD_Window_Access, AD_Process_Access,
+ * 	AD_Form_Access, AD_Browse_Access or AD_Workflow_Access change. After {@link #ECA56_RoleAccessSnapshotInterval}
+ * 	events of a role the full role document is queued again as snapshot, a value of 0 never queue the snapshot.
+ * 	The events of a role are sent in order from a single thread lane (the lane is selected by role), each event or snapshot
+ * 	is sent after the previous is acknowledged, then a retry of {@link QueueDeliveryTracker} block the lane. If an event is
+ * 	not delivered after all retries the full role is sent from same lane. Note that the role documents queued by changes of role
+ * 	or by export processes are not sent from lane
+ * 	@author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class RoleAccessEvents {
+
+	/**	System Configurator for events between snapshots	*/
+	public static final String ECA56_RoleAccessSnapshotInterval = "ECA56_RoleAccessSnapshotInterval";
+	/**	Default events between snapshots	*/
+	private static final int DEFAULT_SNAPSHOT_INTERVAL = 100;
+	/**	Quantity of lanes	*/
+	private static final int LANES = 4;
+	/**	Max time for wait acknowledgement of a delivery (milliseconds)	*/
+	private static final long ACKNOWLEDGE_TIMEOUT = 300000;
+	/**	Logger	*/
+	private static CLogger log = CLogger.getCLogger(RoleAccessEvents.class);
+	/**	Access tables	*/
+	private static final Map<String, AccessDefinition> ACCESS_TABLES = Map.of(
+		"AD_Window_Access", new AccessDefinition("window_access", "AD_Window", "AD_Window_ID"),
+		"AD_Process_Access", new AccessDefinition("process_access", "AD_Process", "AD_Process_ID"),
+		"AD_Form_Access", new AccessDefinition("form_access", "AD_Form", "AD_Form_ID"),
+		"AD_Browse_Access", new AccessDefinition("browser_access", "AD_Browse", "AD_Browse_ID"),
+		"AD_Workflow_Access", new AccessDefinition("workflow_access", "AD_Workflow", "AD_Workflow_ID")
+	);
+	/**	Events by role after last snapshot	*/
+	private final Map<Integer, AtomicInteger> eventsByRole = new ConcurrentHashMap<>();
+	/**	Lanes, the events of a role are sent always from same lane	*/
+	private final ThreadPoolExecutor[] lanes = new ThreadPoolExecutor[LANES];
+
+	/**
+	 * Lazy and thread safe holder
+	 */
+	private static final class Holder {
+		private static final RoleAccessEvents INSTANCE = new RoleAccessEvents();
+	}
+
+	/**
+	 * default instance
+	 * @return
+	 */
+	public static RoleAccessEvents getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	private RoleAccessEvents() {
+		for(int index = 0; index < LANES; index++) {
+			String threadName = "ECA56-Role-Access-" + (index + 1);
+			lanes[index] = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+				Thread thread = new Thread(runnable, threadName);
+				thread.setDaemon(true);
+				return thread;
+			});
+			lanes[index].allowCoreThreadTimeOut(true);
+		}
+	}
+
+	/**
+	 * Get access tables observed
+	 * @return
+	 */
+	public static Set<String> getAccessTableNames() {
+		return ACCESS_TABLES.keySet();
+	}
+
+	/**
+	 * Verify if a table is a role access table
+	 * @param tableName
+	 * @return
+	 */
+	public static boolean isAccessTable(String tableName) {
+		return tableName != null && ACCESS_TABLES.containsKey(tableName);
+	}
+
+	/**
+	 * Publish the events for a change of access row, the errors are logged and never stop the change
+	 * @param access
+	 * @param type model change type (after new, after change or after delete)
+	 */
+	public void publish(PO access, int type) {
+		AccessDefinition definition = ACCESS_TABLES.get(access.get_TableName());
+		if(definition == null) {
+			return;
+		}
+		try {
+			int roleId = access.get_ValueAsInt(I_AD_Role.COLUMNNAME_AD_Role_ID);
+			int recordId = access.get_ValueAsInt(definition.keyColumnName);
+			boolean isActive = access.isActive();
+			if(type == ModelValidator.TYPE_AFTER_NEW) {
+				if(isActive) {
+					send(access, roleId, definition, recordId, RoleAccessDelta.EVENT_TYPE_GRANT);
+				}
+			} else if(type == ModelValidator.TYPE_AFTER_DELETE) {
+				if(isActive) {
+					send(access, roleId, definition, recordId, RoleAccessDelta.EVENT_TYPE_REVOKE);
+				}
+			} else if(type == ModelValidator.TYPE_AFTER_CHANGE) {
+				int previousRoleId = access.is_ValueChanged(I_AD_Role.COLUMNNAME_AD_Role_ID) ? access.get_ValueOldAsInt(I_AD_Role.COLUMNNAME_AD_Role_ID) : roleId;
+				int previousRecordId = access.is_ValueChanged(definition.keyColumnName) ? access.get_ValueOldAsInt(definition.keyColumnName) : recordId;
+				boolean wasActive = isActive;
+				if(access.is_ValueChanged("IsActive")) {
+					Object oldValue = access.get_ValueOld("IsActive");
+					wasActive = oldValue instanceof Boolean ? (Boolean) oldValue : "Y".equals(oldValue);
+				}
+				boolean isMoved = previousRoleId != roleId || previousRecordId != recordId;
+				if(wasActive && (!isActive || isMoved)) {
+					send(access, previousRoleId, definition, previousRecordId, RoleAccessDelta.EVENT_TYPE_REVOKE);
+				}
+				if(isActive && (!wasActive || isMoved)) {
+					send(access, roleId, definition, recordId, RoleAccessDelta.EVENT_TYPE_GRANT);
+				}
+			}
+		} catch (Exception e) {
+			log.log(Level.WARNING, "Error publishing access change of " + access.get_TableName() + ": " + e.getLocalizedMessage(), e);
+		}
+	}
+
+	/**
+	 * Send a event after commit of transaction from lane of role.
+	 * The UUID of entity is read on transaction of change, then a revoke is sent when the entity is deleted
+	 * @param access
+	 * @param roleId
+	 * @param definition
+	 * @param recordId
+	 * @param eventType
+	 */
+	private void send(PO access, int roleId, AccessDefinition definition, int recordId, String eventType) {
+		if(roleId < 0 || recordId <= 0) {
+			return;
+		}
+		String accessUuid = DB.getSQLValueString(access.get_TrxName(), "SELECT UUID FROM " + definition.tableName + " WHERE " + definition.keyColumnName + " = ?", recordId);
+		if(Util.isEmpty(accessUuid, true)) {
+			return;
+		}
+		AccessEvent event = new AccessEvent(QueueDeliveryTracker.getInstance().newDeliveryId(), roleId, definition, accessUuid, eventType);
+		String name = "Role access " + eventType + " " + definition.accessType + " " + recordId + " for role " + roleId;
+		//	The lane only keep the event, it is never sent from committing thread
+		TransactionPublisher.getInstance().add(access.get_TrxName(), () -> getLane(roleId).execute(() -> process(event, name)));
+	}
+
+	/**
+	 * Get lane of role
+	 * @param roleId
+	 * @return
+	 */
+	private ThreadPoolExecutor getLane(int roleId) {
+		return lanes[Math.floorMod(roleId, LANES)];
+	}
+
+	/**
+	 * Send a event from lane and wait for acknowledgement, the full role is sent when the event is not delivered
+	 * @param event
+	 * @param name
+	 */
+	private void process(AccessEvent event, String name) {
+		try {
+			if(isDelivered(name, () -> deliver(event))) {
+				countEvent(event.roleId);
+				return;
+			}
+			log.warning(name + " is not sent, the role is sent again");
+			sendSnapshot(event.roleId);
+		} catch (Exception e) {
+			log.log(Level.WARNING, name + ": " + e.getLocalizedMessage(), e);
+		}
+	}
+
+	/**
+	 * Run a task that send entries from current thread and wait for final state of all entries
+	 * @param name
+	 * @param task
+	 * @return true if all entries are acknowledged
+	 */
+	private boolean isDelivered(String name, Runnable task) {
+		BlockingQueue<Boolean> results = new LinkedBlockingQueue<>();
+		List<Integer> queueIds = QueueDeliveryTracker.getInstance().track(new IQueueEntryListener() {
+			@Override
+			public void onProcessed(int queueId) {
+				results.add(Boolean.TRUE);
+			}
+
+			@Override
+			public void onFailed(int queueId, Throwable exception) {
+				results.add(Boolean.FALSE);
+			}
+		}, () -> OutboxWorkerPool.runDirect(task));
+		long timeout = System.currentTimeMillis() + ACKNOWLEDGE_TIMEOUT;
+		boolean isDelivered = true;
+		try {
+			for(int index = 0; index < queueIds.size(); index++) {
+				Boolean result = results.poll(Math.max(0, timeout - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+				if(result == null) {
+					log.warning(name + " is not acknowledged after " + ACKNOWLEDGE_TIMEOUT + " ms");
+					return false;
+				}
+				isDelivered &= result;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		return isDelivered;
+	}
+
+	/**
+	 * Send event from lane, it is sent again by tracker when it fails
+	 * @param event
+	 */
+	private void deliver(AccessEvent event) {
+		QueueDelivery delivery = QueueDeliveryTracker.getInstance().newDelivery(event.deliveryId)
+			.withRetry(() -> deliver(event));
+		try {
+			IGenericSender sender = DefaultEngineQueueUtil.getEngineManager();
+			if(sender == null) {
+				throw new AdempiereException("@AD_AppRegistration_ID@ @NotFound@");
+			}
+			MRole role = MRole.get(Env.getCtx(), event.roleId);
+			String clientId = MClient.get(Env.getCtx(), role.getAD_Client_ID()).getUUID();
+			RoleAccessDelta delta = RoleAccessDelta.newInstance()
+				.withEventType(event.eventType)
+				.withAccess(event.definition.accessType, event.accessUuid);
+			delta.withClientId(clientId).withEntity(role);
+			sender.send(delta, delta.getChannel(), delivery.register());
+		} catch (Throwable e) {
+			delivery.fail(e);
+			log.warning(e.getLocalizedMessage());
+		} finally {
+			delivery.close();
+		}
+	}
+
+	/**
+	 * Count a event of role and queue the full role after interval
+	 * @param roleId
+	 */
+	private void countEvent(int roleId) {
+		int interval = MSysConfig.getIntValue(ECA56_RoleAccessSnapshotInterval, DEFAULT_SNAPSHOT_INTERVAL);
+		if(interval <= 0) {
+			return;
+		}
+		AtomicInteger events = eventsByRole.computeIfAbsent(roleId, key -> new AtomicInteger());
+		if(events.incrementAndGet() >= interval) {
+			sendSnapshot(roleId);
+		}
+	}
+
+	/**
+	 * Queue the full role document and send it from lane, the next events of role wait for it.
+	 * If it is not delivered the queue entry is kept for queue processor
+	 * @param roleId
+	 */
+	private void sendSnapshot(int roleId) {
+		AtomicInteger events = eventsByRole.get(roleId);
+		if(events != null) {
+			events.set(0);
+		}
+		String name = "Role " + roleId;
+		boolean isDelivered = isDelivered(name, () -> QueueLoader.getInstance()
+			.getQueueManager(ApplicationDictionary.CODE)
+			.withEntity(MRole.get(Env.getCtx(), roleId))
+			.addToQueue()
+		);
+		if(!isDelivered) {
+			log.warning(name + " is not sent, it is kept for queue processor");
+		}
+	}
+
+	/**
+	 * Event of role access captured on transaction of change
+	 */
+	private static final class AccessEvent {
+		/**	Delivery of tracker	*/
+		private final int deliveryId;
+		/**	Role	*/
+		private final int roleId;
+		/**	Access table	*/
+		private final AccessDefinition definition;
+		/**	UUID of entity	*/
+		private final String accessUuid;
+		/**	Grant or revoke	*/
+		private final String eventType;
+
+		private AccessEvent(int deliveryId, int roleId, AccessDefinition definition, String accessUuid, String eventType) {
+			this.deliveryId = deliveryId;
+			this.roleId = roleId;
+			this.definition = definition;
+			this.accessUuid = accessUuid;
+			this.eventType = eventType;
+		}
+	}
+
+	/**
+	 * Role access table definition
+	 */
+	private static final class AccessDefinition {
+		/**	List of role document	*/
+		private final String accessType;
+		/**	Table with access	*/
+		private final String tableName;
+		/**	Key column of table	*/
+		private final String keyColumnName;
+
+		private AccessDefinition(String accessType, String tableName, String keyColumnName) {
+			this.accessType = accessType;
+			this.tableName = tableName;
+			this.keyColumnName = keyColumnName;
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import org.compiere.util.CLogger;
+import org.compiere.util.Trx;
+import org.compiere.util.TrxEventListener;
+import org.compiere.util.Util;
+
+/**
+ * Keep the deliveries of a transaction until it is committed, all deliveries of transaction
+ * run together from one worker after commit. The deliveries are discarded when the transaction
+ * is rolled back or closed without commit. Note that the queue entries are saved inside the transaction,
+ * only the send to server is delayed. A delivery never send to server from the caller thread, it use
+ * {@link OutboxWorkerPool#execute(String, Runnable)} and keep the queue entry as not processed when there are
+ * not space for more entries, then when the batch is not accepted by a worker each delivery run from committing thread
+ * for dispatch itself (or run local tasks as reset of cache)
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class TransactionPublisher implements TrxEventListener {
+
+	/**	Logger	*/
+	private static CLogger log = CLogger.getCLogger(TransactionPublisher.class);
+	/**	Pending deliveries by transaction name	*/
+	private final Map<String, List<Runnable>> deliveriesByTransaction = new ConcurrentHashMap<>();
+	/**	Transactions with listener registered, a transaction is reused after commit	*/
+	private final Set<String> registeredTransactions = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Lazy and thread safe holder
+	 */
+	private static final class Holder {
+		private static final TransactionPublisher INSTANCE = new TransactionPublisher();
+	}
+
+	/**
+	 * Default instance
+	 * @return
+	 */
+	public static TransactionPublisher getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	private TransactionPublisher() {
+
+	}
+
+	/**
+	 * Add a delivery for run after commit of transaction, without transaction it run now.
+	 * The delivery must send documents with {@link OutboxWorkerPool}, it can run from committing thread
+	 * @param transactionName
+	 * @param delivery
+	 */
+	public void add(String transactionName, Runnable delivery) {
+		Trx transaction = Util.isEmpty(transactionName) ? null : Trx.get(transactionName, false);
+		if(transaction == null) {
+			delivery.run();
+			return;
+		}
+		deliveriesByTransaction.compute(transactionName, (key, deliveries) -> {
+			if(deliveries == null) {
+				//	First delivery of transaction, the listener is registered once by transaction
+				if(registeredTransactions.add(transactionName)) {
+					transaction.addTrxEventListener(this);
+				}
+				deliveries = new ArrayList<>();
+			}
+			deliveries.add(delivery);
+			return deliveries;
+		});
+	}
+
+	/**
+	 * Get transactions with pending deliveries
+	 * @return
+	 */
+	public int getPendingTransactions() {
+		return deliveriesByTransaction.size();
+	}
+
+	@Override
+	public void afterCommit(Trx transaction, boolean success) {
+		if(!success) {
+			return;
+		}
+		List<Runnable> deliveries = deliveriesByTransaction.remove(transaction.getTrxName());
+		if(deliveries == null
+				|| deliveries.isEmpty()) {
+			return;
+		}
+		String name = "Transaction " + transaction.getTrxName() + " (" + deliveries.size() + " documents)";
+		//	One worker send all documents of transaction, then the producer send it in same batches
+		boolean isAccepted = OutboxWorkerPool.getInstance().execute(name, () -> OutboxWorkerPool.runDirect(() -> run(name, deliveries)));
+		if(!isAccepted) {
+			//	Not direct: each delivery is added to workers again or kept as not processed for queue processor
+			log.warning(name + " is not sent from a worker, there are not space for more entries");
+			run(name, deliveries);
+		}
+	}
+
+	/**
+	 * Run deliveries of a transaction, a failed delivery never stop the others
+	 * @param name
+	 * @param deliveries
+	 */
+	private void run(String name, List<Runnable> deliveries) {
+		deliveries.forEach(delivery -> {
+			try {
+				delivery.run();
+			} catch (Exception e) {
+				log.log(Level.WARNING, name + ": " + e.getLocalizedMessage(), e);
+			}
+		});
+	}
+
+	@Override
+	public void afterRollback(Trx transaction, boolean success) {
+		List<Runnable> deliveries = deliveriesByTransaction.remove(transaction.getTrxName());
+		if(deliveries != null) {
+			log.fine("Transaction " + transaction.getTrxName() + " rolled back, documents discarded: " + deliveries.size());
+		}
+	}
+
+	@Override
+	public void afterClose(Trx transaction) {
+		deliveriesByTransaction.remove(transaction.getTrxName());
+		registeredTransactions.remove(transaction.getTrxName());
+	}
+}
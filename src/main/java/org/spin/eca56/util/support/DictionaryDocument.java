@@ -17,9 +17,13 @@
  *****************************************************************************/
 package org.spin.eca56.util.support;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
+import org.adempiere.core.domains.models.I_AD_Element;
 import org.compiere.model.PO;
 import org.compiere.util.Env;
 import org.compiere.util.Util;
@@ -36,9 +40,13 @@ public abstract class DictionaryDocument implements IGenericDictionaryDocument {
 	private String roleId;
 	private String userId;
 	private String language;
-	private static final String KEY = "new";
+	private String entityId;
 	private String channel = "none";
 	private Map<String, Object> document;
+	/**	Values resolved for language of document	*/
+	private Map<String, Object> values;
+	/**	Translations of all values, loaded once for all languages	*/
+	private TranslationProvider translationProvider;
 
 	public DictionaryDocument() {
 		withLanguage(Env.getAD_Language(Env.getCtx()));
@@ -47,7 +55,31 @@ public abstract class DictionaryDocument implements IGenericDictionaryDocument {
 
 	@Override
 	public String getKey() {
-		return KEY;
+		return getKey(KEY_STRATEGY_ENTITY_LANGUAGE_CLIENT);
+	}
+
+	@Override
+	public String getKey(String keyStrategy) {
+		if(Util.isEmpty(getEntityId())
+				|| KEY_STRATEGY_LEGACY.equals(keyStrategy)) {
+			return LEGACY_KEY;
+		}
+		StringBuffer key = new StringBuffer(getEntityId());
+		if(KEY_STRATEGY_ENTITY.equals(keyStrategy)) {
+			return key.toString();
+		}
+		if(!Util.isEmpty(getLanguage())) {
+			key.append("|").append(getLanguage());
+		}
+		if(KEY_STRATEGY_ENTITY_LANGUAGE.equals(keyStrategy)) {
+			return key.toString();
+		}
+		if(!Util.isEmpty(getValidClientCode())) {
+			key.append("|").append(getValidClientCode());
+		} else if(!Util.isEmpty(getClientId())) {
+			key.append("|").append(getClientId());
+		}
+		return key.toString();
 	}
 
 	@Override
@@ -55,16 +87,157 @@ public abstract class DictionaryDocument implements IGenericDictionaryDocument {
 		return channel;
 	}
 
+	/**
+	 * Get values for language of document, the translatable values are resolved once
+	 */
 	@Override
 	public Map<String, Object> getValues() {
+		Map<String, Object> values = this.values;
+		if(values == null) {
+			values = getTranslatedValues(getSkeleton(), getLanguage());
+			this.values = values;
+		}
+		return values;
+	}
+
+	/**
+	 * Get the language independent document, it can contain {@link TranslatableValue}
+	 * @return
+	 */
+	protected Map<String, Object> getSkeleton() {
 		return document;
 	}
 
+	/**
+	 * Get a copy of document with translatable values resolved for a language
+	 * @param skeleton
+	 * @param language
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> getTranslatedValues(Map<String, Object> skeleton, String language) {
+		TranslationProvider translationProvider = getTranslationProvider();
+		Map<String, Object> translatedValues = (Map<String, Object>) translate(translationProvider, skeleton, language);
+		Object detail = translatedValues.get("document");
+		if(detail instanceof Map) {
+			Map<String, Object> documentDetail = (Map<String, Object>) detail;
+			if(!Util.isEmpty(language)) {
+				documentDetail.put("language", language);
+			}
+			documentDetail.put("index_value", getIndexValue());
+		}
+		return translatedValues;
+	}
+
+	/**
+	 * Copy maps and lists replacing each translatable value
+	 * @param value
+	 * @param language
+	 * @return
+	 */
+	private Object translate(TranslationProvider translationProvider, Object value, String language) {
+		if(value instanceof TranslatableValue) {
+			return translationProvider.getValue((TranslatableValue) value, language);
+		} else if(value instanceof Map) {
+			Map<?, ?> source = (Map<?, ?>) value;
+			Map<Object, Object> target = new HashMap<>(Math.max(16, (int) (source.size() / .75f) + 1));
+			source.forEach((key, entryValue) -> target.put(key, translate(translationProvider, entryValue, language)));
+			return target;
+		} else if(value instanceof List) {
+			List<?> source = (List<?>) value;
+			List<Object> target = new ArrayList<>(source.size());
+			source.forEach(entryValue -> target.add(translate(translationProvider, entryValue, language)));
+			return target;
+		}
+		return value;
+	}
+
+	/**
+	 * Get translations for all translatable values of document, it is loaded once and shared with the
+	 * copies of other languages
+	 * @return
+	 */
+	protected synchronized TranslationProvider getTranslationProvider() {
+		if(translationProvider == null) {
+			List<TranslatableValue> translatableValues = new ArrayList<>();
+			addTranslatableValues(getSkeleton(), translatableValues);
+			translationProvider = TranslationProvider.newInstance().withValues(translatableValues);
+		}
+		return translationProvider;
+	}
+
+	/**
+	 * Add all translatable values of maps and lists
+	 * @param value
+	 * @param translatableValues
+	 */
+	private void addTranslatableValues(Object value, List<TranslatableValue> translatableValues) {
+		if(value instanceof TranslatableValue) {
+			translatableValues.add((TranslatableValue) value);
+		} else if(value instanceof Map) {
+			((Map<?, ?>) value).values().forEach(entryValue -> addTranslatableValues(entryValue, translatableValues));
+		} else if(value instanceof List) {
+			((List<?>) value).forEach(entryValue -> addTranslatableValues(entryValue, translatableValues));
+		}
+	}
+
+	/**
+	 * Get a value of entity that is resolved for each language when the document is sent
+	 * @param entity
+	 * @param columnName
+	 * @return
+	 */
+	protected TranslatableValue translate(PO entity, String columnName) {
+		return TranslatableValue.newInstance(entity, columnName);
+	}
+
+	/**
+	 * Get a sub document shared by all documents of current export, see {@link SubDocumentCache}.
+	 * Outside of an export it is built always
+	 * @param type
+	 * @param id
+	 * @param builder
+	 * @return
+	 */
+	protected Map<String, Object> getSubDocument(String type, int id, Supplier<Map<String, Object>> builder) {
+		SubDocumentCache cache = SubDocumentCache.getCurrent();
+		if(cache == null) {
+			return builder.get();
+		}
+		return cache.get(type, id, getLanguage(), builder);
+	}
+
+	/**
+	 * Get reference to other dictionary entity (process, browser, form, window or workflow)
+	 * @param entity
+	 * @return
+	 */
+	protected Map<String, Object> parseDictionaryEntity(PO entity) {
+		return getSubDocument(entity.get_TableName(), entity.get_ID(), () -> {
+			Map<String, Object> documentEntity = new HashMap<>();
+			documentEntity.put("internal_id", entity.get_ID());
+			documentEntity.put("id", entity.get_UUID());
+			documentEntity.put("uuid", entity.get_UUID());
+			documentEntity.put("name", translate(entity, I_AD_Element.COLUMNNAME_Name));
+			documentEntity.put("description", translate(entity, I_AD_Element.COLUMNNAME_Description));
+			documentEntity.put("help", translate(entity, I_AD_Element.COLUMNNAME_Help));
+			return documentEntity;
+		});
+	}
+
+	/**
+	 * Get a copy of this document for other language, the document is not built again
+	 * only the translatable values are resolved for the new language
+	 * @param language
+	 * @return
+	 */
+	@Override
+	public DictionaryDocument withTranslation(String language) {
+		return new TranslatedDocument(this, language);
+	}
+
 	public void putDocument(Map<String, Object> document) {
 		//	Generic Detail
-		if(!Util.isEmpty(getLanguage())) {
-			document.put("language", getLanguage());
-		}
 		if(!Util.isEmpty(getClientId())) {
 			document.put("client_id", getClientId());
 		}
@@ -74,12 +247,18 @@ public abstract class DictionaryDocument implements IGenericDictionaryDocument {
 		if(!Util.isEmpty(getUserId())) {
 			document.put("user_id", getUserId());
 		}
-		document.put("index_value", getIndexValue());
+		Object uuid = document.get("uuid");
+		if(uuid != null) {
+			entityId = uuid.toString();
+		}
 		this.document.put("document", document);
+		values = null;
+		translationProvider = null;
 	}
 
 	public DictionaryDocument withClientId(String clientId) {
 		this.clientId = clientId;
+		values = null;
 		return this;
 	}
 	
@@ -92,16 +271,19 @@ public abstract class DictionaryDocument implements IGenericDictionaryDocument {
 
 	public DictionaryDocument withRoleId(String roleId) {
 		this.roleId = roleId;
+		values = null;
 		return this;
 	}
 
 	public DictionaryDocument withUserId(String userId) {
 		this.userId = userId;
+		values = null;
 		return this;
 	}
 
 	public DictionaryDocument withLanguage(String language) {
 		this.language = language;
+		values = null;
 		return this;
 	}
 
@@ -133,6 +315,14 @@ public abstract class DictionaryDocument implements IGenericDictionaryDocument {
 		return language;
 	}
 
+	/**
+	 * Get entity UUID used as record key
+	 * @return
+	 */
+	public String getEntityId() {
+		return entityId;
+	}
+
 	private String getIndexValue() {
 		StringBuffer channel = new StringBuffer(getChannel());
 		if(!Util.isEmpty(getLanguage())) {
@@ -162,4 +352,53 @@ public abstract class DictionaryDocument implements IGenericDictionaryDocument {
 		return this;
 	}
 
+
+	/**
+	 * Copy of a document for other language, it share the language independent document
+	 */
+	private static final class TranslatedDocument extends DictionaryDocument {
+
+		/**	Source document	*/
+		private final DictionaryDocument source;
+
+		private TranslatedDocument(DictionaryDocument source, String language) {
+			super();
+			this.source = source;
+			withClientId(source.getClientId());
+			withRoleId(source.getRoleId());
+			withUserId(source.getUserId());
+			withLanguage(language);
+		}
+
+		@Override
+		protected Map<String, Object> getSkeleton() {
+			return source.getSkeleton();
+		}
+
+		@Override
+		protected TranslationProvider getTranslationProvider() {
+			return source.getTranslationProvider();
+		}
+
+		@Override
+		public String getEntityId() {
+			return source.getEntityId();
+		}
+
+		@Override
+		public String getClientCode() {
+			return source.getClientCode();
+		}
+
+		@Override
+		public String getChannel() {
+			return source.getChannel();
+		}
+
+		@Override
+		public DictionaryDocument withTranslation(String language) {
+			return source.withTranslation(language);
+		}
+	}
+
 }
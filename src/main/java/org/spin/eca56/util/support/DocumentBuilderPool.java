@@ -0,0 +1,127 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 or later of the                                  *
+ * GNU General Public License as published                                    *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-2023 E.R.P. Consultores y Asociados, C.A.               *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpya.com                                  *
+ *****************************************************************************/
+package org.spin.eca56.util.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.compiere.model.MSysConfig;
+
+/**
+ * 	Pool used for build parts of documents (tabs, fields, processes) in parallel, it is not shared with
+ * 	the common pool of server. The parallelism is defined with system configurator
+ * 	{@link #ECA56_DocumentBuilderParallelism}, a value of 1 build all sequentially
+ * 	@author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class DocumentBuilderPool {
+
+	/**	System Configurator for parallelism	*/
+	public static final String ECA56_DocumentBuilderParallelism = "ECA56_DocumentBuilderParallelism";
+	/**	Pool	*/
+	private final ForkJoinPool pool;
+	/**	Parallelism	*/
+	private final int parallelism;
+
+	/**
+	 * Lazy and thread safe holder
+	 */
+	private static final class Holder {
+		private static final DocumentBuilderPool INSTANCE = new DocumentBuilderPool();
+	}
+
+	/**
+	 * default instance
+	 * @return
+	 */
+	public static DocumentBuilderPool getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	private DocumentBuilderPool() {
+		int defaultParallelism = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+		int parallelism = MSysConfig.getIntValue(ECA56_DocumentBuilderParallelism, defaultParallelism);
+		this.parallelism = Math.max(1, parallelism);
+		if(this.parallelism > 1) {
+			pool = new ForkJoinPool(this.parallelism, currentPool -> {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(currentPool);
+				thread.setName("ECA56-Document-Builder-" + thread.getPoolIndex());
+				thread.setDaemon(true);
+				return thread;
+			}, null, false);
+		} else {
+			pool = null;
+		}
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Convert each item, the result keep the order of items
+	 * @param items
+	 * @param mapper
+	 * @return
+	 */
+	public <T, R> List<R> map(List<T> items, Function<T, R> mapper) {
+		if(items == null || items.isEmpty()) {
+			return new ArrayList<>();
+		}
+		//	The workers use the sub documents cache of caller
+		Function<T, R> scopedMapper = SubDocumentCache.withCurrent(mapper);
+		if(pool == null || items.size() == 1) {
+			List<R> result = new ArrayList<>(items.size());
+			items.forEach(item -> result.add(scopedMapper.apply(item)));
+			return result;
+		}
+		//	Nested calls run inside current task
+		if(ForkJoinTask.getPool() == pool) {
+			return mapParallel(items, scopedMapper);
+		}
+		try {
+			return pool.submit(() -> mapParallel(items, scopedMapper)).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AdempiereException(e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new AdempiereException(e.getCause());
+		}
+	}
+
+	/**
+	 * A parallel stream run in the pool of current task
+	 * @param items
+	 * @param mapper
+	 * @return
+	 */
+	private <T, R> List<R> mapParallel(List<T> items, Function<T, R> mapper) {
+		return items.parallelStream()
+			.map(mapper)
+			.collect(Collectors.toCollection(ArrayList::new));
+	}
+}
@@ -0,0 +1,37 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, C.A.                      *
+ * Contributor(s): Yamel Senih ysenih@erpya.com                                      *
+ * This program is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by              *
+ * the Free Software Foundation, either version 3 of the License, or                 *
+ * (at your option) any later version.                                               *
+ * This program is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of                    *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                     *
+ * GNU General Public License for more details.                                      *
+ * You should have received a copy of the GNU General Public License                 *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.            *
+ ************************************************************************************/
+package org.spin.eca56.util.support;
+
+/**
+ * 	A contract for receive the result of an asynchronous send, it is called from sender I/O thread
+ * 	then the implementation must not block
+ * 	@author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public interface IDeliveryListener {
+	
+	/**
+	 * Called when the document was acknowledged by server
+	 * @param document
+	 */
+	public void onDelivered(IGenericDocument document);
+	
+	/**
+	 * Called when the document cannot be delivered
+	 * @param document
+	 * @param exception
+	 */
+	public void onFailed(IGenericDocument document, Exception exception);
+}
@@ -31,4 +31,11 @@ public interface IGenericDictionaryDocument extends IGenericDocument {
 	public IGenericDictionaryDocument withUserId(String userId);
 	
 	public IGenericDictionaryDocument withLanguage(String language);
+	
+	/**
+	 * Get a copy of document for other language without build it again
+	 * @param language
+	 * @return
+	 */
+	public IGenericDictionaryDocument withTranslation(String language);
 }
@@ -27,13 +27,33 @@ public interface IGenericDocument {
 	
 	//	Some default documents key
 	public static final String WINDOW = "window";
+	/**	Constant key used before entity keys, some consumers still rely on it	*/
+	public static final String LEGACY_KEY = "new";
+	
+	//	Key strategies
+	/**	Constant key for all records of channel (Compatibility)	*/
+	public static final String KEY_STRATEGY_LEGACY = "legacy";
+	/**	Only entity UUID	*/
+	public static final String KEY_STRATEGY_ENTITY = "entity";
+	/**	Entity UUID and language	*/
+	public static final String KEY_STRATEGY_ENTITY_LANGUAGE = "entity_language";
+	/**	Entity UUID, language and client (default)	*/
+	public static final String KEY_STRATEGY_ENTITY_LANGUAGE_CLIENT = "entity_language_client";
 	
 	/**
-	 * Get Command Key
+	 * Get Command Key, by default it is the entity key with language and client
 	 * @return
 	 */
 	public String getKey();
 	
+	/**
+	 * Get key for a specific key strategy, note that all records of the same entity
+	 * must return the same key for keep the order inside a partition
+	 * @param keyStrategy
+	 * @return
+	 */
+	public String getKey(String keyStrategy);
+	
 	
 	/***
 	 * get channel for document
@@ -34,4 +34,21 @@ public interface IGenericSender extends IAppSupport {
 	 * @param document
 	 */
 	public void send(IGenericDocument document, String channel);
+	
+	/**
+	 * Send command to device without wait for server, the listener is notified when the server acknowledge
+	 * or reject the document
+	 * @param document
+	 * @param channel
+	 * @param listener
+	 */
+	public void send(IGenericDocument document, String channel, IDeliveryListener listener);
+
+	/**
+	 * Forget the documents published, then a document without changes is sent again. It is used by
+	 * forced exports when the sender skip documents already published
+	 */
+	public default void resetPublished() {
+		//	Nothing to forget by default
+	}
 }
@@ -0,0 +1,212 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 or later of the                                  *
+ * GNU General Public License as published                                    *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-2023 E.R.P. Consultores y Asociados, C.A.               *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpya.com                                  *
+ *****************************************************************************/
+package org.spin.eca56.util.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.compiere.model.MSysConfig;
+import org.compiere.util.CLogger;
+
+/**
+ * 	Cache of sub documents (processes, browsers, forms and workflows referenced by other documents) of an export,
+ * 	the same entity is built once for all documents of export. Each export has own cache and it is used only by threads
+ * 	that run inside {@link #run(Runnable)} or {@link #call(Supplier)}, the documents built for other threads (e.g. changes
+ * 	of entities sent by workers) never use a cache. The size is defined with system configurator {@link #ECA56_SubDocumentCacheSize}
+ * 	@author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class SubDocumentCache {
+
+	/**	System Configurator for max entries	*/
+	public static final String ECA56_SubDocumentCacheSize = "ECA56_SubDocumentCacheSize";
+	/**	Default max entries	*/
+	private static final int DEFAULT_SIZE = 2000;
+	/**	Logger	*/
+	private static CLogger log = CLogger.getCLogger(SubDocumentCache.class);
+	/**	Cache of current thread	*/
+	private static final ThreadLocal<SubDocumentCache> current = new ThreadLocal<>();
+	/**	Documents by type, id and language	*/
+	private final Map<String, Map<String, Object>> documents;
+	/**	Hits	*/
+	private final AtomicInteger hits = new AtomicInteger();
+
+	private SubDocumentCache(int maxSize) {
+		documents = new LinkedHashMap<String, Map<String, Object>>(16, 0.75f, true) {
+			private static final long serialVersionUID = -1474125306469296262L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Cache for an export, the size is read from system configurator
+	 * @return
+	 */
+	public static SubDocumentCache newInstance() {
+		return newInstance(MSysConfig.getIntValue(ECA56_SubDocumentCacheSize, DEFAULT_SIZE));
+	}
+
+	/**
+	 * Cache for an export
+	 * @param maxSize max entries
+	 * @return
+	 */
+	public static SubDocumentCache newInstance(int maxSize) {
+		return new SubDocumentCache(Math.max(1, maxSize));
+	}
+
+	/**
+	 * Get cache of current thread
+	 * @return cache or null if current thread is not exporting
+	 */
+	public static SubDocumentCache getCurrent() {
+		return current.get();
+	}
+
+	/**
+	 * Get a function that run with cache of current thread, it is used for share the cache with other threads
+	 * @param function
+	 * @return
+	 */
+	public static <T, R> Function<T, R> withCurrent(Function<T, R> function) {
+		SubDocumentCache cache = getCurrent();
+		if(cache == null) {
+			return function;
+		}
+		return item -> cache.call(() -> function.apply(item));
+	}
+
+	/**
+	 * Run a task with this cache as cache of current thread
+	 * @param task
+	 */
+	public void run(Runnable task) {
+		call(() -> {
+			task.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Get a value with this cache as cache of current thread
+	 * @param task
+	 * @return
+	 */
+	public <R> R call(Supplier<R> task) {
+		SubDocumentCache previous = current.get();
+		current.set(this);
+		try {
+			return task.get();
+		} finally {
+			if(previous == null) {
+				current.remove();
+			} else {
+				current.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * Remove all documents
+	 */
+	public synchronized void clear() {
+		log.fine("Sub Documents: " + documents.size() + ", Hits: " + hits.get());
+		documents.clear();
+	}
+
+	/**
+	 * Get hits of cache
+	 * @return
+	 */
+	public int getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Get a document from cache or build it. The document returned can not be modified because it is shared
+	 * by all documents of export
+	 * @param type
+	 * @param id
+	 * @param language
+	 * @param builder
+	 * @return
+	 */
+	public Map<String, Object> get(String type, int id, String language, Supplier<Map<String, Object>> builder) {
+		String key = type + "|" + id + "|" + language;
+		synchronized (this) {
+			Map<String, Object> document = documents.get(key);
+			if(document != null) {
+				hits.incrementAndGet();
+				return document;
+			}
+		}
+		//	Build outside lock, it can use the cache for own sub documents
+		Map<String, Object> document = unmodifiableMap(builder.get());
+		if(document == null) {
+			return null;
+		}
+		synchronized (this) {
+			Map<String, Object> currentDocument = documents.putIfAbsent(key, document);
+			if(currentDocument != null) {
+				return currentDocument;
+			}
+		}
+		return document;
+	}
+
+	/**
+	 * Get a read only copy of map, the maps and lists of values are also read only
+	 * @param map
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> unmodifiableMap(Map<String, Object> map) {
+		if(map == null) {
+			return null;
+		}
+		return (Map<String, Object>) unmodifiable(map);
+	}
+
+	/**
+	 * Read only value
+	 * @param value
+	 * @return
+	 */
+	private static Object unmodifiable(Object value) {
+		if(value instanceof Map) {
+			Map<?, ?> source = (Map<?, ?>) value;
+			Map<Object, Object> target = new LinkedHashMap<>(Math.max(16, (int) (source.size() / .75f) + 1));
+			source.forEach((key, entryValue) -> target.put(key, unmodifiable(entryValue)));
+			return Collections.unmodifiableMap(target);
+		} else if(value instanceof List) {
+			List<?> source = (List<?>) value;
+			List<Object> target = new ArrayList<>(source.size());
+			source.forEach(entryValue -> target.add(unmodifiable(entryValue)));
+			return Collections.unmodifiableList(target);
+		}
+		return value;
+	}
+}
@@ -0,0 +1,70 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 or later of the                                  *
+ * GNU General Public License as published                                    *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-2023 E.R.P. Consultores y Asociados, C.A.               *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpya.com                                  *
+ *****************************************************************************/
+package org.spin.eca56.util.support;
+
+import org.compiere.model.PO;
+
+/**
+ * 	A value of document that depends on language, it is resolved when the document is sent.
+ * 	It allow build the document once and send it for each language
+ * 	@author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class TranslatableValue {
+
+	/**	Entity	*/
+	private final PO entity;
+	/**	Column Name	*/
+	private final String columnName;
+
+	private TranslatableValue(PO entity, String columnName) {
+		this.entity = entity;
+		this.columnName = columnName;
+	}
+
+	/**
+	 * Default instance
+	 * @param entity
+	 * @param columnName
+	 * @return
+	 */
+	public static TranslatableValue newInstance(PO entity, String columnName) {
+		return new TranslatableValue(entity, columnName);
+	}
+
+	public PO getEntity() {
+		return entity;
+	}
+
+	public String getColumnName() {
+		return columnName;
+	}
+
+	/**
+	 * Get value for a language
+	 * @param language
+	 * @return
+	 */
+	public String getValue(String language) {
+		return entity.get_Translation(columnName, language);
+	}
+
+	@Override
+	public String toString() {
+		return entity.get_TableName() + "." + columnName + "[" + entity.get_ID() + "]";
+	}
+}
@@ -0,0 +1,169 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 or later of the                                  *
+ * GNU General Public License as published                                    *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-2023 E.R.P. Consultores y Asociados, C.A.               *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpya.com                                  *
+ *****************************************************************************/
+package org.spin.eca56.util.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.compiere.model.PO;
+import org.compiere.util.CLogger;
+import org.compiere.util.DB;
+import org.compiere.util.Env;
+import org.compiere.util.Language;
+
+/**
+ * 	Load translations of many entities with one query by translation table (_Trl) for all languages,
+ * 	the values are used instead of read each translation with {@link PO#get_Translation(String, String)}
+ * 	@author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class TranslationProvider {
+
+	/** Static Logger	*/
+	private static CLogger log = CLogger.getCLogger (TranslationProvider.class);
+	/**	Max records by query	*/
+	private static final int MAX_IN_SIZE = 1000;
+	/**	Translated values: table|record|language -> column -> value	*/
+	private final Map<String, Map<String, String>> translations = new HashMap<>();
+	/**	Tables loaded	*/
+	private final Set<String> loadedTables = new HashSet<>();
+	/**	Values pending for load	*/
+	private Collection<TranslatableValue> values;
+
+	private TranslationProvider() {
+		
+	}
+
+	/**
+	 * Default instance
+	 * @return
+	 */
+	public static TranslationProvider newInstance() {
+		return new TranslationProvider();
+	}
+
+	/**
+	 * Set values to translate, the translations are loaded when the first value is requested for a language
+	 * that is not the base language
+	 * @param values
+	 * @return
+	 */
+	public TranslationProvider withValues(Collection<TranslatableValue> values) {
+		this.values = values;
+		return this;
+	}
+
+	/**
+	 * Load all translations for values, one query by table
+	 */
+	private void loadTranslations() {
+		if(values == null) {
+			return;
+		}
+		Map<String, Set<String>> columnsByTable = new HashMap<>();
+		Map<String, Set<Integer>> recordsByTable = new HashMap<>();
+		values.forEach(value -> {
+			PO entity = value.getEntity();
+			if(entity.get_ID() <= 0) {
+				return;
+			}
+			String tableName = entity.get_TableName();
+			columnsByTable.computeIfAbsent(tableName, key -> new TreeSet<>()).add(value.getColumnName());
+			recordsByTable.computeIfAbsent(tableName, key -> new LinkedHashSet<>()).add(entity.get_ID());
+		});
+		columnsByTable.forEach((tableName, columnNames) -> {
+			loadTranslations(tableName, columnNames, new ArrayList<>(recordsByTable.get(tableName)));
+		});
+		values = null;
+	}
+
+	/**
+	 * Load translations of a table for all languages
+	 * @param tableName
+	 * @param columnNames
+	 * @param recordIds
+	 */
+	private void loadTranslations(String tableName, Set<String> columnNames, List<Integer> recordIds) {
+		String keyColumnName = tableName + "_ID";
+		boolean[] isLoaded = {true};
+		for(int fromIndex = 0; fromIndex < recordIds.size() && isLoaded[0]; fromIndex += MAX_IN_SIZE) {
+			List<Integer> recordsToLoad = recordIds.subList(fromIndex, Math.min(recordIds.size(), fromIndex + MAX_IN_SIZE));
+			StringBuffer sql = new StringBuffer("SELECT ").append(keyColumnName).append(", AD_Language");
+			columnNames.forEach(columnName -> sql.append(", ").append(columnName));
+			sql.append(" FROM ").append(tableName).append("_Trl")
+				.append(" WHERE ").append(keyColumnName).append(" IN(");
+			List<Object> parameters = new ArrayList<Object>();
+			recordsToLoad.forEach(recordId -> {
+				sql.append(parameters.isEmpty()? "?": ", ?");
+				parameters.add(recordId);
+			});
+			sql.append(")");
+			DB.runResultSet(null, sql.toString(), parameters, resultSet -> {
+				while (resultSet.next()) {
+					Map<String, String> translatedValues = new HashMap<>();
+					for(String columnName : columnNames) {
+						translatedValues.put(columnName, resultSet.getString(columnName));
+					}
+					translations.put(getKey(tableName, resultSet.getInt(keyColumnName), resultSet.getString("AD_Language")), translatedValues);
+				}
+			}).onFailure(throwable -> {
+				log.warning("Translations of " + tableName + " are not loaded: " + throwable.getLocalizedMessage());
+				isLoaded[0] = false;
+			});
+		}
+		if(isLoaded[0]) {
+			loadedTables.add(tableName);
+		}
+	}
+
+	/**
+	 * Get value for a language, the base language and missing translations use the value of entity
+	 * @param value
+	 * @param language
+	 * @return
+	 */
+	public synchronized String getValue(TranslatableValue value, String language) {
+		PO entity = value.getEntity();
+		String tableName = entity.get_TableName();
+		if(language != null
+				&& !Env.isBaseLanguage(language, tableName)) {
+			loadTranslations();
+			if(!loadedTables.contains(tableName)) {
+				return value.getValue(language);
+			}
+			Map<String, String> translatedValues = translations.get(getKey(tableName, entity.get_ID(), language));
+			if(translatedValues != null) {
+				String translatedValue = translatedValues.get(value.getColumnName());
+				if(translatedValue != null) {
+					return translatedValue;
+				}
+			}
+		}
+		return value.getValue(Language.getBaseAD_Language());
+	}
+
+	private String getKey(String tableName, int recordId, String language) {
+		return tableName + "|" + recordId + "|" + language;
+	}
+}
@@ -28,7 +28,6 @@ import java.util.stream.Collectors;
 
 import org.adempiere.core.domains.models.I_AD_Browse;
 import org.adempiere.core.domains.models.I_AD_Browse_Field;
-import org.adempiere.core.domains.models.I_AD_Element;
 import org.adempiere.core.domains.models.I_AD_View_Column;
 import org.adempiere.model.MBrowse;
 import org.adempiere.model.MBrowseField;
@@ -48,25 +47,12 @@ import org.spin.eca56.util.support.DictionaryDocument;
  */
 public class Browser extends DictionaryDocument {
 
-	//	Some default documents key
-	public static final String KEY = "new";
+	/**	Constant key used before entity keys, see {@link #getKey(String)}	*/
+	@Deprecated
+	public static final String KEY = LEGACY_KEY;
 	public static final String CHANNEL = "browser";
-	
-	@Override
-	public String getKey() {
-		return KEY;
-	}
-
-	private Map<String, Object> parseDictionaryEntity(PO entity) {
-		Map<String, Object> documentEntity = new HashMap<>();
-		documentEntity.put("internal_id", entity.get_ID());
-		documentEntity.put("id", entity.get_UUID());
-		documentEntity.put("uuid", entity.get_UUID());
-		documentEntity.put("name", entity.get_Translation(I_AD_Element.COLUMNNAME_Name, getLanguage()));
-		documentEntity.put("description", entity.get_Translation(I_AD_Element.COLUMNNAME_Description, getLanguage()));
-		documentEntity.put("help", entity.get_Translation(I_AD_Element.COLUMNNAME_Help, getLanguage()));
-		return documentEntity;
-	}
+	/**	Dependent fields of browser	*/
+	private DependenceIndex dependenceIndex;
 
 	@Override
 	public DictionaryDocument withEntity(PO entity) {
@@ -76,9 +62,9 @@ public class Browser extends DictionaryDocument {
 		documentDetail.put("id", browser.getUUID());
 		documentDetail.put("uuid", browser.getUUID());
 		documentDetail.put("code", browser.getValue());
-		documentDetail.put("name", browser.get_Translation(I_AD_Browse.COLUMNNAME_Name, getLanguage()));
-		documentDetail.put("description", browser.get_Translation(I_AD_Browse.COLUMNNAME_Description, getLanguage()));
-		documentDetail.put("help", browser.get_Translation(I_AD_Browse.COLUMNNAME_Help, getLanguage()));
+		documentDetail.put("name", translate(browser, I_AD_Browse.COLUMNNAME_Name));
+		documentDetail.put("description", translate(browser, I_AD_Browse.COLUMNNAME_Description));
+		documentDetail.put("help", translate(browser, I_AD_Browse.COLUMNNAME_Help));
 		documentDetail.put("is_active", browser.isActive());
 		documentDetail.put("is_beta_functionality", browser.isBetaFunctionality());
 
@@ -172,6 +158,7 @@ public class Browser extends DictionaryDocument {
 		);
 
 		// Browse Fields
+		dependenceIndex = DependenceUtil.getBrowseIndex(browser);
 		List<MBrowseField> browseFields = new Query(
 			browser.getCtx(),
 			I_AD_Browse_Field.Table_Name,
@@ -211,9 +198,9 @@ public class Browser extends DictionaryDocument {
 		detail.put("internal_id", field.getAD_Browse_Field_ID());
 		detail.put("id", field.getUUID());
 		detail.put("uuid", field.getUUID());
-		detail.put("name", field.get_Translation(I_AD_Browse_Field.COLUMNNAME_Name, getLanguage()));
-		detail.put("description", field.get_Translation(I_AD_Browse_Field.COLUMNNAME_Description, getLanguage()));
-		detail.put("help", field.get_Translation(I_AD_Browse_Field.COLUMNNAME_Help, getLanguage()));
+		detail.put("name", translate(field, I_AD_Browse_Field.COLUMNNAME_Name));
+		detail.put("description", translate(field, I_AD_Browse_Field.COLUMNNAME_Description));
+		detail.put("help", translate(field, I_AD_Browse_Field.COLUMNNAME_Help));
 		detail.put("is_active", field.isActive());
 		detail.put("display_type", field.getAD_Reference_ID());
 		detail.put("callout", field.getCallout());
@@ -286,7 +273,7 @@ public class Browser extends DictionaryDocument {
 				+ Optional.ofNullable(field.getDefaultValue2()).orElse("")
 			)
 		);
-		List<Map<String, Object>> dependentFieldsList = DependenceUtil.generateDependentBrowseFields(field);
+		List<Map<String, Object>> dependentFieldsList = DependenceUtil.generateDependentBrowseFields(field, dependenceIndex);
 		detail.put("dependent_fields", dependentFieldsList);
 		return detail;
 	}
@@ -0,0 +1,185 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 or later of the                                  *
+ * GNU General Public License as published                                    *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-2023 E.R.P. Consultores y Asociados, C.A.               *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpya.com                                  *
+ *****************************************************************************/
+package org.spin.eca56.util.support.documents;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.compiere.util.Util;
+
+/**
+ * 	Index of dependent fields for a window, process or browser. Each context value (display logic,
+ * 	default value, read only logic, mandatory logic or validation rule) of a field is parsed once and the
+ * 	names referenced as <code>@Name@</code>, <code>@#Name@</code> or <code>@1|Name@</code> are indexed, a parent column
+ * 	name is matched with any reference that start with it (ignoring case). It is the same match of regular expression
+ * 	<code>@($|#|\d\|){0,1}ColumnName</code> used before, where <code>$</code> is an anchor
+ * 	@author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class DependenceIndex {
+
+	/**	Dependent fields in order of add	*/
+	private final List<Map<String, Object>> dependents = new ArrayList<>();
+	/**	Context values by dependent, used only for names that are not identifiers	*/
+	private final List<List<String>> contexts = new ArrayList<>();
+	/**	Dependents by referenced name	*/
+	private final TreeMap<String, BitSet> dependentsByName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+	private DependenceIndex() {
+		
+	}
+
+	/**
+	 * Default instance
+	 * @return
+	 */
+	public static DependenceIndex newInstance() {
+		return new DependenceIndex();
+	}
+
+	/**
+	 * Add a dependent field with all context values that it use
+	 * @param detail
+	 * @param contextValues
+	 * @return
+	 */
+	public DependenceIndex addDependent(Map<String, Object> detail, List<String> contextValues) {
+		int index = dependents.size();
+		dependents.add(detail);
+		contexts.add(contextValues);
+		contextValues.forEach(context -> {
+			getReferencedNames(context).forEach(name -> {
+				dependentsByName.computeIfAbsent(name, key -> new BitSet()).set(index);
+			});
+		});
+		return this;
+	}
+
+	/**
+	 * Get dependent fields of column names, the fields are returned in the order of add
+	 * @param columnNames
+	 * @return
+	 */
+	public List<Map<String, Object>> getDependents(String... columnNames) {
+		BitSet matches = new BitSet();
+		for(String columnName : columnNames) {
+			if(Util.isEmpty(columnName, true)) {
+				continue;
+			}
+			if(isIdentifier(columnName)) {
+				//	All names that start with column name
+				dependentsByName.subMap(columnName, true, columnName + Character.MAX_VALUE, false)
+					.values()
+					.forEach(matches::or);
+			} else {
+				for(int index = 0; index < contexts.size(); index++) {
+					for(String context : contexts.get(index)) {
+						if(DependenceUtil.isUseParentColumnOnContext(columnName, context)) {
+							matches.set(index);
+							break;
+						}
+					}
+				}
+			}
+		}
+		List<Map<String, Object>> dependentFieldsList = new ArrayList<>(matches.cardinality());
+		matches.stream().forEach(index -> dependentFieldsList.add(new HashMap<>(dependents.get(index))));
+		return dependentFieldsList;
+	}
+
+	/**
+	 * Verify if a context value reference a column name
+	 * @param columnName it must be a identifier
+	 * @param context
+	 * @return
+	 */
+	public static boolean isReferenced(String columnName, String context) {
+		for(String name : getReferencedNames(context)) {
+			if(name.regionMatches(true, 0, columnName, 0, columnName.length())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Get names referenced after each <code>@</code>, with and without the prefixes <code>#</code> and <code>[digit]|</code>
+	 * @param context
+	 * @return
+	 */
+	public static Set<String> getReferencedNames(String context) {
+		Set<String> names = new LinkedHashSet<>();
+		if(Util.isEmpty(context, true)) {
+			return names;
+		}
+		int length = context.length();
+		for(int position = context.indexOf('@'); position >= 0; position = context.indexOf('@', position + 1)) {
+			addName(names, context, position + 1);
+			if(position + 1 < length) {
+				char prefix = context.charAt(position + 1);
+				if(prefix == '#') {
+					addName(names, context, position + 2);
+				} else if(Character.isDigit(prefix)
+						&& position + 2 < length
+						&& context.charAt(position + 2) == '|') {
+					addName(names, context, position + 3);
+				}
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Add identifier that start at position
+	 * @param names
+	 * @param context
+	 * @param start
+	 */
+	private static void addName(Set<String> names, String context, int start) {
+		int end = start;
+		while(end < context.length() && isIdentifierPart(context.charAt(end))) {
+			end++;
+		}
+		if(end > start) {
+			names.add(context.substring(start, end));
+		}
+	}
+
+	/**
+	 * Verify if value is a identifier (letters, digits or underscore)
+	 * @param value
+	 * @return
+	 */
+	static boolean isIdentifier(String value) {
+		for(int index = 0; index < value.length(); index++) {
+			if(!isIdentifierPart(value.charAt(index))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isIdentifierPart(char character) {
+		return Character.isLetterOrDigit(character) || character == '_';
+	}
+}
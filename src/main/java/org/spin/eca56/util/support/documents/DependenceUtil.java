@@ -18,11 +18,10 @@
 package org.spin.eca56.util.support.documents;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
+import java.util.Properties;
 import java.util.regex.Pattern;
 
 import org.adempiere.model.MBrowse;
@@ -56,204 +55,253 @@ public class DependenceUtil {
 		if (Util.isEmpty(context, true)) {
 			return false;
 		}
-
-		// @ColumnName@ , @#ColumnName@ , @$ColumnName@
-		StringBuffer patternValue = new StringBuffer()
-			.append("@")
-			.append("($|#|\\d\\|){0,1}")
-			.append(columnName)
-			.append("(@)")
-		;
-
+		// @ColumnName@ , @#ColumnName@ , @1|ColumnName@
+		// TODO: Use only complete names when fix evaluator (readonlyLogic on Client Info)
+		// TODO: https://github.com/adempiere/adempiere/pull/4124
+		if (DependenceIndex.isIdentifier(columnName)) {
+			return DependenceIndex.isReferenced(columnName, context);
+		}
+		// @ColumnName , @#ColumnName
 		Pattern pattern = Pattern.compile(
-			patternValue.toString(),
+			"@(#|\\d\\|){0,1}" + Pattern.quote(columnName),
 			Pattern.CASE_INSENSITIVE | Pattern.DOTALL
 		);
-		Matcher matcher = pattern.matcher(context);
-		boolean isUsedParentColumn = matcher.find();
+		return pattern.matcher(context).find();
+	}
 
-		// TODO: Delete this condition when fix evaluator (readonlyLogic on Client Info)
-		// TODO: https://github.com/adempiere/adempiere/pull/4124
-		if (!isUsedParentColumn) {
-			// @ColumnName , @#ColumnName , @$ColumnName
-			patternValue.append("{0,1}");
-			Pattern pattern2 = Pattern.compile(
-				patternValue.toString(),
-				Pattern.CASE_INSENSITIVE | Pattern.DOTALL
-			);
-			Matcher matcher2 = pattern2.matcher(context);
-			isUsedParentColumn = matcher2.find();
+
+	/**
+	 * Get index of dependent parameters for a process
+	 * @param process
+	 * @return
+	 */
+	public static DependenceIndex getProcessIndex(MProcess process) {
+		DependenceIndex index = DependenceIndex.newInstance();
+		List<MProcessPara> parametersList = process.getParametersAsList();
+		if (parametersList == null || parametersList.isEmpty()) {
+			return index;
 		}
+		parametersList.forEach(currentParameter -> {
+			if (currentParameter == null || !currentParameter.isActive()) {
+				return;
+			}
+			List<String> contextValues = new ArrayList<>();
+			// Display Logic
+			contextValues.add(currentParameter.getDisplayLogic());
+			// Default Value of Column
+			contextValues.add(currentParameter.getDefaultValue());
+			// TODO: Validate range with `_To` suffix
+			contextValues.add(currentParameter.getDefaultValue2());
+			// ReadOnly Logic
+			contextValues.add(currentParameter.getReadOnlyLogic());
+			// Dynamic Validation
+			contextValues.add(getValidationCode(currentParameter.getCtx(), currentParameter.getAD_Val_Rule_ID()));
 
-		return isUsedParentColumn;
+			Map<String, Object> detail = new HashMap<>();
+			detail.put("internal_id", currentParameter.getAD_Process_Para_ID());
+			detail.put("id", currentParameter.getUUID());
+			detail.put("uuid", currentParameter.getUUID());
+			detail.put("column_name", currentParameter.getColumnName());
+			//	Process
+			detail.put("parent_id", process.getAD_Process_ID());
+			detail.put("parent_uuid", process.getUUID());
+			detail.put("parent_name", process.getName());
+			index.addDependent(detail, contextValues);
+		});
+		return index;
 	}
 
+	/**
+	 * Get index of dependent fields for a window
+	 * @param window
+	 * @return
+	 */
+	public static DependenceIndex getWindowIndex(MWindow window) {
+		return getWindowIndex(WindowMetadata.newInstance(window));
+	}
 
-	public static List<Map<String, Object>> generateDependentProcessParameters(MProcessPara processParameter) {
-		List<Map<String, Object>> depenentFieldsList = new ArrayList<>();
-		if (processParameter == null) {
-			return depenentFieldsList;
+	/**
+	 * Get index of dependent fields for a window already loaded
+	 * @param metadata
+	 * @return
+	 */
+	public static DependenceIndex getWindowIndex(WindowMetadata metadata) {
+		DependenceIndex index = DependenceIndex.newInstance();
+		List<MTab> tabs = metadata.getTabs();
+		if (tabs.isEmpty()) {
+			return index;
+		}
+		tabs.stream()
+			.filter(currentTab -> {
+				// transaltion tab is not rendering on client
+				return currentTab.isActive() && !currentTab.isTranslationTab() && !currentTab.isSortTab();
+			})
+			.forEach(tab -> {
+				metadata.getFields(tab.getAD_Tab_ID()).forEach(currentField -> {
+					MColumn currentColumn = metadata.getColumn(currentField.getAD_Column_ID());
+					List<String> contextValues = new ArrayList<>();
+					// Display Logic
+					contextValues.add(currentField.getDisplayLogic());
+					// Default Value of Field
+					contextValues.add(currentField.getDefaultValue());
+					// Dynamic Validation
+					contextValues.add(getValidationCode(currentField.getCtx(), currentField.getAD_Val_Rule_ID()));
+					// Default Value of Column
+					contextValues.add(currentColumn.getDefaultValue());
+					// ReadOnly Logic
+					contextValues.add(currentColumn.getReadOnlyLogic());
+					// Mandatory Logic
+					contextValues.add(currentColumn.getMandatoryLogic());
+					// Dynamic Validation
+					contextValues.add(getValidationCode(currentColumn.getCtx(), currentColumn.getAD_Val_Rule_ID()));
+
+					Map<String, Object> detail = new HashMap<>();
+					detail.put("internal_id", currentField.getAD_Field_ID());
+					detail.put("id", currentField.getUUID());
+					detail.put("uuid", currentField.getUUID());
+					detail.put("column_name", currentColumn.getColumnName());
+					//	Tab
+					detail.put("parent_id", tab.getAD_Tab_ID());
+					detail.put("parent_uuid", tab.getUUID());
+					detail.put("parent_name", tab.getName());
+					index.addDependent(detail, contextValues);
+				});
+			});
+		return index;
+	}
+
+	/**
+	 * Get index of dependent fields for a browser
+	 * @param browse
+	 * @return
+	 */
+	public static DependenceIndex getBrowseIndex(MBrowse browse) {
+		DependenceIndex index = DependenceIndex.newInstance();
+		List<MBrowseField> browseFieldsList = browse.getFields();
+		if (browseFieldsList == null || browseFieldsList.isEmpty()) {
+			return index;
 		}
+		browseFieldsList.forEach(currentBrowseField -> {
+			if(currentBrowseField == null || !currentBrowseField.isActive()) {
+				return;
+			}
+			List<String> contextValues = new ArrayList<>();
+			// Display Logic
+			contextValues.add(currentBrowseField.getDisplayLogic());
+			// Default Value
+			contextValues.add(currentBrowseField.getDefaultValue());
+			// Default Value 2 (range)
+			// TODO: Validate range with `_To` suffix
+			contextValues.add(currentBrowseField.getDefaultValue2());
+			// ReadOnly Logic
+			contextValues.add(currentBrowseField.getReadOnlyLogic());
+			// Dynamic Validation
+			contextValues.add(getValidationCode(currentBrowseField.getCtx(), currentBrowseField.getAD_Val_Rule_ID()));
 
-		final String parentColumnName = processParameter.getColumnName();
+			MViewColumn currentViewColumn = MViewColumn.getById(
+				currentBrowseField.getCtx(),
+				currentBrowseField.getAD_View_Column_ID(),
+				null
+			);
+			Map<String, Object> detail = new HashMap<>();
+			detail.put("id", currentBrowseField.getAD_Browse_Field_ID());
+			detail.put("id", currentBrowseField.getUUID());
+			detail.put("uuid", currentBrowseField.getUUID());
+			detail.put("column_name", currentViewColumn.getColumnName());
+			//	Browse
+			detail.put("parent_id", browse.getAD_Browse_ID());
+			detail.put("parent_uuid", browse.getUUID());
+			detail.put("parent_name", browse.getName());
+			index.addDependent(detail, contextValues);
+		});
+		return index;
+	}
 
-		MProcess process = MProcess.get(processParameter.getCtx(), processParameter.getAD_Process_ID());
-		List<MProcessPara> parametersList = process.getParametersAsList();
-		if (parametersList == null || parametersList.isEmpty()) {
-			return depenentFieldsList;
+	/**
+	 * Get code of validation rule
+	 * @param context
+	 * @param validationRuleId
+	 * @return
+	 */
+	private static String getValidationCode(Properties context, int validationRuleId) {
+		if (validationRuleId <= 0) {
+			return null;
 		}
+		return MValRule.get(context, validationRuleId).getCode();
+	}
 
-		parametersList.stream()
-			.filter(currentParameter -> {
-				if (currentParameter == null || !currentParameter.isActive()) {
-					return false;
-				}
-				// Display Logic
-				if (isUseParentColumnOnContext(parentColumnName, currentParameter.getDisplayLogic())) {
-					return true;
-				}
-				// Default Value of Column
-				if (isUseParentColumnOnContext(parentColumnName, currentParameter.getDefaultValue())) {
-					return true;
-				}
-				// TODO: Validate range with `_To` suffix
-				if (isUseParentColumnOnContext(parentColumnName, currentParameter.getDefaultValue2())) {
-					return true;
-				}
-				// ReadOnly Logic
-				if (isUseParentColumnOnContext(parentColumnName, currentParameter.getReadOnlyLogic())) {
-					return true;
-				}
-				// Dynamic Validation
-				if (currentParameter.getAD_Val_Rule_ID() > 0) {
-					MValRule validationRule = MValRule.get(
-						currentParameter.getCtx(),
-						currentParameter.getAD_Val_Rule_ID()
-					);
-					if (isUseParentColumnOnContext(parentColumnName, validationRule.getCode())) {
-						return true;
-					}
-				}
-				return false;
-			})
-			.forEach(currentParameter -> {
-				final String currentColumnName = currentParameter.getColumnName();
-				Map<String, Object> detail = new HashMap<>();
-				detail.put("internal_id", currentParameter.getAD_Process_Para_ID());
-				detail.put("id", currentParameter.getUUID());
-				detail.put("uuid", currentParameter.getUUID());
-				detail.put("column_name", currentColumnName);
-				//	Process
-				detail.put("parent_id", process.getAD_Process_ID());
-				detail.put("parent_uuid", process.getUUID());
-				detail.put("parent_name", process.getName());
-				depenentFieldsList.add(detail);
-			});
 
-		return depenentFieldsList;
+	public static List<Map<String, Object>> generateDependentProcessParameters(MProcessPara processParameter) {
+		if (processParameter == null) {
+			return new ArrayList<>();
+		}
+		MProcess process = MProcess.get(processParameter.getCtx(), processParameter.getAD_Process_ID());
+		return generateDependentProcessParameters(processParameter, getProcessIndex(process));
+	}
+
+	/**
+	 * Get dependent parameters from a index of process
+	 * @param processParameter
+	 * @param index
+	 * @return
+	 */
+	public static List<Map<String, Object>> generateDependentProcessParameters(MProcessPara processParameter, DependenceIndex index) {
+		if (processParameter == null) {
+			return new ArrayList<>();
+		}
+		if (index == null) {
+			return generateDependentProcessParameters(processParameter);
+		}
+		return index.getDependents(processParameter.getColumnName());
 	}
 
 
 	public static List<Map<String, Object>> generateDependentWindowFields(MField field) {
-		List<Map<String, Object>> depenentFieldsList = new ArrayList<>();
 		if (field == null) {
-			return depenentFieldsList;
+			return new ArrayList<>();
 		}
-		MColumn column = MColumn.get(field.getCtx(), field.getAD_Column_ID());
-		final String parentColumnName = column.getColumnName();
 		MTab parentTab = MTab.get(field.getCtx(), field.getAD_Tab_ID());
-		List<MTab> tabsList = Arrays.asList(MWindow.get(field.getCtx(), parentTab.getAD_Window_ID()).getTabs(false, null));
-		if (tabsList == null || tabsList.isEmpty()) {
-			return depenentFieldsList;
-		}
-		tabsList.stream()
-			.filter(currentTab -> {
-				// transaltion tab is not rendering on client
-				return currentTab.isActive() && !currentTab.isTranslationTab() && !currentTab.isSortTab();
-			})
-			.forEach(tab -> {
-				List<MField> fieldsList = Arrays.asList(tab.getFields(false, null));
-				if (fieldsList == null || fieldsList.isEmpty()) {
-					return;
-				}
-
-				fieldsList.stream()
-					.filter(currentField -> {
-						if (currentField == null || !currentField.isActive()) {
-							return false;
-						}
-						// Display Logic
-						if (isUseParentColumnOnContext(parentColumnName, currentField.getDisplayLogic())) {
-							return true;
-						}
-						// Default Value of Field
-						if (isUseParentColumnOnContext(parentColumnName, currentField.getDefaultValue())) {
-							return true;
-						}
-						// Dynamic Validation
-						if (currentField.getAD_Val_Rule_ID() > 0) {
-							MValRule validationRule = MValRule.get(
-								currentField.getCtx(),
-								currentField.getAD_Val_Rule_ID()
-							);
-							if (isUseParentColumnOnContext(parentColumnName, validationRule.getCode())) {
-								return true;
-							}
-						}
+		return generateDependentWindowFields(field, getWindowIndex(MWindow.get(field.getCtx(), parentTab.getAD_Window_ID())));
+	}
 
-						MColumn currentColumn = MColumn.get(
-							currentField.getCtx(),
-							currentField.getAD_Column_ID()
-						);
-						// Default Value of Column
-						if (isUseParentColumnOnContext(parentColumnName, currentColumn.getDefaultValue())) {
-							return true;
-						}
-						// ReadOnly Logic
-						if (isUseParentColumnOnContext(parentColumnName, currentColumn.getReadOnlyLogic())) {
-							return true;
-						}
-						// Mandatory Logic
-						if (isUseParentColumnOnContext(parentColumnName, currentColumn.getMandatoryLogic())) {
-							return true;
-						}
-						// Dynamic Validation
-						if (currentColumn.getAD_Val_Rule_ID() > 0) {
-							MValRule validationRule = MValRule.get(
-								currentColumn.getCtx(),
-								currentColumn.getAD_Val_Rule_ID()
-							);
-							if (isUseParentColumnOnContext(parentColumnName, validationRule.getCode())) {
-								return true;
-							}
-						}
-						return false;
-					})
-					.forEach(currentField -> {
-						final String currentColumnName = MColumn.getColumnName(
-							currentField.getCtx(),
-							currentField.getAD_Column_ID()
-						);
-						Map<String, Object> detail = new HashMap<>();
-						detail.put("internal_id", currentField.getAD_Field_ID());
-						detail.put("id", currentField.getUUID());
-						detail.put("uuid", currentField.getUUID());
-						detail.put("column_name", currentColumnName);
-						//	Tab
-						detail.put("parent_id", tab.getAD_Tab_ID());
-						detail.put("parent_uuid", tab.getUUID());
-						detail.put("parent_name", tab.getName());
-						depenentFieldsList.add(detail);
-					});
-			});
-		return depenentFieldsList;
+	/**
+	 * Get dependent fields from a index of window
+	 * @param field
+	 * @param index
+	 * @return
+	 */
+	public static List<Map<String, Object>> generateDependentWindowFields(MField field, DependenceIndex index) {
+		if (field == null) {
+			return new ArrayList<>();
+		}
+		if (index == null) {
+			return generateDependentWindowFields(field);
+		}
+		MColumn column = MColumn.get(field.getCtx(), field.getAD_Column_ID());
+		return index.getDependents(column.getColumnName());
 	}
 
 
 	public static List<Map<String, Object>> generateDependentBrowseFields(MBrowseField browseField) {
-		List<Map<String, Object>> depenentFieldsList = new ArrayList<>();
 		if (browseField == null) {
-			return depenentFieldsList;
+			return new ArrayList<>();
+		}
+		MBrowse browse = MBrowse.get(browseField.getCtx(), browseField.getAD_Browse_ID());
+		return generateDependentBrowseFields(browseField, getBrowseIndex(browse));
+	}
+
+	/**
+	 * Get dependent fields from a index of browser
+	 * @param browseField
+	 * @param index
+	 * @return
+	 */
+	public static List<Map<String, Object>> generateDependentBrowseFields(MBrowseField browseField, DependenceIndex index) {
+		if (browseField == null) {
+			return new ArrayList<>();
+		}
+		if (index == null) {
+			return generateDependentBrowseFields(browseField);
 		}
 
 		MViewColumn viewColumn = MViewColumn.getById(
@@ -274,73 +322,7 @@ public class DependenceUtil {
 		if(Util.isEmpty(elementName, true)) {
 			elementName = browseField.getAD_Element().getColumnName();
 		}
-		String parentElementName = elementName;
-
-		MBrowse browse = MBrowse.get(browseField.getCtx(), browseField.getAD_Browse_ID());
-		List<MBrowseField> browseFieldsList = browse.getFields();
-		if (browseFieldsList == null || browseFieldsList.isEmpty()) {
-			return depenentFieldsList;
-		}
-
-		browseFieldsList.stream()
-			.filter(currentBrowseField -> {
-				if(currentBrowseField == null || !currentBrowseField.isActive()) {
-					return false;
-				}
-				// Display Logic
-				if (isUseParentColumnOnContext(parentColumnName, currentBrowseField.getDisplayLogic())
-					|| isUseParentColumnOnContext(parentElementName, currentBrowseField.getDisplayLogic())) {
-					return true;
-				}
-				// Default Value
-				if (isUseParentColumnOnContext(parentColumnName, currentBrowseField.getDefaultValue())
-					|| isUseParentColumnOnContext(parentElementName, currentBrowseField.getDefaultValue())) {
-					return true;
-				}
-				// Default Value 2 (range)
-				// TODO: Validate range with `_To` suffix
-				if (isUseParentColumnOnContext(parentColumnName, currentBrowseField.getDefaultValue2())
-					|| isUseParentColumnOnContext(parentElementName, currentBrowseField.getDefaultValue2())) {
-					return true;
-				}
-				// ReadOnly Logic
-				if (isUseParentColumnOnContext(parentColumnName, currentBrowseField.getReadOnlyLogic())
-					|| isUseParentColumnOnContext(parentElementName, currentBrowseField.getReadOnlyLogic())) {
-					return true;
-				}
-				// Dynamic Validation
-				if (currentBrowseField.getAD_Val_Rule_ID() > 0) {
-					MValRule validationRule = MValRule.get(
-						currentBrowseField.getCtx(),
-						currentBrowseField.getAD_Val_Rule_ID()
-					);
-					if (isUseParentColumnOnContext(parentColumnName, validationRule.getCode())
-						|| isUseParentColumnOnContext(parentElementName, validationRule.getCode())) {
-						return true;
-					}
-				}
-				return false;
-			})
-			.forEach(currentBrowseField -> {
-				MViewColumn currentViewColumn = MViewColumn.getById(
-					currentBrowseField.getCtx(),
-					currentBrowseField.getAD_View_Column_ID(),
-					null
-				);
-				final String currentColumnName = currentViewColumn.getColumnName();
-				Map<String, Object> detail = new HashMap<>();
-				detail.put("id", currentBrowseField.getAD_Browse_Field_ID());
-				detail.put("id", currentBrowseField.getUUID());
-				detail.put("uuid", currentBrowseField.getUUID());
-				detail.put("column_name", currentColumnName);
-				//	Browse
-				detail.put("parent_id", browse.getAD_Browse_ID());
-				detail.put("parent_uuid", browse.getUUID());
-				detail.put("parent_name", browse.getName());
-				depenentFieldsList.add(detail);
-			});
-
-		return depenentFieldsList;
+		return index.getDependents(parentColumnName, elementName);
 	}
 
 }
@@ -32,17 +32,11 @@ import org.spin.eca56.util.support.DictionaryDocument;
  */
 public class Form extends DictionaryDocument {
 
-	//	Some default documents key
-	public static final String KEY = "new";
+	/**	Constant key used before entity keys, see {@link #getKey(String)}	*/
+	@Deprecated
+	public static final String KEY = LEGACY_KEY;
 	public static final String CHANNEL = "form";
 
-
-	@Override
-	public String getKey() {
-		return KEY;
-	}
-
-
 	@Override
 	public DictionaryDocument withEntity(PO entity) {
 		MForm form = (MForm) entity;
@@ -50,9 +44,9 @@ public class Form extends DictionaryDocument {
 		documentDetail.put("internal_id", form.getAD_Form_ID());
 		documentDetail.put("id", form.getUUID());
 		documentDetail.put("uuid", form.getUUID());
-		documentDetail.put("name", form.get_Translation(I_AD_Form.COLUMNNAME_Name, getLanguage()));
-		documentDetail.put("description", form.get_Translation(I_AD_Form.COLUMNNAME_Description, getLanguage()));
-		documentDetail.put("help", form.get_Translation(I_AD_Form.COLUMNNAME_Help, getLanguage()));
+		documentDetail.put("name", translate(form, I_AD_Form.COLUMNNAME_Name));
+		documentDetail.put("description", translate(form, I_AD_Form.COLUMNNAME_Description));
+		documentDetail.put("help", translate(form, I_AD_Form.COLUMNNAME_Help));
 		documentDetail.put("is_active", form.isActive());
 		documentDetail.put("is_beta_functionality", form.isBetaFunctionality());
 
@@ -22,12 +22,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ThreadLocalRandom;
 
-import org.adempiere.core.domains.models.I_AD_Browse;
-import org.adempiere.core.domains.models.I_AD_Form;
 import org.adempiere.core.domains.models.I_AD_Menu;
-import org.adempiere.core.domains.models.I_AD_Process;
-import org.adempiere.core.domains.models.I_AD_Window;
-import org.adempiere.core.domains.models.I_AD_Workflow;
 import org.adempiere.model.MBrowse;
 import org.compiere.model.MForm;
 import org.compiere.model.MMenu;
@@ -45,21 +40,18 @@ import org.spin.eca56.util.support.DictionaryDocument;
  */
 public class MenuItem extends DictionaryDocument {
 
+	/**	Constant key used before entity keys, see {@link #getKey(String)}	*/
+	@Deprecated
+	public static final String KEY = LEGACY_KEY;
 	public static final String CHANNEL = "menu_item";
-	public static final String KEY = "new";
-	
-	@Override
-	public String getKey() {
-		return KEY;
-	}
-	
+
 	private Map<String, Object> convertMenu(MMenu menu) {
 		Map<String, Object> detail = new HashMap<>();
 		detail.put("internal_id", menu.getAD_Menu_ID());
 		detail.put("id", menu.getUUID());
 		detail.put("uuid", menu.getUUID());
-		detail.put("name", menu.get_Translation(I_AD_Menu.COLUMNNAME_Name, getLanguage()));
-		detail.put("description", menu.get_Translation(I_AD_Menu.COLUMNNAME_Description, getLanguage()));
+		detail.put("name", translate(menu, I_AD_Menu.COLUMNNAME_Name));
+		detail.put("description", translate(menu, I_AD_Menu.COLUMNNAME_Description));
 		detail.put("is_read_only", menu.isReadOnly());
 		detail.put("is_sales_transaction", menu.isSOTrx());
 		detail.put("is_summary", menu.isSummary());
@@ -69,28 +61,14 @@ public class MenuItem extends DictionaryDocument {
 			if(menu.getAction().equals(MMenu.ACTION_Form)) {
 				if(menu.getAD_Form_ID() > 0) {
 					MForm form = new MForm(menu.getCtx(), menu.getAD_Form_ID(), null);
-					Map<String, Object> referenceDetail = new HashMap<>();
-					referenceDetail.put("internal_id", form.getAD_Form_ID());
-					referenceDetail.put("id", form.getUUID());
-					referenceDetail.put("uuid", form.getUUID());
-					referenceDetail.put("name", form.get_Translation(I_AD_Form.COLUMNNAME_Name, getLanguage()));
-					referenceDetail.put("description", form.get_Translation(I_AD_Form.COLUMNNAME_Description, getLanguage()));
-					referenceDetail.put("help", form.get_Translation(I_AD_Form.COLUMNNAME_Help, getLanguage()));
-					detail.put("form", referenceDetail);
+					detail.put("form", parseDictionaryEntity(form));
 					detail.put("action_id", form.getAD_Form_ID());
 					detail.put("action_uuid", form.getUUID());
 				}
 			} else if(menu.getAction().equals(MMenu.ACTION_Window)) {
 				if(menu.getAD_Window_ID() > 0) {
 					MWindow window = new MWindow(menu.getCtx(), menu.getAD_Window_ID(), null);
-					Map<String, Object> referenceDetail = new HashMap<>();
-					referenceDetail.put("internal_id", window.getAD_Window_ID());
-					referenceDetail.put("id", window.getUUID());
-					referenceDetail.put("uuid", window.getUUID());
-					referenceDetail.put("name", window.get_Translation(I_AD_Window.COLUMNNAME_Name, getLanguage()));
-					referenceDetail.put("description", window.get_Translation(I_AD_Window.COLUMNNAME_Description, getLanguage()));
-					referenceDetail.put("help", window.get_Translation(I_AD_Window.COLUMNNAME_Help, getLanguage()));
-					detail.put("window", referenceDetail);
+					detail.put("window", parseDictionaryEntity(window));
 					detail.put("action_id", window.getAD_Window_ID());
 					detail.put("action_uuid", window.getUUID());
 				}
@@ -98,42 +76,21 @@ public class MenuItem extends DictionaryDocument {
 				|| menu.getAction().equals(MMenu.ACTION_Report)) {
 				if(menu.getAD_Process_ID() > 0) {
 					MProcess process = MProcess.get(menu.getCtx(), menu.getAD_Process_ID());
-					Map<String, Object> referenceDetail = new HashMap<>();
-					referenceDetail.put("internal_id", process.getAD_Process_ID());
-					referenceDetail.put("id", process.getUUID());
-					referenceDetail.put("uuid", process.getUUID());
-					referenceDetail.put("name", process.get_Translation(I_AD_Process.COLUMNNAME_Name, getLanguage()));
-					referenceDetail.put("description", process.get_Translation(I_AD_Process.COLUMNNAME_Description, getLanguage()));
-					referenceDetail.put("help", process.get_Translation(I_AD_Process.COLUMNNAME_Help, getLanguage()));
-					detail.put("process", referenceDetail);
+					detail.put("process", parseDictionaryEntity(process));
 					detail.put("action_id", process.getAD_Process_ID());
 					detail.put("action_uuid", process.getUUID());
 				}
 			} else if(menu.getAction().equals(MMenu.ACTION_SmartBrowse)) {
 				if(menu.getAD_Browse_ID() > 0) {
 					MBrowse smartBrowser = MBrowse.get(menu.getCtx(), menu.getAD_Browse_ID());
-					Map<String, Object> referenceDetail = new HashMap<>();
-					referenceDetail.put("internal_id", smartBrowser.getAD_Browse_ID());
-					referenceDetail.put("id", smartBrowser.getUUID());
-					referenceDetail.put("uuid", smartBrowser.getUUID());
-					referenceDetail.put("name", smartBrowser.get_Translation(I_AD_Browse.COLUMNNAME_Name, getLanguage()));
-					referenceDetail.put("description", smartBrowser.get_Translation(I_AD_Browse.COLUMNNAME_Description, getLanguage()));
-					referenceDetail.put("help", smartBrowser.get_Translation(I_AD_Browse.COLUMNNAME_Help, getLanguage()));
-					detail.put("browser", referenceDetail);
+					detail.put("browser", parseDictionaryEntity(smartBrowser));
 					detail.put("action_id", smartBrowser.getAD_Browse_ID());
 					detail.put("action_uuid", smartBrowser.getUUID());
 				}
 			} else if(menu.getAction().equals(MMenu.ACTION_WorkFlow)) {
 				if(menu.getAD_Workflow_ID() > 0) {
 					MWorkflow workflow = MWorkflow.get(menu.getCtx(), menu.getAD_Workflow_ID());
-					Map<String, Object> referenceDetail = new HashMap<>();
-					referenceDetail.put("internal_id", workflow.getAD_Workflow_ID());
-					referenceDetail.put("id", workflow.getUUID());
-					referenceDetail.put("uuid", workflow.getUUID());
-					referenceDetail.put("name", workflow.get_Translation(I_AD_Workflow.COLUMNNAME_Name, getLanguage()));
-					referenceDetail.put("description", workflow.get_Translation(I_AD_Workflow.COLUMNNAME_Description, getLanguage()));
-					referenceDetail.put("help", workflow.get_Translation(I_AD_Workflow.COLUMNNAME_Help, getLanguage()));
-					detail.put("workflow", referenceDetail);
+					detail.put("workflow", parseDictionaryEntity(workflow));
 					detail.put("action_id", workflow.getAD_Workflow_ID());
 					detail.put("action_uuid", workflow.getUUID());
 				}
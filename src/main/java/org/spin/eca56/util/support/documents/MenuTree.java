@@ -18,9 +18,12 @@
 package org.spin.eca56.util.support.documents;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.adempiere.core.domains.models.I_AD_TreeNodeMM;
 import org.adempiere.exceptions.AdempiereException;
@@ -35,13 +38,10 @@ import org.spin.eca56.util.support.DictionaryDocument;
  */
 public class MenuTree extends DictionaryDocument {
 
+	/**	Constant key used before entity keys, see {@link #getKey(String)}	*/
+	@Deprecated
+	public static final String KEY = LEGACY_KEY;
 	public static final String CHANNEL = "menu_tree";
-	public static final String KEY = "new";
-
-	@Override
-	public String getKey() {
-		return KEY;
-	}
 
 	private Map<String, Object> convertNode(TreeNodeReference node) {
 		Map<String, Object> detail = new HashMap<>();
@@ -58,20 +58,27 @@ public class MenuTree extends DictionaryDocument {
 		return withNode(tree);
 	}
 
-	private List<TreeNodeReference> getChildren(int treeId, int parentId) {
+	/**
+	 * Get all nodes of tree with a single query, the nodes are grouped by parent and sorted by sequence
+	 * @param treeId
+	 * @return
+	 */
+	private Map<Integer, List<TreeNodeReference>> getNodesByParent(int treeId) {
 		String tableName = MTree.getNodeTableName(MTree.TREETYPE_Menu);
-		final String sql = "SELECT tn.Node_ID, tn.SeqNo "
+		final String sql = "SELECT tn.Node_ID, COALESCE(tn.Parent_ID, 0) AS Parent_ID, tn.SeqNo "
 			+ "FROM " + tableName + " tn "
 			+ "WHERE tn.Node_ID > 0 "
 			+ "AND tn.AD_Tree_ID = ? "
-			+ "AND COALESCE(tn.Parent_ID, 0) = ?"
+			+ "ORDER BY COALESCE(tn.Parent_ID, 0), tn.SeqNo, tn.Node_ID"
 		;
 		List<Object> parameters = new ArrayList<Object>();
 		parameters.add(treeId);
-		parameters.add(parentId);
-		List<TreeNodeReference> nodesList = new ArrayList<TreeNodeReference>();
+		Map<Integer, List<TreeNodeReference>> nodesByParent = new HashMap<>();
 		DB.runResultSet(null, sql, parameters, resulset -> {
 			while (resulset.next()) {
+				int parentId = resulset.getInt(
+					I_AD_TreeNodeMM.COLUMNNAME_Parent_ID
+				);
 				TreeNodeReference treeNode = TreeNodeReference.newInstance()
 					.withNodeId(
 						resulset.getInt(
@@ -85,49 +92,48 @@ public class MenuTree extends DictionaryDocument {
 						)
 					)
 				;
-				nodesList.add(treeNode);
+				nodesByParent.computeIfAbsent(parentId, key -> new ArrayList<>()).add(treeNode);
 			}
 		}).onFailure(throwable -> {
 			throw new AdempiereException(throwable);
 		});
-		return nodesList;
+		return nodesByParent;
 	}
 
 	public MenuTree withNode(MTree tree) {
-		List<TreeNodeReference> children = getChildren(tree.getAD_Tree_ID(), 0);
+		Map<Integer, List<TreeNodeReference>> nodesByParent = getNodesByParent(tree.getAD_Tree_ID());
 		Map<String, Object> documentDetail = convertNode(TreeNodeReference.newInstance());
 		documentDetail.put("internal_id", tree.getAD_Tree_ID());
 		documentDetail.put("id", tree.getUUID());
 		documentDetail.put("uuid", tree.getUUID());
 		documentDetail.put("name", tree.getName());
-		List<Map<String, Object>> childrenAsMap = new ArrayList<>();
-		children.forEach(child -> {
-			Map<String, Object> nodeAsMap = convertNode(child);
-			//	Explode child
-			addChildren(tree.getAD_Tree_ID(), child, nodeAsMap);
-			childrenAsMap.add(nodeAsMap);
-		});
-		documentDetail.put("children", childrenAsMap);
+		documentDetail.put("children", getChildren(nodesByParent, 0, new HashSet<>()));
 		putDocument(documentDetail);
 		return this;
 	}
 
 	/**
-	 * Add children to menu
-	 * @param context
-	 * @param builder
-	 * @param node
+	 * Get children of node from nodes loaded
+	 * @param nodesByParent
+	 * @param parentId
+	 * @param path nodes of current branch, used for avoid cycles
+	 * @return
 	 */
-	private void addChildren(int treeId, TreeNodeReference node, Map<String, Object> parent) {
-		List<TreeNodeReference> children = getChildren(treeId, node.getNodeId());
-		List<Map<String, Object>> childrenAsMap = new ArrayList<>();
+	private List<Map<String, Object>> getChildren(Map<Integer, List<TreeNodeReference>> nodesByParent, int parentId, Set<Integer> path) {
+		List<TreeNodeReference> children = nodesByParent.getOrDefault(parentId, Collections.emptyList());
+		List<Map<String, Object>> childrenAsMap = new ArrayList<>(children.size());
 		children.forEach(child -> {
 			Map<String, Object> nodeAsMap = convertNode(child);
 			//	Explode child
-			addChildren(treeId, child, nodeAsMap);
+			if(path.add(child.getNodeId())) {
+				nodeAsMap.put("children", getChildren(nodesByParent, child.getNodeId(), path));
+				path.remove(child.getNodeId());
+			} else {
+				nodeAsMap.put("children", new ArrayList<>());
+			}
 			childrenAsMap.add(nodeAsMap);
 		});
-		parent.put("children", childrenAsMap);
+		return childrenAsMap;
 	}
 
 	private MenuTree() {
@@ -26,6 +26,7 @@ import java.util.Map;
 import org.adempiere.core.domains.models.I_C_OrderLine;
 import org.compiere.model.MOrder;
 import org.compiere.model.MOrderLine;
+import org.compiere.util.Util;
 import org.spin.eca56.util.support.IGenericDocument;
 
 /**
@@ -38,10 +39,25 @@ public class Order implements IGenericDocument {
 	public static final String KEY = "new";
 	public static final String CHANNEL = "order";
 	private Map<String, Object> document;
+	private String entityId;
+	private int clientId;
 	
 	@Override
 	public String getKey() {
-		return KEY;
+		return getKey(KEY_STRATEGY_ENTITY_LANGUAGE_CLIENT);
+	}
+
+	@Override
+	public String getKey(String keyStrategy) {
+		if(Util.isEmpty(entityId)
+				|| KEY_STRATEGY_LEGACY.equals(keyStrategy)) {
+			return KEY;
+		}
+		//	Orders are not translated
+		if(KEY_STRATEGY_ENTITY_LANGUAGE_CLIENT.equals(keyStrategy)) {
+			return entityId + "|" + clientId;
+		}
+		return entityId;
 	}
 
 	@Override
@@ -51,6 +67,8 @@ public class Order implements IGenericDocument {
 	
 	public Order withOrder(MOrder order) {
 		document = new HashMap<>();
+		entityId = order.getUUID();
+		clientId = order.getAD_Client_ID();
 		Map<String, Object> documentDetail = new HashMap<>();
 		documentDetail.put("id", order.getC_Order_ID());
 		documentDetail.put("uuid", order.getUUID());
@@ -23,7 +23,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
-import org.adempiere.core.domains.models.I_AD_Element;
 import org.adempiere.core.domains.models.I_AD_Process;
 import org.adempiere.core.domains.models.I_AD_Process_Para;
 import org.adempiere.model.MBrowse;
@@ -45,25 +44,12 @@ import org.spin.util.ReportExportHandler;
  */
 public class Process extends DictionaryDocument {
 
-	//	Some default documents key
-	public static final String KEY = "new";
+	/**	Constant key used before entity keys, see {@link #getKey(String)}	*/
+	@Deprecated
+	public static final String KEY = LEGACY_KEY;
 	public static final String CHANNEL = "process";
-	
-	@Override
-	public String getKey() {
-		return KEY;
-	}
-
-	private Map<String, Object> parseDictionaryEntity(PO entity) {
-		Map<String, Object> documentEntity = new HashMap<>();
-		documentEntity.put("internal_id", entity.get_ID());
-		documentEntity.put("id", entity.get_UUID());
-		documentEntity.put("uuid", entity.get_UUID());
-		documentEntity.put("name", entity.get_Translation(I_AD_Element.COLUMNNAME_Name, getLanguage()));
-		documentEntity.put("description", entity.get_Translation(I_AD_Element.COLUMNNAME_Description, getLanguage()));
-		documentEntity.put("help", entity.get_Translation(I_AD_Element.COLUMNNAME_Help, getLanguage()));
-		return documentEntity;
-	}
+	/**	Dependent parameters of process	*/
+	private DependenceIndex dependenceIndex;
 
 
 	@Override
@@ -74,9 +60,9 @@ public class Process extends DictionaryDocument {
 		documentDetail.put("id", process.getUUID());
 		documentDetail.put("uuid", process.getUUID());
 		documentDetail.put("code", process.getValue());
-		documentDetail.put("name", process.get_Translation(I_AD_Process.COLUMNNAME_Name, getLanguage()));
-		documentDetail.put("description", process.get_Translation(I_AD_Process.COLUMNNAME_Description, getLanguage()));
-		documentDetail.put("help", process.get_Translation(I_AD_Process.COLUMNNAME_Help, getLanguage()));
+		documentDetail.put("name", translate(process, I_AD_Process.COLUMNNAME_Name));
+		documentDetail.put("description", translate(process, I_AD_Process.COLUMNNAME_Description));
+		documentDetail.put("help", translate(process, I_AD_Process.COLUMNNAME_Help));
 		documentDetail.put("is_active", process.isActive());
 		documentDetail.put("show_help", process.getShowHelp());
 		documentDetail.put("is_beta_functionality", process.isBetaFunctionality());
@@ -125,6 +111,7 @@ public class Process extends DictionaryDocument {
 		}
 
 		// Process Parameters
+		dependenceIndex = DependenceUtil.getProcessIndex(process);
 		List<MProcessPara> parameters = new Query(
 			process.getCtx(),
 			I_AD_Process_Para.Table_Name,
@@ -159,9 +146,9 @@ public class Process extends DictionaryDocument {
 		detail.put("id", parameter.getUUID());
 		detail.put("uuid", parameter.getUUID());
 		detail.put("column_name", parameter.getColumnName());
-		detail.put("name", parameter.get_Translation(I_AD_Process_Para.COLUMNNAME_Name, getLanguage()));
-		detail.put("description", parameter.get_Translation(I_AD_Process_Para.COLUMNNAME_Description, getLanguage()));
-		detail.put("help", parameter.get_Translation(I_AD_Process_Para.COLUMNNAME_Help, getLanguage()));
+		detail.put("name", translate(parameter, I_AD_Process_Para.COLUMNNAME_Name));
+		detail.put("description", translate(parameter, I_AD_Process_Para.COLUMNNAME_Description));
+		detail.put("help", translate(parameter, I_AD_Process_Para.COLUMNNAME_Help));
 		detail.put("is_active", parameter.isActive());
 		detail.put("display_type", parameter.getAD_Reference_ID());
 
@@ -205,7 +192,7 @@ public class Process extends DictionaryDocument {
 				+ Optional.ofNullable(parameter.getDefaultValue2()).orElse("")
 			)
 		);
-		List<Map<String, Object>> dependentFieldsList = DependenceUtil.generateDependentProcessParameters(parameter);
+		List<Map<String, Object>> dependentFieldsList = DependenceUtil.generateDependentProcessParameters(parameter, dependenceIndex);
 		detail.put("dependent_fields", dependentFieldsList);
 		return detail;
 	}
@@ -18,16 +18,17 @@
 package org.spin.eca56.util.support.documents;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.adempiere.core.domains.models.I_AD_Chart;
 import org.adempiere.core.domains.models.I_AD_Image;
 import org.adempiere.core.domains.models.I_AD_Ref_List;
+import org.adempiere.core.domains.models.I_AD_Reference;
 import org.adempiere.core.domains.models.I_C_ElementValue;
 import org.adempiere.core.domains.models.I_C_Location;
 import org.adempiere.core.domains.models.I_M_AttributeSetInstance;
@@ -36,6 +37,7 @@ import org.adempiere.core.domains.models.I_S_ResourceAssignment;
 import org.adempiere.core.domains.models.X_AD_Reference;
 import org.compiere.model.MRefTable;
 import org.compiere.model.MValRule;
+import org.compiere.util.CCache;
 import org.compiere.util.DisplayType;
 import org.compiere.util.Env;
 import org.compiere.util.Util;
@@ -46,6 +48,21 @@ import org.compiere.util.Util;
  */
 public class ReferenceUtil {
 
+	/**	Max context values with parsed column names	*/
+	private static final int CONTEXT_CACHE_SIZE = 1000;
+	/**	Column names by context (LRU)	*/
+	private static final Map<String, List<String>> contextColumnNamesCache = new LinkedHashMap<String, List<String>>(CONTEXT_CACHE_SIZE, 0.75f, true) {
+		private static final long serialVersionUID = -2981498375519362466L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+			return size() > CONTEXT_CACHE_SIZE;
+		}
+	};
+
+	/**	Reference definition by column name, display type, reference value and validation rule	*/
+	private static final CCache<String, ReferenceValues> referenceDefinitionCache = new CCache<>(I_AD_Reference.Table_Name, 100);
+
 	/**
 	 * Validate reference
 	 * @param displayTypeId
@@ -66,7 +83,8 @@ public class ReferenceUtil {
 	}
 
 	/**
-	 * Get Context column names from context
+	 * Get Context column names from context, the names and order are the same of the regular expression
+	 * <code>@(#|$|\d\|){0,1}(\w+)@</code> used before (<code>$</code> is an anchor then <code>@$ColumnName@</code> is not a variable)
 	 * @param context
 	 * @return
 	 * @return List<String>
@@ -75,26 +93,113 @@ public class ReferenceUtil {
 		if (Util.isEmpty(context, true)) {
 			return new ArrayList<String>();
 		}
-		String START = "\\@";  // A literal "(" character in regex
-		String END   = "\\@";  // A literal ")" character in regex
-
-		// Captures the word(s) between the above two character(s)
-		final String COLUMN_NAME_PATTERN = START + "(#|$|\\d\\|){0,1}(\\w+)" + END;
-
-		Pattern pattern = Pattern.compile(
-			COLUMN_NAME_PATTERN,
-			Pattern.CASE_INSENSITIVE | Pattern.DOTALL
-		);
-		Matcher matcher = pattern.matcher(context);
-		Map<String, Boolean> columnNamesMap = new HashMap<String, Boolean>();
-		while(matcher.find()) {
-			final String columnContext = matcher.group().replace("@", "").replace("@", "");
-			columnNamesMap.put(columnContext, true);
+		List<String> columnNames;
+		synchronized (contextColumnNamesCache) {
+			columnNames = contextColumnNamesCache.get(context);
+		}
+		if (columnNames == null) {
+			columnNames = Collections.unmodifiableList(parseContextColumnNames(context));
+			synchronized (contextColumnNamesCache) {
+				contextColumnNamesCache.put(context, columnNames);
+			}
+		}
+		return new ArrayList<String>(columnNames);
+	}
+
+	/**
+	 * Parse variables as <code>@ColumnName@</code>, <code>@#ColumnName@</code> or <code>@1|ColumnName@</code>,
+	 * the prefix is part of name
+	 * @param context
+	 * @return
+	 */
+	private static List<String> parseContextColumnNames(String context) {
+		//	Same order of published names
+		Map<String, Boolean> columnNames = new HashMap<String, Boolean>();
+		int length = context.length();
+		int position = context.indexOf('@');
+		while (position >= 0 && position < length - 1) {
+			int nameStart = position + 1;
+			// prefix
+			int prefixLength = 0;
+			char prefix = context.charAt(nameStart);
+			if (prefix == '#') {
+				prefixLength = 1;
+			} else if (prefix >= '0' && prefix <= '9'
+					&& nameStart + 1 < length && context.charAt(nameStart + 1) == '|') {
+				prefixLength = 2;
+			}
+			int end = getVariableEnd(context, nameStart + prefixLength);
+			if (end < 0) {
+				position = context.indexOf('@', nameStart);
+				continue;
+			}
+			columnNames.put(context.substring(nameStart, end), true);
+			position = context.indexOf('@', end + 1);
 		}
-		return new ArrayList<String>(columnNamesMap.keySet());
+		return new ArrayList<String>(columnNames.keySet());
 	}
 
+	/**
+	 * Get position of <code>@</code> that close a variable
+	 * @param context
+	 * @param start start of word
+	 * @return position or -1 if it is not a variable
+	 */
+	private static int getVariableEnd(String context, int start) {
+		int end = start;
+		while (end < context.length() && isWordCharacter(context.charAt(end))) {
+			end++;
+		}
+		if (end == start || end >= context.length() || context.charAt(end) != '@') {
+			return -1;
+		}
+		return end;
+	}
+
+	private static boolean isWordCharacter(char character) {
+		return (character >= 'a' && character <= 'z')
+			|| (character >= 'A' && character <= 'Z')
+			|| (character >= '0' && character <= '9')
+			|| character == '_';
+	}
+
+	/**
+	 * Get definition of reference (table and context used), the definition is resolved once by server
+	 * and it is removed from cache when a reference, table reference or validation rule change
+	 * @param columnName
+	 * @param displayTypeId
+	 * @param referenceValueId
+	 * @param validationRuleId
+	 * @return definition or null if it is not a lookup
+	 */
 	public static ReferenceValues getReferenceDefinition(String columnName, int displayTypeId, int referenceValueId, int validationRuleId) {
+		String key = columnName + "|" + displayTypeId + "|" + referenceValueId + "|" + validationRuleId;
+		ReferenceValues referenceValues;
+		synchronized (referenceDefinitionCache) {
+			referenceValues = referenceDefinitionCache.get(key);
+		}
+		if(referenceValues != null) {
+			return referenceValues;
+		}
+		referenceValues = loadReferenceDefinition(columnName, displayTypeId, referenceValueId, validationRuleId);
+		if(referenceValues != null) {
+			synchronized (referenceDefinitionCache) {
+				referenceDefinitionCache.put(key, referenceValues);
+			}
+		}
+		return referenceValues;
+	}
+
+	/**
+	 * Remove all reference definitions, it is called when AD_Reference, AD_Ref_Table or AD_Val_Rule change
+	 */
+	public static void resetReferenceDefinition() {
+		synchronized (referenceDefinitionCache) {
+			referenceDefinitionCache.clear();
+		}
+	}
+
+	private static ReferenceValues loadReferenceDefinition(String columnName, int displayTypeId, int referenceValueId, int validationRuleId) {
 		String embeddedContextColumn = null;
 
 		if (DisplayType.Button == displayTypeId) {
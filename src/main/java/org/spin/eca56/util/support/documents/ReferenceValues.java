@@ -18,13 +18,13 @@
 package org.spin.eca56.util.support.documents;
 
 /**
- * 	The Stub class for reference
+ * 	The Stub class for reference, it is immutable because it is shared from cache
  * 	@author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
  */
 public class ReferenceValues {
-	private String tableName;
-	private String embeddedContextColumn;
-	private int referenceId;
+	private final String tableName;
+	private final String embeddedContextColumn;
+	private final int referenceId;
 	
 	private ReferenceValues(int referenceId, String tableName, String embeddedContextColumn) {
 		this.referenceId = referenceId;
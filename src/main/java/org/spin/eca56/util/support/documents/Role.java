@@ -21,26 +21,17 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-
-import org.adempiere.core.domains.models.I_AD_Browse;
-import org.adempiere.core.domains.models.I_AD_Form;
-import org.adempiere.core.domains.models.I_AD_Process;
-import org.adempiere.core.domains.models.I_AD_Window;
-import org.adempiere.core.domains.models.I_AD_Workflow;
-import org.adempiere.model.MBrowse;
+
+import org.adempiere.core.domains.models.I_AD_Tree;
+import org.adempiere.exceptions.AdempiereException;
 // import org.adempiere.core.domains.models.I_PA_DashboardContent;
 import org.compiere.model.MClientInfo;
 // import org.compiere.model.MDashboardContent;
-import org.compiere.model.MForm;
-import org.compiere.model.MProcess;
 import org.compiere.model.MRole;
 import org.compiere.model.MTree;
-import org.compiere.model.MWindow;
 import org.compiere.model.PO;
-import org.compiere.model.Query;
+import org.compiere.util.CCache;
 import org.compiere.util.DB;
-import org.compiere.wf.MWorkflow;
 import org.spin.eca56.util.support.DictionaryDocument;
 
 /**
@@ -49,12 +40,74 @@ import org.spin.eca56.util.support.DictionaryDocument;
  */
 public class Role extends DictionaryDocument {
 
+	/**	Constant key used before entity keys, see {@link #getKey(String)}	*/
+	@Deprecated
+	public static final String KEY = LEGACY_KEY;
 	public static final String CHANNEL = "role";
-	public static final String KEY = "new";
+	/**	Access types	*/
+	private static final String ACCESS_WINDOW = "W";
+	private static final String ACCESS_PROCESS = "P";
+	private static final String ACCESS_FORM = "F";
+	private static final String ACCESS_BROWSER = "B";
+	private static final String ACCESS_WORKFLOW = "WF";
+	/**	UUID of entities with access for role, the parameter is the role for each type	*/
+	private static final String SQL_ACCESS = "SELECT 'W' AS AccessType, w.UUID, w.AD_Window_ID AS Record_ID "
+			+ "FROM AD_Window w "
+			+ "WHERE w.IsActive = 'Y' "
+			+ "AND EXISTS(SELECT 1 FROM AD_Window_Access AS wa WHERE wa.IsActive = 'Y' AND wa.AD_Window_ID = w.AD_Window_ID AND wa.AD_Role_ID = ?) "
+			+ "UNION ALL "
+			+ "SELECT 'P', p.UUID, p.AD_Process_ID "
+			+ "FROM AD_Process p "
+			+ "WHERE p.IsActive = 'Y' "
+			+ "AND EXISTS(SELECT 1 FROM AD_Process_Access AS pa WHERE pa.IsActive = 'Y' AND pa.AD_Process_ID = p.AD_Process_ID AND pa.AD_Role_ID = ?) "
+			+ "UNION ALL "
+			+ "SELECT 'F', f.UUID, f.AD_Form_ID "
+			+ "FROM AD_Form f "
+			+ "WHERE f.IsActive = 'Y' "
+			+ "AND EXISTS(SELECT 1 FROM AD_Form_Access AS fa WHERE fa.IsActive = 'Y' AND fa.AD_Form_ID = f.AD_Form_ID AND fa.AD_Role_ID = ?) "
+			+ "UNION ALL "
+			+ "SELECT 'B', b.UUID, b.AD_Browse_ID "
+			+ "FROM AD_Browse b "
+			+ "WHERE b.IsActive = 'Y' "
+			+ "AND EXISTS(SELECT 1 FROM AD_Browse_Access AS ba WHERE ba.IsActive = 'Y' AND ba.AD_Browse_ID = b.AD_Browse_ID AND ba.AD_Role_ID = ?) "
+			+ "UNION ALL "
+			+ "SELECT 'WF', wf.UUID, wf.AD_Workflow_ID "
+			+ "FROM AD_Workflow wf "
+			+ "WHERE wf.IsActive = 'Y' "
+			+ "AND EXISTS(SELECT 1 FROM AD_Workflow_Access AS wfa WHERE wfa.IsActive = 'Y' AND wfa.AD_Workflow_ID = wf.AD_Workflow_ID AND wfa.AD_Role_ID = ?) "
+			+ "ORDER BY 1, 3";
+	/**	Default menu tree by client	*/
+	private static final CCache<Integer, Integer> defaultMenuTreeCache = new CCache<>(I_AD_Tree.Table_Name, 10);
 
-	@Override
-	public String getKey() {
-		return KEY;
+	/**
+	 * Get default menu tree of client, it is used when role and client info don't have a menu tree
+	 * @param clientId
+	 * @return
+	 */
+	private static int getDefaultMenuTreeId(int clientId) {
+		Integer treeId;
+		synchronized (defaultMenuTreeCache) {
+			treeId = defaultMenuTreeCache.get(clientId);
+		}
+		if(treeId != null) {
+			return treeId;
+		}
+		String sql = "SELECT tr.AD_Tree_ID "
+			+ "FROM AD_Tree AS tr "
+			+ "WHERE tr.IsActive = 'Y' "
+			+ "AND tr.AD_Client_ID IN(0, ?) "
+			+ "AND tr.TreeType = 'MM' "
+			+ "AND tr.IsAllNodes = 'Y' "
+			+ "AND ROWNUM = 1 "
+			+ "ORDER BY tr.AD_Client_ID DESC, tr.IsDefault DESC, tr.AD_Tree_ID "
+		;
+		//	Get Tree
+		treeId = DB.getSQLValue(null, sql, clientId);
+		// treeId = MTree.getDefaultTreeIdFromTableId(clientId, I_AD_Menu.Table_ID);
+		synchronized (defaultMenuTreeCache) {
+			defaultMenuTreeCache.put(clientId, treeId);
+		}
+		return treeId;
 	}
 
 	private Map<String, Object> convertRole(MRole role) {
@@ -65,23 +118,13 @@ public class Role extends DictionaryDocument {
 		detail.put("name", role.getName());
 
 		detail.put("description", role.getDescription());
+		detail.put("event_type", RoleAccessDelta.EVENT_TYPE_SNAPSHOT);
 		int treeId = role.getAD_Tree_Menu_ID();
 		if(treeId <= 0) {
 			MClientInfo clientInfo = MClientInfo.get(role.getCtx());
 			treeId = clientInfo.getAD_Tree_Menu_ID();
 			if(treeId <= 0) {
-				String sql = "SELECT tr.AD_Tree_ID "
-					+ "FROM AD_Tree AS tr "
-					+ "WHERE tr.IsActive = 'Y' "
-					+ "AND tr.AD_Client_ID IN(0, ?) "
-					+ "AND tr.TreeType = 'MM' "
-					+ "AND tr.IsAllNodes = 'Y' "
-					+ "AND ROWNUM = 1 "
-					+ "ORDER BY tr.AD_Client_ID DESC, tr.IsDefault DESC, tr.AD_Tree_ID "
-				;
-				//	Get Tree
-				treeId = DB.getSQLValue(null, sql, role.getAD_Client_ID());
-				// treeId = MTree.getDefaultTreeIdFromTableId(clientId, I_AD_Menu.Table_ID);
+				treeId = getDefaultMenuTreeId(role.getAD_Client_ID());
 			}
 		}
 		if (treeId > 0) {
@@ -92,108 +135,40 @@ public class Role extends DictionaryDocument {
 			}
 		}
 
-		detail.put("window_access", getWindowAccess(role));
-		detail.put("process_access", getProcessAccess(role));
-		detail.put("form_access", getFormAccess(role));
-		detail.put("browser_access", getBrowserAccess(role));
-		detail.put("workflow_access", getWorkflowAccess(role));
+		Map<String, List<String>> accessByType = getAccess(role);
+		detail.put("window_access", accessByType.get(ACCESS_WINDOW));
+		detail.put("process_access", accessByType.get(ACCESS_PROCESS));
+		detail.put("form_access", accessByType.get(ACCESS_FORM));
+		detail.put("browser_access", accessByType.get(ACCESS_BROWSER));
+		detail.put("workflow_access", accessByType.get(ACCESS_WORKFLOW));
 		detail.put("dashboard_access", getDashboardAccess(role));
 		return detail;
 	}
 
-	private List<String> getWindowAccess(MRole role) {
-		return new Query(
-			role.getCtx(),
-			I_AD_Window.Table_Name,
-			"EXISTS(SELECT 1 FROM AD_Window_Access AS wa WHERE wa.IsActive = 'Y' AND wa.AD_Window_ID = AD_Window.AD_Window_ID AND wa.AD_Role_ID = ?)",
-			null
-		)
-			.setParameters(role.getAD_Role_ID())
-			.setOnlyActiveRecords(true)
-			.getIDsAsList()
-			.stream()
-			.map(windowId -> {
-				MWindow window = MWindow.get(role.getCtx(), windowId);
-				return window.getUUID();
-			})
-			.collect(Collectors.toList())
-		;
-	}
-
-	private List<String> getProcessAccess(MRole role) {
-		return new Query(
-			role.getCtx(),
-			I_AD_Process.Table_Name,
-			"EXISTS(SELECT 1 FROM AD_Process_Access AS pa WHERE pa.IsActive = 'Y' AND pa.AD_Process_ID = AD_Process.AD_Process_ID AND pa.AD_Role_ID = ?)",
-			null
-		)
-			.setParameters(role.getAD_Role_ID())
-			.setOnlyActiveRecords(true)
-			.getIDsAsList()
-			.stream()
-			.map(processId -> {
-				MProcess process = MProcess.get(role.getCtx(), processId);
-				return process.getUUID();
-			})
-			.collect(Collectors.toList())
-		;
-	}
-
-	private List<String> getFormAccess(MRole role) {
-		return new Query(
-			role.getCtx(),
-			I_AD_Form.Table_Name,
-			"EXISTS(SELECT 1 FROM AD_Form_Access AS fa WHERE fa.IsActive = 'Y' AND fa.AD_Form_ID = AD_Form.AD_Form_ID AND fa.AD_Role_ID = ?)",
-			null
-		)
-			.setParameters(role.getAD_Role_ID())
-			.setOnlyActiveRecords(true)
-			.getIDsAsList()
-			.stream()
-			.map(formId -> {
-				MForm form = new MForm(role.getCtx(), formId, null);
-				return form.getUUID();
-			})
-			.collect(Collectors.toList())
-		;
-	}
-
-	private List<String> getBrowserAccess(MRole role) {
-		return new Query(
-			role.getCtx(),
-			I_AD_Browse.Table_Name,
-			"EXISTS(SELECT 1 FROM AD_Browse_Access AS ba WHERE ba.IsActive = 'Y' AND ba.AD_Browse_ID = AD_Browse.AD_Browse_ID AND ba.AD_Role_ID = ?)",
-			null
-		)
-			.setParameters(role.getAD_Role_ID())
-			.setOnlyActiveRecords(true)
-			.getIDsAsList()
-			.stream()
-			.map(browserId -> {
-				MBrowse browse = MBrowse.get(role.getCtx(), browserId);
-				return browse.getUUID();
-			})
-			.collect(Collectors.toList())
-		;
-	}
-
-	private List<String> getWorkflowAccess(MRole role) {
-		return new Query(
-			role.getCtx(),
-			I_AD_Workflow.Table_Name,
-			"EXISTS(SELECT 1 FROM AD_Workflow_Access AS wa WHERE wa.IsActive = 'Y' AND wa.AD_Workflow_ID = AD_Workflow.AD_Workflow_ID AND wa.AD_Role_ID = ?)",
-			null
-		)
-			.setParameters(role.getAD_Role_ID())
-			.setOnlyActiveRecords(true)
-			.getIDsAsList()
-			.stream()
-			.map(workflowId -> {
-				MWorkflow workflow = MWorkflow.get(role.getCtx(), workflowId);
-				return workflow.getUUID();
-			})
-			.collect(Collectors.toList())
-		;
+	/**
+	 * Get UUID of all windows, processes, forms, browsers and workflows with access for role in one query
+	 * @param role
+	 * @return UUIDs by access type
+	 */
+	private Map<String, List<String>> getAccess(MRole role) {
+		Map<String, List<String>> accessByType = new HashMap<>();
+		accessByType.put(ACCESS_WINDOW, new ArrayList<>());
+		accessByType.put(ACCESS_PROCESS, new ArrayList<>());
+		accessByType.put(ACCESS_FORM, new ArrayList<>());
+		accessByType.put(ACCESS_BROWSER, new ArrayList<>());
+		accessByType.put(ACCESS_WORKFLOW, new ArrayList<>());
+		List<Object> parameters = new ArrayList<>();
+		for(int count = 0; count < 5; count++) {
+			parameters.add(role.getAD_Role_ID());
+		}
+		DB.runResultSet(null, SQL_ACCESS, parameters, resultSet -> {
+			while (resultSet.next()) {
+				accessByType.get(resultSet.getString(1)).add(resultSet.getString(2));
+			}
+		}).onFailure(throwable -> {
+			throw new AdempiereException(throwable);
+		});
+		return accessByType;
 	}
 
 	private List<String> getDashboardAccess(MRole role) {
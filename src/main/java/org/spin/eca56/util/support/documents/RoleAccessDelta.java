@@ -0,0 +1,112 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 or later of the                                  *
+ * GNU General Public License as published                                    *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-2023 E.R.P. Consultores y Asociados, C.A.               *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpya.com                                  *
+ *****************************************************************************/
+package org.spin.eca56.util.support.documents;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.compiere.model.MRole;
+import org.compiere.model.PO;
+import org.spin.eca56.util.support.DictionaryDocument;
+
+/**
+ * 	Change of a role access (grant or revoke) sent on role channel with the key of role document.
+ * 	The same key is not enough for keep the order, the events and snapshots of a role are sent one by one from
+ * 	a lane of {@link org.spin.eca56.util.queue.RoleAccessEvents}
+ * 	@author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class RoleAccessDelta extends DictionaryDocument {
+
+	/**	Full role document	*/
+	public static final String EVENT_TYPE_SNAPSHOT = "snapshot";
+	/**	Access added or activated	*/
+	public static final String EVENT_TYPE_GRANT = "grant";
+	/**	Access removed or inactivated	*/
+	public static final String EVENT_TYPE_REVOKE = "revoke";
+
+	/**	Grant or Revoke	*/
+	private String eventType;
+	/**	Access list changed: window_access, process_access, form_access, browser_access or workflow_access	*/
+	private String accessType;
+	/**	UUID of window, process, form, browser or workflow	*/
+	private String accessUuid;
+
+	private RoleAccessDelta() {
+		super();
+	}
+
+	/**
+	 * Default instance
+	 * @return
+	 */
+	public static RoleAccessDelta newInstance() {
+		return new RoleAccessDelta();
+	}
+
+	public RoleAccessDelta withEventType(String eventType) {
+		this.eventType = eventType;
+		return this;
+	}
+
+	public RoleAccessDelta withAccess(String accessType, String accessUuid) {
+		this.accessType = accessType;
+		this.accessUuid = accessUuid;
+		return this;
+	}
+
+	public String getEventType() {
+		return eventType;
+	}
+
+	public String getAccessType() {
+		return accessType;
+	}
+
+	public String getAccessUuid() {
+		return accessUuid;
+	}
+
+	@Override
+	public DictionaryDocument withEntity(PO entity) {
+		MRole role = (MRole) entity;
+		Map<String, Object> detail = new HashMap<>();
+		detail.put("internal_id", role.getAD_Role_ID());
+		detail.put("id", role.getUUID());
+		detail.put("uuid", role.getUUID());
+		detail.put("event_type", getEventType());
+		detail.put("access_type", getAccessType());
+		detail.put("access_uuid", getAccessUuid());
+		putDocument(detail);
+		return this;
+	}
+
+	@Override
+	public String getLanguage() {
+		return null;
+	}
+
+	@Override
+	public String getChannel() {
+		return Role.CHANNEL;
+	}
+
+	@Override
+	public String toString() {
+		return "RoleAccessDelta [eventType=" + eventType + ", accessType=" + accessType + ", accessUuid=" + accessUuid + "]";
+	}
+}
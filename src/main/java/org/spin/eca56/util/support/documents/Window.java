@@ -26,7 +26,6 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-import org.adempiere.core.domains.models.I_AD_Element;
 import org.adempiere.core.domains.models.I_AD_Field;
 import org.adempiere.core.domains.models.I_AD_Process;
 import org.adempiere.core.domains.models.I_AD_Tab;
@@ -40,9 +39,9 @@ import org.compiere.model.MTab;
 import org.compiere.model.MTable;
 import org.compiere.model.MWindow;
 import org.compiere.model.PO;
-import org.compiere.model.Query;
 import org.compiere.wf.MWorkflow;
 import org.spin.eca56.util.support.DictionaryDocument;
+import org.spin.eca56.util.support.DocumentBuilderPool;
 
 /**
  * 	the document class for Window senders
@@ -50,15 +49,17 @@ import org.spin.eca56.util.support.DictionaryDocument;
  */
 public class Window extends DictionaryDocument {
 
-	//	Some default documents key
-	public static final String KEY = "new";
+	/**	Constant key used before entity keys, see {@link #getKey(String)}	*/
+	@Deprecated
+	public static final String KEY = LEGACY_KEY;
 	public static final String CHANNEL = "window";
-	
-	@Override
-	public String getKey() {
-		return KEY;
-	}
-	
+	/**	Sub document type for processes of tabs and fields	*/
+	private static final String PROCESS_REFERENCE = "window_process";
+	/**	Dependent fields of window	*/
+	private DependenceIndex dependenceIndex;
+	/**	Tabs, fields, columns and processes of window	*/
+	private WindowMetadata metadata;
+
 	@Override
 	public DictionaryDocument withEntity(PO entity) {
 		MWindow window = (MWindow) entity;
@@ -66,43 +67,31 @@ public class Window extends DictionaryDocument {
 		documentDetail.put("internal_id", window.getAD_Window_ID());
 		documentDetail.put("id", window.getUUID());
 		documentDetail.put("uuid", window.getUUID());
-		documentDetail.put("name", window.get_Translation(I_AD_Window.COLUMNNAME_Name, getLanguage()));
-		documentDetail.put("description", window.get_Translation(I_AD_Window.COLUMNNAME_Description, getLanguage()));
-		documentDetail.put("help", window.get_Translation(I_AD_Window.COLUMNNAME_Help, getLanguage()));
+		documentDetail.put("name", translate(window, I_AD_Window.COLUMNNAME_Name));
+		documentDetail.put("description", translate(window, I_AD_Window.COLUMNNAME_Description));
+		documentDetail.put("help", translate(window, I_AD_Window.COLUMNNAME_Help));
 		documentDetail.put("window_type", window.getWindowType());
 		documentDetail.put("is_sales_transaction", window.isSOTrx());
 		documentDetail.put("is_active", window.isActive());
 		documentDetail.put("is_beta_functionality", window.isBetaFunctionality());
 
 		//	Tabs
-		documentDetail.put("tabs", convertTabs(Arrays.asList(window.getTabs(false, null))));
+		metadata = WindowMetadata.newInstance(window);
+		dependenceIndex = DependenceUtil.getWindowIndex(metadata);
+		documentDetail.put("tabs", convertTabs(metadata.getTabs()));
 		putDocument(documentDetail);
 		return this;
 	}
 
-	private Map<String, Object> parseDictionaryEntity(PO entity) {
-		Map<String, Object> documentEntity = new HashMap<>();
-		documentEntity.put("internal_id", entity.get_ID());
-		documentEntity.put("id", entity.get_UUID());
-		documentEntity.put("uuid", entity.get_UUID());
-		documentEntity.put("name", entity.get_Translation(I_AD_Element.COLUMNNAME_Name, getLanguage()));
-		documentEntity.put("description", entity.get_Translation(I_AD_Element.COLUMNNAME_Description, getLanguage()));
-		documentEntity.put("help", entity.get_Translation(I_AD_Element.COLUMNNAME_Help, getLanguage()));
-		return documentEntity;
-	}
-
 	private List<Map<String, Object>> convertTabs(List<MTab> tabs) {
-		List<Map<String, Object>> tabsDetail = new ArrayList<>();
 		if(tabs == null || tabs.isEmpty()) {
-			return tabsDetail;
+			return new ArrayList<>();
 		}
-		tabs.forEach(tab -> {
-			if (!tab.isActive()) {
-				return;
-			}
-			tabsDetail.add(parseTab(tab));
-		});
-		return tabsDetail;
+		List<MTab> activeTabs = tabs.stream()
+			.filter(tab -> tab.isActive())
+			.collect(Collectors.toList())
+		;
+		return DocumentBuilderPool.getInstance().map(activeTabs, this::parseTab);
 	}
 
 	private Map<String, Object> parseTab(MTab tab) {
@@ -110,14 +99,14 @@ public class Window extends DictionaryDocument {
 		detail.put("internal_id", tab.getAD_Tab_ID());
 		detail.put("id", tab.getUUID());
 		detail.put("uuid", tab.getUUID());
-		detail.put("name", tab.get_Translation(I_AD_Tab.COLUMNNAME_Name, getLanguage()));
-		detail.put("description", tab.get_Translation(I_AD_Tab.COLUMNNAME_Description, getLanguage()));
-		detail.put("help", tab.get_Translation(I_AD_Tab.COLUMNNAME_Help, getLanguage()));
+		detail.put("name", translate(tab, I_AD_Tab.COLUMNNAME_Name));
+		detail.put("description", translate(tab, I_AD_Tab.COLUMNNAME_Description));
+		detail.put("help", translate(tab, I_AD_Tab.COLUMNNAME_Help));
 		detail.put("is_active", tab.isActive());
 
 		// Record attributes
 		detail.put("is_insert_record", tab.isInsertRecord());
-		detail.put("commit_warning", tab.get_Translation(I_AD_Tab.COLUMNNAME_CommitWarning, getLanguage()));
+		detail.put("commit_warning", translate(tab, I_AD_Tab.COLUMNNAME_CommitWarning));
 		// Attributes
 		detail.put("display_logic", tab.getDisplayLogic());
 		detail.put("sequence", tab.getSeqNo());
@@ -148,10 +137,22 @@ public class Window extends DictionaryDocument {
 		tableDetil.put("is_document", table.isDocument());
 		tableDetil.put("is_deleteable", table.isDeleteable());
 		tableDetil.put("is_change_log", table.isChangeLog());
-		List<String> identifierColumns = table.getColumnsAsList(false).stream()
-			.filter(column -> {
-				return column.isIdentifier();
-			})
+		List<MColumn> tableColumns = metadata.getColumns(table.getAD_Table_ID());
+		List<MColumn> identifiers = new ArrayList<>();
+		List<String> selectionColums = new ArrayList<>();
+		MColumn parentColumn = null;
+		for (MColumn column : tableColumns) {
+			if (column.isIdentifier()) {
+				identifiers.add(column);
+			}
+			if (column.isSelectionColumn()) {
+				selectionColums.add(column.getColumnName());
+			}
+			if (parentColumn == null && column.isParent()) {
+				parentColumn = column;
+			}
+		}
+		List<String> identifierColumns = identifiers.stream()
 			.sorted(Comparator.comparing(MColumn::getSeqNo))
 			.map(column -> {
 				return column.getColumnName();
@@ -159,15 +160,6 @@ public class Window extends DictionaryDocument {
 			.collect(Collectors.toList())
 		;
 		tableDetil.put("identifier_columns", identifierColumns);
-		List<String> selectionColums = table.getColumnsAsList(false).stream()
-			.filter(column -> {
-				return column.isSelectionColumn();
-			})
-			.map(column -> {
-				return column.getColumnName();
-			})
-			.collect(Collectors.toList())
-		;
 		tableDetil.put("selection_colums", selectionColums);
 		detail.put("table", tableDetil);
 
@@ -182,7 +174,7 @@ public class Window extends DictionaryDocument {
 
 		//	Parent Link Column Name
 		if(tab.getParent_Column_ID() > 0) {
-			MColumn column = MColumn.get(tab.getCtx(), tab.getParent_Column_ID());
+			MColumn column = metadata.getColumn(tab.getParent_Column_ID());
 			detail.put("parent_column_name", column.getColumnName());
 			if (!contextColumnsList.contains(column.getColumnName())) {
 				contextColumnsList.add(
@@ -193,7 +185,7 @@ public class Window extends DictionaryDocument {
 
 		//	Link Column Name
 		if(tab.getAD_Column_ID() > 0) {
-			MColumn column = MColumn.get(tab.getCtx(), tab.getAD_Column_ID());
+			MColumn column = metadata.getColumn(tab.getAD_Column_ID());
 			detail.put("link_column_name", column.getColumnName());
 			if (!contextColumnsList.contains(column.getColumnName())) {
 				contextColumnsList.add(
@@ -204,7 +196,7 @@ public class Window extends DictionaryDocument {
 
 		// Add parent columns
 		if (tab.getTabLevel() > 0) {
-			for (MColumn column: table.getColumns(false)) {
+			for (MColumn column: tableColumns) {
 				if (column.isParent() && !contextColumnsList.contains(column.getColumnName())) {
 					contextColumnsList.add(
 						column.getColumnName()
@@ -220,35 +212,19 @@ public class Window extends DictionaryDocument {
 		if (tab.isSortTab()) {
 			//	Sort Column
 			if(tab.getAD_ColumnSortOrder_ID() > 0) {
-				MColumn column = MColumn.get(tab.getCtx(), tab.getAD_ColumnSortOrder_ID());
+				MColumn column = metadata.getColumn(tab.getAD_ColumnSortOrder_ID());
 				detail.put("sort_order_column_name", column.getColumnName());
 			}
 			//	Sort Yes / No
 			if(tab.getAD_ColumnSortYesNo_ID() > 0) {
-				MColumn column = MColumn.get(tab.getCtx(), tab.getAD_ColumnSortYesNo_ID());
+				MColumn column = metadata.getColumn(tab.getAD_ColumnSortYesNo_ID());
 				detail.put("sort_yes_no_column_name", column.getColumnName());
 			}
 
 			//	Parent Column from parent tab
-			MTab parentTab = new Query(
-				tab.getCtx(),
-				I_AD_Tab.Table_Name,
-				"AD_Window_ID = ? AND AD_Table_ID = ? AND IsSortTab = ?",
-				null
-			)
-				.setParameters(tab.getAD_Window_ID(), table.getAD_Table_ID(), false)
-				.first()
-			;
+			MTab parentTab = metadata.getParentTab(tab);
 			if (parentTab != null && parentTab.getAD_Tab_ID() > 0) {
 				// is same table and columns
-				List<MColumn> columnsList = table.getColumnsAsList();
-				MColumn parentColumn = columnsList.parallelStream()
-					.filter(column -> {
-						return column.isParent();
-					})
-					.findFirst()
-					.orElse(null)
-				;
 				if (parentColumn != null && parentColumn.getAD_Column_ID() > 0) {
 					detail.put("filter_column_name", parentColumn.getColumnName());
 				}
@@ -266,7 +242,7 @@ public class Window extends DictionaryDocument {
 				detail.put("process", referenceDetail);
 			}
 		}
-		List<MProcess> processesList = getProcessFromTab(tab);
+		List<MProcess> processesList = metadata.getProcesses(tab.getAD_Tab_ID());
 		detail.put("processes", convertProcesses(
 				processesList
 			)
@@ -280,17 +256,7 @@ public class Window extends DictionaryDocument {
 		);
 
 		//	Fields
-		List<MField> fields = new Query(
-			tab.getCtx(),
-			I_AD_Field.Table_Name,
-			I_AD_Field.COLUMNNAME_AD_Tab_ID + "=?",
-			null
-		)
-			.setParameters(tab.getAD_Tab_ID())
-			.setOnlyActiveRecords(true)
-			.setOrderBy(I_AD_Field.COLUMNNAME_SeqNo)
-			.list()
-		;
+		List<MField> fields = metadata.getFields(tab.getAD_Tab_ID());
 		detail.put("fields", convertFields(fields));
 		// detail.put("row_fields", convertFields(fields.stream().filter(field -> field.isDisplayed()).collect(Collectors.toList())));
 		// detail.put("grid_fields", convertFields(fields.stream().filter(field -> field.isDisplayedGrid()).collect(Collectors.toList())));
@@ -298,76 +264,31 @@ public class Window extends DictionaryDocument {
 		return detail;
 	}
 
-	private List<MProcess> getProcessFromTab(MTab tab) {
-		final String whereClause = "IsActive = 'Y' AND ("
-				// first process on tab
-				+ "AD_Process_ID = ? " // #1
-				// process on column
-				+ "OR EXISTS("
-					+ "SELECT 1 FROM AD_Field f "
-					+ "INNER JOIN AD_Column c ON(c.AD_Column_ID = f.AD_Column_ID) "
-					+ "WHERE c.AD_Process_ID = AD_Process.AD_Process_ID "
-					+ "AND f.IsDisplayed = 'Y' "
-					+ "AND f.AD_Tab_ID = ? " // #2
-					+ "AND f.IsActive = 'Y'"
-				+ ") "
-				// process on table
-				+ "OR EXISTS("
-					+ "SELECT 1 FROM AD_Table_Process AS tp "
-					+ "WHERE tp.AD_Process_ID = AD_Process.AD_Process_ID "
-					+ "AND tp.AD_Table_ID = ? " // #3
-					+ "AND tp.IsActive = 'Y'"
-				+ ")"
-			+ ")"
-		;
-
-		List<Object> filterList = new ArrayList<>();
-		filterList.add(tab.getAD_Process_ID());
-		filterList.add(tab.getAD_Tab_ID());
-		filterList.add(tab.getAD_Table_ID());
-
-		return new Query(
-			tab.getCtx(),
-			I_AD_Process.Table_Name,
-			whereClause,
-			null
-		)
-			.setParameters(filterList)
-			.list();
-	}
-	
 	private List<Map<String, Object>> convertFields(List<MField> fields) {
-		List<Map<String, Object>> fieldsDetail = new ArrayList<>();
-		if(fields == null) {
-			return fieldsDetail;
-		}
-		fields.forEach(field -> {
-			fieldsDetail.add(parseField(field));
-		});
-		return fieldsDetail;
+		return DocumentBuilderPool.getInstance().map(fields, this::parseField);
 	}
 	
 	private List<Map<String, Object>> convertProcesses(List<MProcess> processesList) {
-		List<Map<String, Object>> processesDetail = new ArrayList<>();
-		if(processesList == null || processesList.isEmpty()) {
-			return processesDetail;
-		}
-		processesList.parallelStream().forEach(process -> {
-			processesDetail.add(
-				parseProcess(process)
-			);
-		});
-		return processesDetail;
+		return DocumentBuilderPool.getInstance().map(processesList, this::parseProcess);
 	}
 	
+	/**
+	 * Get process of tab or field, it is built once by export
+	 * @param process
+	 * @return
+	 */
 	private Map<String, Object> parseProcess(MProcess process) {
+		return getSubDocument(PROCESS_REFERENCE, process.getAD_Process_ID(), () -> convertProcess(process));
+	}
+
+	private Map<String, Object> convertProcess(MProcess process) {
 		Map<String, Object> detail = new HashMap<>();
 		detail.put("internal_id", process.getAD_Process_ID());
 		detail.put("id", process.getUUID());
 		detail.put("uuid", process.getUUID());
-		detail.put("name", process.get_Translation(I_AD_Process.COLUMNNAME_Name, getLanguage()));
-		detail.put("description", process.get_Translation(I_AD_Process.COLUMNNAME_Description, getLanguage()));
-		detail.put("help", process.get_Translation(I_AD_Process.COLUMNNAME_Help, getLanguage()));
+		detail.put("name", translate(process, I_AD_Process.COLUMNNAME_Name));
+		detail.put("description", translate(process, I_AD_Process.COLUMNNAME_Description));
+		detail.put("help", translate(process, I_AD_Process.COLUMNNAME_Help));
 		detail.put("is_report", process.isReport());
 
 		boolean isMultiSelection = false;
@@ -398,9 +319,9 @@ public class Window extends DictionaryDocument {
 		detail.put("internal_id", field.getAD_Field_ID());
 		detail.put("id", field.getUUID());
 		detail.put("uuid", field.getUUID());
-		detail.put("name", field.get_Translation(I_AD_Field.COLUMNNAME_Name, getLanguage()));
-		detail.put("description", field.get_Translation(I_AD_Field.COLUMNNAME_Description, getLanguage()));
-		detail.put("help", field.get_Translation(I_AD_Field.COLUMNNAME_Help, getLanguage()));
+		detail.put("name", translate(field, I_AD_Field.COLUMNNAME_Name));
+		detail.put("description", translate(field, I_AD_Field.COLUMNNAME_Description));
+		detail.put("help", translate(field, I_AD_Field.COLUMNNAME_Help));
 		detail.put("is_active", field.isActive());
 
 		//
@@ -410,7 +331,7 @@ public class Window extends DictionaryDocument {
 		detail.put("is_quick_entry", field.isQuickEntry());
 
 		//	Column Properties
-		MColumn column = MColumn.get(field.getCtx(), field.getAD_Column_ID());
+		MColumn column = metadata.getColumn(field.getAD_Column_ID());
 		detail.put("column_name", column.getColumnName());
 		detail.put("column_sql", column.getColumnSQL());
 		detail.put("is_key", column.isKey());
@@ -488,7 +409,7 @@ public class Window extends DictionaryDocument {
 				Optional.ofNullable(field.getDefaultValue()).orElse(column.getDefaultValue())
 			)
 		);
-		List<Map<String, Object>> dependentFieldsList = DependenceUtil.generateDependentWindowFields(field);
+		List<Map<String, Object>> dependentFieldsList = DependenceUtil.generateDependentWindowFields(field, dependenceIndex);
 		detail.put("dependent_fields", dependentFieldsList);
 		detail.put("process_id", column.getAD_Process_ID());
 		if (column.getAD_Process_ID() > 0) {
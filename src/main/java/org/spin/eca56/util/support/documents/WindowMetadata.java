@@ -0,0 +1,245 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 or later of the                                  *
+ * GNU General Public License as published                                    *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-2023 E.R.P. Consultores y Asociados, C.A.               *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpya.com                                  *
+ *****************************************************************************/
+package org.spin.eca56.util.support.documents;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.adempiere.core.domains.models.I_AD_Column;
+import org.adempiere.core.domains.models.I_AD_Field;
+import org.adempiere.core.domains.models.I_AD_Process;
+import org.compiere.model.MColumn;
+import org.compiere.model.MField;
+import org.compiere.model.MProcess;
+import org.compiere.model.MTab;
+import org.compiere.model.MWindow;
+import org.compiere.model.Query;
+import org.compiere.util.CLogger;
+import org.compiere.util.DB;
+
+/**
+ * 	Definition of a window loaded with a fixed number of queries: all columns of tables, all active fields
+ * 	and all processes of tabs (process of tab, process of displayed columns and processes of table).
+ * 	The window builder read it from memory instead of run queries for each tab and field
+ * 	@author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class WindowMetadata {
+
+	/**	Logger	*/
+	private static CLogger log = CLogger.getCLogger(WindowMetadata.class);
+	/**	Processes by tab (tab process, process of displayed column and process of table)	*/
+	private static final String SQL_TAB_PROCESSES = "SELECT t.AD_Tab_ID, t.AD_Process_ID "
+			+ "FROM AD_Tab t "
+			+ "WHERE t.AD_Window_ID = ? "
+			+ "AND t.AD_Process_ID > 0 "
+			+ "UNION "
+			+ "SELECT f.AD_Tab_ID, c.AD_Process_ID "
+			+ "FROM AD_Field f "
+			+ "INNER JOIN AD_Tab t ON(t.AD_Tab_ID = f.AD_Tab_ID) "
+			+ "INNER JOIN AD_Column c ON(c.AD_Column_ID = f.AD_Column_ID) "
+			+ "WHERE t.AD_Window_ID = ? "
+			+ "AND c.AD_Process_ID > 0 "
+			+ "AND f.IsDisplayed = 'Y' "
+			+ "AND f.IsActive = 'Y' "
+			+ "UNION "
+			+ "SELECT t.AD_Tab_ID, tp.AD_Process_ID "
+			+ "FROM AD_Tab t "
+			+ "INNER JOIN AD_Table_Process tp ON(tp.AD_Table_ID = t.AD_Table_ID) "
+			+ "WHERE t.AD_Window_ID = ? "
+			+ "AND tp.IsActive = 'Y'";
+
+	/**	Window	*/
+	private final MWindow window;
+	/**	All tabs	*/
+	private final List<MTab> tabs;
+	/**	Active fields by tab, ordered by sequence	*/
+	private final Map<Integer, List<MField>> fieldsByTab = new HashMap<>();
+	/**	Columns of tables by ID	*/
+	private final Map<Integer, MColumn> columns = new HashMap<>();
+	/**	Active columns by table, ordered by column name	*/
+	private final Map<Integer, List<MColumn>> columnsByTable = new HashMap<>();
+	/**	Active processes by tab	*/
+	private final Map<Integer, List<MProcess>> processesByTab = new HashMap<>();
+
+	private WindowMetadata(MWindow window) {
+		this.window = window;
+		MTab[] tabs = window.getTabs(false, null);
+		this.tabs = tabs == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(tabs));
+		loadColumns();
+		loadFields();
+		loadProcesses();
+	}
+
+	/**
+	 * Load all definition of window
+	 * @param window
+	 * @return
+	 */
+	public static WindowMetadata newInstance(MWindow window) {
+		return new WindowMetadata(window);
+	}
+
+	/**
+	 * Load columns of all tables used by tabs
+	 */
+	private void loadColumns() {
+		new Query(
+			window.getCtx(),
+			I_AD_Column.Table_Name,
+			"AD_Table_ID IN(SELECT t.AD_Table_ID FROM AD_Tab t WHERE t.AD_Window_ID = ?)",
+			null
+		)
+			.setParameters(window.getAD_Window_ID())
+			.setOrderBy(I_AD_Column.COLUMNNAME_AD_Table_ID + ", " + I_AD_Column.COLUMNNAME_ColumnName)
+			.<MColumn>list()
+			.forEach(column -> {
+				columns.put(column.getAD_Column_ID(), column);
+				if(column.isActive()) {
+					columnsByTable.computeIfAbsent(column.getAD_Table_ID(), key -> new ArrayList<>()).add(column);
+				}
+			});
+	}
+
+	/**
+	 * Load active fields of all tabs
+	 */
+	private void loadFields() {
+		new Query(
+			window.getCtx(),
+			I_AD_Field.Table_Name,
+			"EXISTS(SELECT 1 FROM AD_Tab t WHERE t.AD_Tab_ID = AD_Field.AD_Tab_ID AND t.AD_Window_ID = ?)",
+			null
+		)
+			.setParameters(window.getAD_Window_ID())
+			.setOnlyActiveRecords(true)
+			.setOrderBy(I_AD_Field.COLUMNNAME_AD_Tab_ID + ", " + I_AD_Field.COLUMNNAME_SeqNo)
+			.<MField>list()
+			.forEach(field -> fieldsByTab.computeIfAbsent(field.getAD_Tab_ID(), key -> new ArrayList<>()).add(field));
+	}
+
+	/**
+	 * Load processes of all tabs
+	 */
+	private void loadProcesses() {
+		Map<Integer, Set<Integer>> processIdsByTab = new HashMap<>();
+		Set<Integer> processIds = new LinkedHashSet<>();
+		int windowId = window.getAD_Window_ID();
+		DB.runResultSet(null, SQL_TAB_PROCESSES, List.of(windowId, windowId, windowId), resultSet -> {
+			while (resultSet.next()) {
+				int processId = resultSet.getInt(2);
+				processIdsByTab.computeIfAbsent(resultSet.getInt(1), key -> new LinkedHashSet<>()).add(processId);
+				processIds.add(processId);
+			}
+		}).onFailure(throwable -> log.warning("Processes of window " + windowId + " are not loaded: " + throwable.getLocalizedMessage()));
+		if(processIds.isEmpty()) {
+			return;
+		}
+		Map<Integer, MProcess> processes = new HashMap<>();
+		new Query(
+			window.getCtx(),
+			I_AD_Process.Table_Name,
+			"AD_Process_ID IN(" + processIds.stream().map(processId -> "?").collect(Collectors.joining(",")) + ")",
+			null
+		)
+			.setParameters(new ArrayList<Object>(processIds))
+			.setOnlyActiveRecords(true)
+			.<MProcess>list()
+			.forEach(process -> processes.put(process.getAD_Process_ID(), process));
+		processIdsByTab.forEach((tabId, tabProcessIds) -> {
+			List<MProcess> tabProcesses = tabProcessIds.stream()
+				.sorted()
+				.map(processes::get)
+				.filter(process -> process != null)
+				.collect(Collectors.toList())
+			;
+			processesByTab.put(tabId, tabProcesses);
+		});
+	}
+
+	public MWindow getWindow() {
+		return window;
+	}
+
+	/**
+	 * Get all tabs (active and inactive) ordered by sequence
+	 * @return
+	 */
+	public List<MTab> getTabs() {
+		return tabs;
+	}
+
+	/**
+	 * Get active fields of tab ordered by sequence
+	 * @param tabId
+	 * @return
+	 */
+	public List<MField> getFields(int tabId) {
+		return fieldsByTab.getOrDefault(tabId, Collections.emptyList());
+	}
+
+	/**
+	 * Get a column, if it is not of a table of window then it is loaded from cache
+	 * @param columnId
+	 * @return
+	 */
+	public MColumn getColumn(int columnId) {
+		MColumn column = columns.get(columnId);
+		if(column == null) {
+			column = MColumn.get(window.getCtx(), columnId);
+		}
+		return column;
+	}
+
+	/**
+	 * Get active columns of a table used by tabs, ordered by column name
+	 * @param tableId
+	 * @return
+	 */
+	public List<MColumn> getColumns(int tableId) {
+		return columnsByTable.getOrDefault(tableId, Collections.emptyList());
+	}
+
+	/**
+	 * Get active processes of tab
+	 * @param tabId
+	 * @return
+	 */
+	public List<MProcess> getProcesses(int tabId) {
+		return processesByTab.getOrDefault(tabId, Collections.emptyList());
+	}
+
+	/**
+	 * Get first tab of same table that is not a sort tab, it is the parent of a sort tab
+	 * @param sortTab
+	 * @return tab or null
+	 */
+	public MTab getParentTab(MTab sortTab) {
+		return tabs.stream()
+			.filter(tab -> tab.getAD_Table_ID() == sortTab.getAD_Table_ID() && !tab.isSortTab())
+			.findFirst()
+			.orElse(null)
+		;
+	}
+}
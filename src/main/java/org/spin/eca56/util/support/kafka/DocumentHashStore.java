@@ -0,0 +1,185 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, C.A.                      *
+ * Contributor(s): Yamel Senih ysenih@erpya.com                                      *
+ * This program is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by              *
+ * the Free Software Foundation, either version 3 of the License, or                 *
+ * (at your option) any later version.                                               *
+ * This program is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of                    *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                     *
+ * GNU General Public License for more details.                                      *
+ * You should have received a copy of the GNU General Public License                 *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.            *
+ ************************************************************************************/
+package org.spin.eca56.util.support.kafka;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+import org.compiere.util.CLogger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * 	Store of last hash published by document (channel, entity, language and client), it is used for skip
+ * 	documents without changes. The hashes are kept in memory and saved to a file each few seconds,
+ * 	remove the file for publish all documents again
+ * 	@author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class DocumentHashStore {
+	/** Static Logger	*/
+	private static CLogger log = CLogger.getCLogger (DocumentHashStore.class);
+	/**	Stores by file	*/
+	private static final ConcurrentHashMap<String, DocumentHashStore> stores = new ConcurrentHashMap<>();
+	/**	Writer with sorted keys, used for a stable hash	*/
+	private static final ObjectWriter CANONICAL_WRITER = new ObjectMapper()
+			.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+			.writer();
+	/**	Save changes	*/
+	private static final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "ECA56-Document-Hash-Writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	static {
+		writer.scheduleWithFixedDelay(DocumentHashStore::saveAll, 5, 5, TimeUnit.SECONDS);
+		Runtime.getRuntime().addShutdownHook(new Thread(DocumentHashStore::saveAll, "ECA56-Document-Hash-Shutdown"));
+	}
+
+	/**	File	*/
+	private final Path file;
+	/**	Hash by document	*/
+	private final ConcurrentHashMap<String, String> hashes = new ConcurrentHashMap<>();
+	/**	Changed after last save	*/
+	private final AtomicBoolean changed = new AtomicBoolean();
+
+	private DocumentHashStore(Path file) {
+		this.file = file;
+		load();
+	}
+
+	/**
+	 * Get store for a file, it is shared by all senders of same file
+	 * @param fileName
+	 * @return
+	 */
+	public static DocumentHashStore getInstance(String fileName) {
+		Path file = Paths.get(fileName).toAbsolutePath().normalize();
+		return stores.computeIfAbsent(file.toString(), key -> new DocumentHashStore(file));
+	}
+
+	/**
+	 * Get a SHA-256 hash of values, the map keys are sorted before hash
+	 * @param values
+	 * @return
+	 */
+	public static String hash(Map<String, Object> values) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(CANONICAL_WRITER.writeValueAsBytes(values));
+			StringBuilder hash = new StringBuilder(digest.length * 2);
+			for(byte value : digest) {
+				hash.append(Character.forDigit((value >> 4) & 0xF, 16))
+					.append(Character.forDigit(value & 0xF, 16));
+			}
+			return hash.toString();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Verify if the hash is the last published for document
+	 * @param documentKey
+	 * @param hash
+	 * @return
+	 */
+	public boolean isPublished(String documentKey, String hash) {
+		return hash != null
+				&& hash.equals(hashes.get(documentKey));
+	}
+
+	/**
+	 * Set hash published for document, it must be called after broker acknowledge
+	 * @param documentKey
+	 * @param hash
+	 */
+	public void setPublished(String documentKey, String hash) {
+		String previous = hashes.put(documentKey, hash);
+		if(!hash.equals(previous)) {
+			changed.set(true);
+		}
+	}
+
+	/**
+	 * Remove all hashes, all documents are published again
+	 */
+	public void clear() {
+		hashes.clear();
+		changed.set(true);
+	}
+
+	/**
+	 * Load hashes from file
+	 */
+	private void load() {
+		if(!Files.exists(file)) {
+			return;
+		}
+		Properties properties = new Properties();
+		try (InputStream input = Files.newInputStream(file)) {
+			properties.load(input);
+			properties.forEach((key, value) -> hashes.put(String.valueOf(key), String.valueOf(value)));
+			log.fine("Document hashes loaded: " + hashes.size() + " from " + file);
+		} catch (Exception e) {
+			log.log(Level.WARNING, "Error loading " + file + ", all documents will be published", e);
+		}
+	}
+
+	/**
+	 * Save hashes if there are changes, the file is replaced after write a temporary file
+	 */
+	private void save() {
+		if(!changed.getAndSet(false)) {
+			return;
+		}
+		Properties properties = new Properties();
+		properties.putAll(hashes);
+		try {
+			if(file.getParent() != null) {
+				Files.createDirectories(file.getParent());
+			}
+			Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+			try (OutputStream output = Files.newOutputStream(temporaryFile)) {
+				properties.store(output, "Last published hash by document");
+			}
+			Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (Exception e) {
+			changed.set(true);
+			log.log(Level.WARNING, "Error saving " + file, e);
+		}
+	}
+
+	/**
+	 * Save all stores
+	 */
+	private static void saveAll() {
+		stores.values().forEach(DocumentHashStore::save);
+	}
+}
@@ -0,0 +1,177 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, C.A.                      *
+ * Contributor(s): Yamel Senih ysenih@erpya.com                                      *
+ * This program is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by              *
+ * the Free Software Foundation, either version 3 of the License, or                 *
+ * (at your option) any later version.                                               *
+ * This program is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of                    *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                     *
+ * GNU General Public License for more details.                                      *
+ * You should have received a copy of the GNU General Public License                 *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.            *
+ ************************************************************************************/
+package org.spin.eca56.util.support.kafka;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.compiere.util.CLogger;
+import org.compiere.util.Util;
+import org.spin.model.MADAppRegistration;
+
+/**
+ * 	Producer configuration read from App Registration parameters, a preset is selected with
+ * 	<code>producer.profile</code> and each value can be overwritten with <code>producer.[kafka property]</code>
+ * 	@author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class ProducerProfile {
+	/** Static Logger	*/
+	private static CLogger log = CLogger.getCLogger (ProducerProfile.class);
+	/**	Parameter for profile	*/
+	public static final String PROFILE = "producer.profile";
+	/**	Prefix for producer properties	*/
+	public static final String PREFIX = "producer.";
+	//	Profiles
+	/**	Same values used before profiles	*/
+	public static final String PROFILE_DEFAULT = "default";
+	/**	Large batches and compression	*/
+	public static final String PROFILE_THROUGHPUT = "throughput";
+	/**	Send as soon as possible	*/
+	public static final String PROFILE_LOW_LATENCY = "low-latency";
+	/**	Properties that can be overwritten	*/
+	private static final String[] NUMERIC_PROPERTIES = {
+		ProducerConfig.LINGER_MS_CONFIG,
+		ProducerConfig.BATCH_SIZE_CONFIG,
+		ProducerConfig.BUFFER_MEMORY_CONFIG,
+		ProducerConfig.MAX_BLOCK_MS_CONFIG,
+		ProducerConfig.MAX_REQUEST_SIZE_CONFIG,
+		ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG,
+		ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG,
+		ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION
+	};
+	private static final String[] TEXT_PROPERTIES = {
+		ProducerConfig.ACKS_CONFIG,
+		ProducerConfig.COMPRESSION_TYPE_CONFIG,
+		ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG
+	};
+	/**	Max requests in flight allowed by idempotent producer	*/
+	private static final int MAX_IDEMPOTENT_IN_FLIGHT = 5;
+	/**	Registration	*/
+	private final MADAppRegistration registration;
+
+	private ProducerProfile(MADAppRegistration registration) {
+		this.registration = registration;
+	}
+
+	/**
+	 * Default instance
+	 * @param registration
+	 * @return
+	 */
+	public static ProducerProfile newInstance(MADAppRegistration registration) {
+		return new ProducerProfile(registration);
+	}
+
+	/**
+	 * Get profile name
+	 * @return
+	 */
+	public String getProfile() {
+		String profile = getParameterValue(PROFILE);
+		if(Util.isEmpty(profile)) {
+			return PROFILE_DEFAULT;
+		}
+		return profile.toLowerCase();
+	}
+
+	/**
+	 * Get producer configuration for this profile
+	 * @return
+	 */
+	public Map<String, Object> getConfigs() {
+		Map<String, Object> configs = getPreset(getProfile());
+		for(String property : NUMERIC_PROPERTIES) {
+			String value = getParameterValue(PREFIX + property);
+			if(Util.isEmpty(value)) {
+				continue;
+			}
+			try {
+				//	Kafka parse the type from text
+				Long.parseLong(value);
+				configs.put(property, value);
+			} catch (NumberFormatException e) {
+				log.warning("Invalid value for " + PREFIX + property + ": " + value);
+			}
+		}
+		for(String property : TEXT_PROPERTIES) {
+			String value = getParameterValue(PREFIX + property);
+			if(!Util.isEmpty(value)) {
+				configs.put(property, value.toLowerCase());
+			}
+		}
+		//	Idempotence is only valid when all replicas acknowledge
+		Object acks = configs.get(ProducerConfig.ACKS_CONFIG);
+		if(!"all".equals(acks) && !"-1".equals(acks)) {
+			configs.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "false");
+		}
+		//	Idempotence keep the order only with 5 or less requests in flight, the producer fails with more
+		Object maxInFlight = configs.get(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION);
+		if("true".equals(String.valueOf(configs.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG)))
+				&& maxInFlight != null
+				&& Long.parseLong(String.valueOf(maxInFlight)) > MAX_IDEMPOTENT_IN_FLIGHT) {
+			log.warning(PREFIX + ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION + " = " + maxInFlight
+					+ " is not valid with " + ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG + ", using " + MAX_IDEMPOTENT_IN_FLIGHT);
+			configs.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, MAX_IDEMPOTENT_IN_FLIGHT);
+		}
+		return configs;
+	}
+
+	/**
+	 * Get preset values
+	 * @param profile
+	 * @return
+	 */
+	private Map<String, Object> getPreset(String profile) {
+		Map<String, Object> configs = new HashMap<>();
+		configs.put(ProducerConfig.ACKS_CONFIG, "all");
+		configs.put(ProducerConfig.MAX_REQUEST_SIZE_CONFIG, 1024 * 1024 * 3);
+		if(PROFILE_THROUGHPUT.equals(profile)) {
+			configs.put(ProducerConfig.LINGER_MS_CONFIG, 50);
+			configs.put(ProducerConfig.BATCH_SIZE_CONFIG, 256 * 1024);
+			configs.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+			configs.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 64L * 1024 * 1024);
+			configs.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+			configs.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+		} else if(PROFILE_LOW_LATENCY.equals(profile)) {
+			configs.put(ProducerConfig.ACKS_CONFIG, "1");
+			configs.put(ProducerConfig.LINGER_MS_CONFIG, 0);
+			configs.put(ProducerConfig.BATCH_SIZE_CONFIG, 16 * 1024);
+			configs.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "none");
+			configs.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "false");
+			configs.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 10 * 1000);
+		} else if(!PROFILE_DEFAULT.equals(profile)) {
+			log.warning("Unknown producer profile " + profile + ", using " + PROFILE_DEFAULT);
+		}
+		return configs;
+	}
+
+	/**
+	 * Get parameter value from registration
+	 * @param parameterName
+	 * @return
+	 */
+	private String getParameterValue(String parameterName) {
+		if(registration == null) {
+			return null;
+		}
+		String value = registration.getParameterValue(parameterName);
+		if(Util.isEmpty(value, true)) {
+			return null;
+		}
+		return value.trim();
+	}
+}
@@ -15,6 +15,7 @@
  ************************************************************************************/
 package org.spin.eca56.util.support.kafka;
 
+import java.nio.file.Paths;
 import java.util.Map;
 
 import org.adempiere.exceptions.AdempiereException;
@@ -24,7 +25,10 @@ import org.compiere.util.CLogger;
 import org.compiere.util.Env;
 import org.compiere.util.Util;
 import org.spin.eca56.util.support.IGenericSender;
+import org.spin.eca56.util.DocumentEncoding;
 import org.spin.eca56.util.KafkaLoader;
+import org.spin.eca56.util.TopicDefinition;
+import org.spin.eca56.util.support.IDeliveryListener;
 import org.spin.eca56.util.support.IGenericDocument;
 import org.spin.model.MADAppRegistration;
 
@@ -43,6 +47,24 @@ public class Sender implements IGenericSender {
 	private String defaultQueueName = null;
 	/**	Registration Id	*/
 	private int registrationId = 0;
+	/**	Registration	*/
+	private MADAppRegistration registration = null;
+	/**	Parameter for key strategy, can be defined by channel as key.strategy.[channel]	*/
+	public static final String KEY_STRATEGY = "key.strategy";
+	/**	Partitions for new topics or increase partitions of existing topics	*/
+	public static final String TOPIC_PARTITIONS = "topic.partitions";
+	/**	Replication factor for new topics	*/
+	public static final String TOPIC_REPLICATION_FACTOR = "topic.replication.factor";
+	/**	Compression type for new topics	*/
+	public static final String TOPIC_COMPRESSION_TYPE = "topic.compression.type";
+	/**	Cleanup policy for new topics	*/
+	public static final String TOPIC_CLEANUP_POLICY = "topic.cleanup.policy";
+	/**	Encoding of record value: json, smile or cbor	*/
+	public static final String VALUE_ENCODING = "value.encoding";
+	/**	Skip documents without changes since the last published: Y or N	*/
+	public static final String DELTA_SUPPRESSION = "delta.suppression";
+	/**	Folder for store the hash of published documents, default is [user home]/.eca56	*/
+	public static final String DELTA_STORE_PATH = "delta.store.path";
 	
 	/**
 	 * Validate connection
@@ -51,12 +73,145 @@ public class Sender implements IGenericSender {
 		if(getAppRegistrationId() <= 0) {
 			throw new AdempiereException("@AD_AppRegistration_ID@ @NotFound@");
 		}
-		MADAppRegistration registration = MADAppRegistration.getById(Env.getCtx(), getAppRegistrationId(), null);
+		registration = MADAppRegistration.getById(Env.getCtx(), getAppRegistrationId(), null);
 		defaultQueueName = registration.getValue().replaceAll("[^a-zA-Z0-9 -]", "").toLowerCase().trim();
 		port = registration.getPort();
 		host = registration.getHost();
 	}
 
+	/**
+	 * Get parameter value from registration, a value defined for channel (parameter.channel) has precedence
+	 * @param parameterName
+	 * @param channel
+	 * @return
+	 */
+	private String getParameterValue(String parameterName, String channel) {
+		if(registration == null) {
+			return null;
+		}
+		String value = null;
+		if(!Util.isEmpty(channel)) {
+			value = registration.getParameterValue(parameterName + "." + channel);
+		}
+		if(Util.isEmpty(value, true)) {
+			value = registration.getParameterValue(parameterName);
+		}
+		if(Util.isEmpty(value, true)) {
+			return null;
+		}
+		return value.trim();
+	}
+
+	/**
+	 * Get key strategy for channel, default is entity + language + client
+	 * @param channel
+	 * @return
+	 */
+	private String getKeyStrategy(String channel) {
+		String keyStrategy = getParameterValue(KEY_STRATEGY, channel);
+		if(Util.isEmpty(keyStrategy)) {
+			return IGenericDocument.KEY_STRATEGY_ENTITY_LANGUAGE_CLIENT;
+		}
+		return keyStrategy.toLowerCase();
+	}
+
+	/**
+	 * Get numeric parameter value, zero if it is not defined
+	 * @param parameterName
+	 * @param channel
+	 * @return
+	 */
+	private int getIntParameterValue(String parameterName, String channel) {
+		String value = getParameterValue(parameterName, channel);
+		if(Util.isEmpty(value)) {
+			return 0;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			log.warning("Invalid value for " + parameterName + ": " + value);
+		}
+		return 0;
+	}
+
+	/**
+	 * Get topic definition for channel from registration parameters
+	 * @param channel
+	 * @return
+	 */
+	private TopicDefinition getTopicDefinition(String channel) {
+		return TopicDefinition.newInstance(channel)
+				.withPartitions(getIntParameterValue(TOPIC_PARTITIONS, channel))
+				.withReplicationFactor((short) getIntParameterValue(TOPIC_REPLICATION_FACTOR, channel))
+				.withCompressionType(getParameterValue(TOPIC_COMPRESSION_TYPE, channel))
+				.withCleanupPolicy(getParameterValue(TOPIC_CLEANUP_POLICY, channel));
+	}
+
+	/**
+	 * Get encoding of values for channel, default is JSON
+	 * @param channel
+	 * @return
+	 */
+	private DocumentEncoding getValueEncoding(String channel) {
+		String value = getParameterValue(VALUE_ENCODING, channel);
+		if(Util.isEmpty(value)) {
+			return DocumentEncoding.JSON;
+		}
+		DocumentEncoding encoding = DocumentEncoding.fromName(value);
+		if(encoding == null) {
+			throw new AdempiereException("@" + VALUE_ENCODING + "@ @NotFound@: " + value);
+		}
+		return encoding;
+	}
+
+	/**
+	 * Get store of published hashes if the delta suppression is enabled for channel
+	 * @param channel
+	 * @return store or null
+	 */
+	private DocumentHashStore getHashStore(String channel) {
+		String value = getParameterValue(DELTA_SUPPRESSION, channel);
+		if(!"Y".equalsIgnoreCase(value)
+				&& !"true".equalsIgnoreCase(value)) {
+			return null;
+		}
+		return DocumentHashStore.getInstance(getHashStoreFileName());
+	}
+
+	/**
+	 * Get file of published hashes for registration, the file is local of each server
+	 * @return
+	 */
+	private String getHashStoreFileName() {
+		String path = getParameterValue(DELTA_STORE_PATH, null);
+		if(Util.isEmpty(path)) {
+			path = Paths.get(System.getProperty("user.home"), ".eca56").toString();
+		}
+		return Paths.get(path, "document-hash-" + getAppRegistrationId() + ".properties").toString();
+	}
+
+	@Override
+	public void resetPublished() {
+		//	Also when delta suppression is disabled, the hashes are not valid after it is enabled again
+		DocumentHashStore.getInstance(getHashStoreFileName()).clear();
+	}
+
+	/**
+	 * Get bootstrap servers from registration
+	 * @return
+	 */
+	private String getBootstrapServers() {
+		return host + ":" + port;
+	}
+
+	/**
+	 * Get key for share producer between all senders of same registration
+	 * @return
+	 */
+	private String getClusterKey() {
+		return getAppRegistrationId() + "|" + getBootstrapServers();
+	}
+
 	@Override
 	public String testConnection() {
 		//	set time
@@ -76,22 +231,75 @@ public class Sender implements IGenericSender {
 		return registrationId;
 	}
 
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	@Override
 	public void send(IGenericDocument document, String channel) {
+		send(document, channel, null);
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Override
+	public void send(IGenericDocument document, String channel, IDeliveryListener listener) {
 		String topicName = channel;
 		if(Util.isEmpty(topicName)) {
 			topicName = defaultQueueName;
 		}
-		if(Util.isEmpty(document.getKey())) {
+		String key = document.getKey(getKeyStrategy(topicName));
+		if(Util.isEmpty(key)) {
 			throw new AdempiereException("@Key@ @NotFound@");
 		}
 		log.fine("Command to Send: " + document);
+		//	Skip documents without changes
+		final DocumentHashStore hashStore = getHashStore(topicName);
+		final String entityKey = document.getKey(IGenericDocument.KEY_STRATEGY_ENTITY_LANGUAGE_CLIENT);
+		final String documentKey = topicName + "|" + entityKey;
+		final String hash;
+		//	Documents without entity key can not be compared
+		if(hashStore != null
+				&& !IGenericDocument.LEGACY_KEY.equals(entityKey)) {
+			hash = DocumentHashStore.hash(document.getValues());
+			if(hashStore.isPublished(documentKey, hash)) {
+				log.fine("Document without changes: " + documentKey);
+				if(listener != null) {
+					listener.onDelivered(document);
+				}
+				return;
+			}
+		} else {
+			hash = null;
+		}
+		KafkaLoader loader = KafkaLoader.getInstance();
+		String clusterKey = getClusterKey();
 		try {
-			KafkaProducer producer = KafkaLoader.getInstance().getProducer(host + ":" + port, topicName);
-			final ProducerRecord record = new ProducerRecord<String, Map<String , Object>>(topicName, document.getKey(), document.getValues());
-			producer.send(record);
+			KafkaProducer producer = loader.acquireProducer(clusterKey, getBootstrapServers(), () -> ProducerProfile.newInstance(registration).getConfigs());
+			try {
+				loader.ensureTopic(getBootstrapServers(), getTopicDefinition(topicName));
+				final ProducerRecord record = new ProducerRecord<String, Map<String , Object>>(topicName, key, document.getValues());
+				record.headers().add(DocumentEncoding.HEADER, getValueEncoding(topicName).getHeaderValue());
+				if(listener == null
+						&& hash == null) {
+					producer.send(record);
+				} else {
+					producer.send(record, (metadata, exception) -> {
+						if(exception == null) {
+							if(hash != null) {
+								hashStore.setPublished(documentKey, hash);
+							}
+							if(listener != null) {
+								listener.onDelivered(document);
+							}
+						} else if(listener != null) {
+							listener.onFailed(document, exception);
+						}
+					});
+				}
+			} finally {
+				loader.releaseProducer(clusterKey);
+			}
 		} catch (Exception e) {
+			if(listener != null) {
+				listener.onFailed(document, e);
+				return;
+			}
 			throw new AdempiereException(e);
 		}
 	}
@@ -36,6 +36,11 @@ public class TestDocument implements IGenericDocument {
 		return KEY;
 	}
 
+	@Override
+	public String getKey(String keyStrategy) {
+		return KEY;
+	}
+
 	@Override
 	public Map<String, Object> getValues() {
 		Map<String, Object> document = new HashMap<>();
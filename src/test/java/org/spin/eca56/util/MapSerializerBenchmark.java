@@ -0,0 +1,181 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Allocation and time by document of {@link MapSerializer} compared with previous serialization
+ * (a new mapper and a text for each document), run it with <code>gradle benchmark</code>.
+ * The quantity of documents can be changed with <code>gradle benchmark -PbenchmarkDocuments=5000</code>
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+@Tag("benchmark")
+public class MapSerializerBenchmark {
+
+	/**	Documents by run	*/
+	private static final int DOCUMENTS = Integer.getInteger("eca56.benchmark.documents", 20000);
+	/**	Tabs of window	*/
+	private static final int TABS = 8;
+	/**	Fields by tab	*/
+	private static final int FIELDS = 40;
+
+	private com.sun.management.ThreadMXBean threadBean;
+	private final MapSerializer serializer = new MapSerializer();
+	private final Map<String, Object> document = createWindow(TABS, FIELDS);
+
+	@BeforeEach
+	public void setUp() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "Allocation counters are not supported");
+		threadBean = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threadBean.isThreadAllocatedMemorySupported(), "Allocation counters are not supported");
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	@Test
+	public void testAllocationByDocument(TestReporter reporter) {
+		Function<Map<String, Object>, byte[]> previous = data -> {
+			try {
+				return new ObjectMapper().writeValueAsString(data).getBytes();
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		};
+		Function<Map<String, Object>, byte[]> current = data -> serializer.serialize("benchmark", data);
+		reporter.publishEntry("Document size", current.apply(document).length + " bytes");
+		//	Warm up
+		run(previous, DOCUMENTS / 4);
+		run(current, DOCUMENTS / 4);
+		Result previousResult = run(previous, DOCUMENTS);
+		Result currentResult = run(current, DOCUMENTS);
+		reporter.publishEntry("Previous", previousResult.toString());
+		reporter.publishEntry("Current", currentResult.toString());
+		assertTrue(currentResult.allocatedBytes < previousResult.allocatedBytes, "Current: " + currentResult + ", Previous: " + previousResult);
+	}
+
+	@Test
+	public void testAllocationByEncoding(TestReporter reporter) {
+		for(DocumentEncoding encoding : DocumentEncoding.values()) {
+			Function<Map<String, Object>, byte[]> current = data -> serializer.serialize(encoding, data);
+			run(current, DOCUMENTS / 4);
+			reporter.publishEntry(encoding.getName(), run(current, DOCUMENTS / 4).toString());
+		}
+	}
+
+	/**
+	 * Serialize the document many times
+	 * @param serializer
+	 * @param documents
+	 * @return time and allocation by document
+	 */
+	private Result run(Function<Map<String, Object>, byte[]> serializer, int documents) {
+		long threadId = Thread.currentThread().getId();
+		long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+		long size = 0;
+		for(int count = 0; count < documents; count++) {
+			size += serializer.apply(document).length;
+		}
+		long time = System.nanoTime() - start;
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+		return new Result(time / documents, allocated / documents, size / documents);
+	}
+
+	/**
+	 * Create a document similar to a window of dictionary
+	 * @param tabs
+	 * @param fields
+	 * @return
+	 */
+	private static Map<String, Object> createWindow(int tabs, int fields) {
+		Map<String, Object> window = new HashMap<>();
+		window.put("uuid", "a47de0c8-fb40-11e8-a479-7a0060f0aa01");
+		window.put("name", "Sales Order");
+		window.put("description", "Enter and change sales orders");
+		window.put("help", "The Sales Order Window allows you to enter and maintain sales orders.");
+		window.put("window_type", "T");
+		window.put("is_sales_transaction", true);
+		List<Map<String, Object>> tabList = new ArrayList<>();
+		for(int tabIndex = 0; tabIndex < tabs; tabIndex++) {
+			Map<String, Object> tab = new HashMap<>();
+			tab.put("uuid", "tab-" + tabIndex);
+			tab.put("name", "Tab " + tabIndex);
+			tab.put("table_name", "C_Order" + tabIndex);
+			tab.put("sequence", tabIndex * 10);
+			tab.put("is_read_only", false);
+			tab.put("context_column_names", List.of("AD_Client_ID", "AD_Org_ID", "C_DocType_ID"));
+			List<Map<String, Object>> fieldList = new ArrayList<>();
+			for(int fieldIndex = 0; fieldIndex < fields; fieldIndex++) {
+				Map<String, Object> field = new HashMap<>();
+				field.put("uuid", "field-" + tabIndex + "-" + fieldIndex);
+				field.put("name", "Field " + fieldIndex);
+				field.put("description", "Description of field " + fieldIndex);
+				field.put("help", "Help of field " + fieldIndex + " used for explain the field to user");
+				field.put("column_name", "ColumnName" + fieldIndex);
+				field.put("display_type", 10 + fieldIndex % 20);
+				field.put("sequence", fieldIndex * 10);
+				field.put("is_displayed", true);
+				field.put("is_mandatory", fieldIndex % 3 == 0);
+				field.put("display_logic", "@IsSOTrx@=Y & @DocStatus@!CO");
+				field.put("default_value", "@#Date@");
+				field.put("dependent_fields", List.of(Map.of("column_name", "C_BPartner_ID", "parent_uuid", "tab-" + tabIndex)));
+				fieldList.add(field);
+			}
+			tab.put("fields", fieldList);
+			tabList.add(tab);
+		}
+		window.put("tabs", tabList);
+		return window;
+	}
+
+	/**
+	 * Values by document of a run
+	 */
+	private static final class Result {
+		private final long nanos;
+		private final long allocatedBytes;
+		private final long bytes;
+
+		private Result(long nanos, long allocatedBytes, long bytes) {
+			this.nanos = nanos;
+			this.allocatedBytes = allocatedBytes;
+			this.bytes = bytes;
+		}
+
+		@Override
+		public String toString() {
+			return (nanos / 1000) + " us/document, " + allocatedBytes + " allocated bytes/document, " + bytes + " bytes/document";
+		}
+	}
+}
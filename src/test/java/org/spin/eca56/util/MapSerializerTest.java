@@ -0,0 +1,102 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Serialization of documents with each encoding
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class MapSerializerTest {
+
+	private final MapSerializer serializer = new MapSerializer();
+	private final MapDeserializer deserializer = new MapDeserializer();
+
+	private Map<String, Object> getDocument(int fields) {
+		Map<String, Object> document = new LinkedHashMap<>();
+		document.put("id", 1000000);
+		document.put("name", "Sales Order \u00f1");
+		document.put("is_active", true);
+		List<Map<String, Object>> fieldsList = new ArrayList<>();
+		for(int index = 0; index < fields; index++) {
+			Map<String, Object> field = new LinkedHashMap<>();
+			field.put("sequence", index);
+			field.put("column_name", "Column_" + index);
+			field.put("display_logic", "@IsSOTrx@='Y' & @Processed@='N'");
+			fieldsList.add(field);
+		}
+		document.put("fields", fieldsList);
+		Map<String, Object> wrapper = new LinkedHashMap<>();
+		wrapper.put("document", document);
+		return wrapper;
+	}
+
+	@Test
+	public void testRoundTripWithAllEncodings() {
+		Map<String, Object> document = getDocument(20);
+		for(DocumentEncoding encoding : DocumentEncoding.values()) {
+			byte[] value = serializer.serialize(encoding, document);
+			assertEquals(document, deserializer.deserialize(encoding, value), encoding.getName());
+		}
+	}
+
+	@Test
+	public void testJsonIsUtf8() {
+		Map<String, Object> document = new LinkedHashMap<>();
+		document.put("name", "\u00f1");
+		assertArrayEquals("{\"name\":\"\u00f1\"}".getBytes(StandardCharsets.UTF_8), serializer.serialize("window", document));
+	}
+
+	@Test
+	public void testEncodingFromHeader() {
+		Map<String, Object> document = getDocument(2);
+		RecordHeaders headers = new RecordHeaders();
+		headers.add(DocumentEncoding.HEADER, DocumentEncoding.SMILE.getHeaderValue());
+		byte[] value = serializer.serialize("window", headers, document);
+		assertArrayEquals(serializer.serialize(DocumentEncoding.SMILE, document), value);
+		assertEquals(document, deserializer.deserialize("window", headers, value));
+	}
+
+	@Test
+	public void testBufferIsReusedAfterBigDocument() {
+		//	A document bigger than retained buffer, then a small document from same thread
+		Map<String, Object> big = getDocument(60000);
+		Map<String, Object> small = getDocument(1);
+		byte[] bigValue = serializer.serialize(DocumentEncoding.JSON, big);
+		byte[] smallValue = serializer.serialize(DocumentEncoding.JSON, small);
+		assertEquals(big, deserializer.deserialize(DocumentEncoding.JSON, bigValue));
+		assertEquals(small, deserializer.deserialize(DocumentEncoding.JSON, smallValue));
+		assertArrayEquals(smallValue, serializer.serialize(DocumentEncoding.JSON, small));
+	}
+
+	@Test
+	public void testNullDocument() {
+		assertNull(serializer.serialize(DocumentEncoding.JSON, null));
+	}
+}
@@ -0,0 +1,138 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Collapse of changes before add to queue
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class ChangeCoalescerTest {
+
+	/**	Short quiet period for tests	*/
+	private static final long QUIET_PERIOD = 100;
+	/**	Scheduler of coalescer	*/
+	private ScheduledExecutorService scheduler;
+	/**	Records added to queue	*/
+	private List<String> queued;
+	/**	Released when a record is added to queue	*/
+	private CountDownLatch flushed;
+
+	@BeforeEach
+	public void setUp() {
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		queued = new CopyOnWriteArrayList<>();
+		flushed = new CountDownLatch(1);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	/**
+	 * Coalescer that save the added records
+	 * @param maxDelay
+	 * @return
+	 */
+	private ChangeCoalescer newCoalescer(long maxDelay) {
+		return new ChangeCoalescer(scheduler, () -> QUIET_PERIOD, () -> maxDelay, (tableName, recordId) -> {
+			queued.add(tableName + "|" + recordId);
+			flushed.countDown();
+		});
+	}
+
+	@Test
+	public void testChangesOnQuietPeriodAreFlushedOnce() throws InterruptedException {
+		ChangeCoalescer coalescer = newCoalescer(10000);
+		coalescer.add("AD_Process", 100);
+		coalescer.add("AD_Process", 100);
+		assertEquals(1, coalescer.getPendingChanges());
+		assertTrue(flushed.await(5, TimeUnit.SECONDS));
+		//	The schedule of first change run after flush and it must not add the record again
+		Thread.sleep(QUIET_PERIOD * 3);
+		assertEquals(List.of("AD_Process|100"), queued);
+		assertEquals(0, coalescer.getPendingChanges());
+	}
+
+	@Test
+	public void testRecordsAreFlushedByItself() throws InterruptedException {
+		flushed = new CountDownLatch(2);
+		ChangeCoalescer coalescer = newCoalescer(10000);
+		coalescer.add("AD_Process", 100);
+		coalescer.add("AD_Form", 100);
+		assertTrue(flushed.await(5, TimeUnit.SECONDS));
+		Thread.sleep(QUIET_PERIOD * 3);
+		assertEquals(2, queued.size());
+		assertTrue(queued.contains("AD_Process|100"));
+		assertTrue(queued.contains("AD_Form|100"));
+	}
+
+	@Test
+	public void testFlushAllBeforeQuietPeriod() throws InterruptedException {
+		//	A change is not flushed by scheduler while it is waiting
+		ChangeCoalescer coalescer = new ChangeCoalescer(scheduler, () -> 60000, () -> 60000, (tableName, recordId) -> queued.add(tableName + "|" + recordId));
+		coalescer.add("AD_Process", 100);
+		coalescer.add("AD_Process", 100);
+		coalescer.flushAll();
+		assertEquals(List.of("AD_Process|100"), queued);
+		assertEquals(0, coalescer.getPendingChanges());
+	}
+
+	@Test
+	public void testDueAfterQuietPeriod() {
+		long firstChange = 1000;
+		assertEquals(3000, ChangeCoalescer.getDueTime(firstChange, 2000, firstChange + 10000));
+	}
+
+	@Test
+	public void testChangesMoveDueTime() {
+		long firstChange = 1000;
+		long maxTime = firstChange + 10000;
+		assertEquals(4500, ChangeCoalescer.getDueTime(2500, 2000, maxTime));
+		assertEquals(9000, ChangeCoalescer.getDueTime(7000, 2000, maxTime));
+	}
+
+	@Test
+	public void testNeverAfterMaxTime() {
+		long firstChange = 1000;
+		long maxTime = firstChange + 10000;
+		//	Changes without quiet period are sent at max time
+		assertEquals(maxTime, ChangeCoalescer.getDueTime(9500, 2000, maxTime));
+		assertEquals(maxTime, ChangeCoalescer.getDueTime(maxTime, 2000, maxTime));
+		assertEquals(maxTime, ChangeCoalescer.getDueTime(maxTime + 5000, 2000, maxTime));
+	}
+
+	@Test
+	public void testWithoutQuietPeriod() {
+		assertEquals(1000, ChangeCoalescer.getDueTime(1000, 0, 1000));
+		assertEquals(1500, ChangeCoalescer.getDueTime(1500, 0, 11000));
+	}
+}
@@ -0,0 +1,101 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.junit.jupiter.api.Test;
+import org.spin.eca56.util.support.IGenericDocument;
+import org.spin.eca56.util.support.kafka.TestDocument;
+
+/**
+ * Values of dead letter
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class DeadLetterDocumentTest {
+
+	/**
+	 * Document with a value of size
+	 * @param size
+	 * @return
+	 */
+	private static IGenericDocument newDocument(int size) {
+		return new TestDocument() {
+			@Override
+			public Map<String, Object> getValues() {
+				Map<String, Object> values = new HashMap<>();
+				values.put("description", "x".repeat(size));
+				return values;
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> getDetail(DeadLetterDocument deadLetter) {
+		return (Map<String, Object>) deadLetter.getValues().get("dead_letter");
+	}
+
+	@Test
+	public void testDocumentIncluded() {
+		DeadLetterDocument deadLetter = DeadLetterDocument.newInstance()
+			.withQueueId(10)
+			.withAttempts(3)
+			.withDocument(TestDocument.newInstance())
+			.withError(new AdempiereException("Broker not available"));
+		Map<String, Object> detail = getDetail(deadLetter);
+		assertEquals(10, detail.get("queue_id"));
+		assertEquals(3, detail.get("attempts"));
+		assertEquals("Test", detail.get("channel"));
+		assertEquals(TestDocument.KEY, detail.get("key"));
+		assertEquals(TestDocument.newInstance().getValues(), detail.get("document"));
+		assertFalse(detail.containsKey("is_document_omitted"));
+		assertEquals("Test" + DeadLetterDocument.CHANNEL_SUFFIX, deadLetter.getChannel());
+	}
+
+	@Test
+	public void testBigDocumentOmitted() {
+		DeadLetterDocument deadLetter = DeadLetterDocument.newInstance()
+			.withQueueId(11)
+			.withDocument(newDocument(DeadLetterDocument.MAX_DOCUMENT_SIZE))
+			.withError(new AdempiereException("The message is too large"));
+		Map<String, Object> detail = getDetail(deadLetter);
+		assertFalse(detail.containsKey("document"));
+		assertEquals(true, detail.get("is_document_omitted"));
+		assertTrue((Integer) detail.get("document_size") > DeadLetterDocument.MAX_DOCUMENT_SIZE);
+		//	Key and channel of failed document are kept
+		assertEquals(TestDocument.KEY, detail.get("key"));
+		assertEquals("Test", detail.get("channel"));
+		assertTrue(detail.containsKey("error"));
+	}
+
+	@Test
+	public void testWithoutDocument() {
+		DeadLetterDocument deadLetter = DeadLetterDocument.newInstance()
+			.withQueueId(12)
+			.withError(new AdempiereException("Entity not found"));
+		Map<String, Object> detail = getDetail(deadLetter);
+		assertEquals(DeadLetterDocument.DEFAULT_CHANNEL, detail.get("channel"));
+		assertEquals("12", deadLetter.getKey());
+		assertFalse(detail.containsKey("document"));
+	}
+}
@@ -0,0 +1,111 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Delay and attempts of retries
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class DeliveryRetryPolicyTest {
+
+	/**
+	 * Random with a fixed value
+	 * @param value
+	 * @return
+	 */
+	private static Random newRandom(double value) {
+		return new Random() {
+			private static final long serialVersionUID = 6137206148380183117L;
+
+			@Override
+			public double nextDouble() {
+				return value;
+			}
+		};
+	}
+
+	@Test
+	public void testRetries() {
+		DeliveryRetryPolicy policy = DeliveryRetryPolicy.newInstance(3, 1000, 60000);
+		assertTrue(policy.isRetry(1));
+		assertTrue(policy.isRetry(3));
+		assertFalse(policy.isRetry(4));
+		assertFalse(DeliveryRetryPolicy.newInstance(0, 1000, 60000).isRetry(1));
+	}
+
+	@Test
+	public void testInvalidValues() {
+		DeliveryRetryPolicy policy = DeliveryRetryPolicy.newInstance(-1, 0, 0);
+		assertEquals(0, policy.getMaxRetries());
+		assertEquals(1, policy.getMaxDelay());
+		assertEquals(1, policy.getDelay(1, newRandom(0.99)));
+		//	Max delay is never less than first delay
+		assertEquals(5000, DeliveryRetryPolicy.newInstance(5, 5000, 1000).getMaxDelay());
+	}
+
+	@Test
+	public void testDelayIsDoubled() {
+		DeliveryRetryPolicy policy = DeliveryRetryPolicy.newInstance(5, 1000, 60000);
+		Random max = newRandom(0.9999999);
+		assertEquals(1000, policy.getDelay(1, max));
+		assertEquals(2000, policy.getDelay(2, max));
+		assertEquals(4000, policy.getDelay(3, max));
+		assertEquals(32000, policy.getDelay(6, max));
+		assertEquals(60000, policy.getDelay(7, max));
+		//	First attempt for invalid attempt
+		assertEquals(1000, policy.getDelay(0, max));
+		//	Half of delay is random
+		Random min = newRandom(0);
+		assertEquals(500, policy.getDelay(1, min));
+		assertEquals(1000, policy.getDelay(2, min));
+		assertEquals(30000, policy.getDelay(7, min));
+	}
+
+	@Test
+	public void testMaxDelayForManyAttempts() {
+		DeliveryRetryPolicy policy = DeliveryRetryPolicy.newInstance(100, 1000, 60000);
+		Random max = newRandom(0.9999999);
+		//	The shift is never negative or zero
+		assertEquals(60000, policy.getDelay(31, max));
+		assertEquals(60000, policy.getDelay(64, max));
+		assertEquals(60000, policy.getDelay(Integer.MAX_VALUE, max));
+		//	Overflow of doubled delay is max delay
+		DeliveryRetryPolicy bigPolicy = DeliveryRetryPolicy.newInstance(100, Long.MAX_VALUE / 2 + 1, Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE / 2, bigPolicy.getDelay(2, newRandom(0)));
+	}
+
+	@Test
+	public void testDelayBetweenHalfAndDelay() {
+		DeliveryRetryPolicy policy = DeliveryRetryPolicy.newInstance(10, 100, 5000);
+		Random random = new Random(4321);
+		for(int attempt = 1; attempt <= 40; attempt++) {
+			long delay = Math.min(100L << Math.min(attempt - 1, 30), 5000);
+			for(int test = 0; test < 1000; test++) {
+				long value = policy.getDelay(attempt, random);
+				assertTrue(value >= delay / 2 && value <= delay, "Attempt " + attempt + ": " + value);
+			}
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Progress of an export saved for resume a run not completed
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class ExportCheckpointStoreTest {
+
+	@TempDir
+	Path folder;
+
+	private List<Path> getFiles() throws IOException {
+		try (Stream<Path> files = Files.list(folder)) {
+			return files.collect(Collectors.toList());
+		}
+	}
+
+	@Test
+	public void testNewRun() {
+		ExportCheckpointStore store = ExportCheckpointStore.newInstance("AD_Window|0|Y", folder);
+		assertFalse(store.isResumed());
+		assertEquals(-1, store.getCheckpoint("AD_Window"));
+	}
+
+	@Test
+	public void testResumeRun() throws IOException {
+		ExportCheckpointStore store = ExportCheckpointStore.newInstance("AD_Window|0|Y", folder);
+		store.setCheckpoint("AD_Window", 100);
+		store.setCheckpoint("AD_Process", 50);
+		store.setCheckpoint("AD_Window", 120);
+		assertEquals(1, getFiles().size());
+		ExportCheckpointStore resumed = ExportCheckpointStore.newInstance("AD_Window|0|Y", folder);
+		assertTrue(resumed.isResumed());
+		assertEquals(120, resumed.getCheckpoint("AD_Window"));
+		assertEquals(50, resumed.getCheckpoint("AD_Process"));
+		assertEquals(-1, resumed.getCheckpoint("AD_Form"));
+	}
+
+	@Test
+	public void testOtherRun() throws IOException {
+		ExportCheckpointStore.newInstance("AD_Window|0|Y", folder).setCheckpoint("AD_Window", 100);
+		ExportCheckpointStore other = ExportCheckpointStore.newInstance("AD_Window|11|Y", folder);
+		assertFalse(other.isResumed());
+		other.setCheckpoint("AD_Window", 10);
+		assertEquals(2, getFiles().size());
+		assertEquals(100, ExportCheckpointStore.newInstance("AD_Window|0|Y", folder).getCheckpoint("AD_Window"));
+	}
+
+	@Test
+	public void testFileOfOtherRunIgnored() throws IOException {
+		ExportCheckpointStore.newInstance("AD_Window|0|Y", folder).setCheckpoint("AD_Window", 100);
+		Path file = getFiles().get(0);
+		Files.write(file, "run.key=Other\nAD_Window=100\n".getBytes(StandardCharsets.ISO_8859_1));
+		assertFalse(ExportCheckpointStore.newInstance("AD_Window|0|Y", folder).isResumed());
+	}
+
+	@Test
+	public void testInvalidFileIgnored() throws IOException {
+		ExportCheckpointStore.newInstance("AD_Window|0|Y", folder).setCheckpoint("AD_Window", 100);
+		Path file = getFiles().get(0);
+		String content = new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1);
+		Files.write(file, content.replace("AD_Window=100", "AD_Window=A").getBytes(StandardCharsets.ISO_8859_1));
+		ExportCheckpointStore store = ExportCheckpointStore.newInstance("AD_Window|0|Y", folder);
+		assertFalse(store.isResumed());
+		assertEquals(-1, store.getCheckpoint("AD_Window"));
+	}
+
+	@Test
+	public void testClear() throws IOException {
+		ExportCheckpointStore store = ExportCheckpointStore.newInstance("AD_Window|0|Y", folder);
+		store.setCheckpoint("AD_Window", 100);
+		store.clear();
+		assertFalse(store.isResumed());
+		assertTrue(getFiles().isEmpty());
+		assertFalse(ExportCheckpointStore.newInstance("AD_Window|0|Y", folder).isResumed());
+	}
+}
@@ -0,0 +1,134 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.spin.eca56.util.support.IGenericDocument;
+import org.spin.eca56.util.support.kafka.TestDocument;
+
+/**
+ * Acknowledgement of a queue entry with many documents
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class QueueDeliveryTest {
+
+	private ScheduledExecutorService flusher;
+	private QueueDeliveryTracker tracker;
+	private List<Integer> processed;
+	private List<Integer> failed;
+
+	@BeforeEach
+	public void setUp() {
+		flusher = Executors.newSingleThreadScheduledExecutor();
+		//	Without retries, the dead letter is accepted by worker and never sent
+		tracker = new QueueDeliveryTracker(flusher, () -> DeliveryRetryPolicy.newInstance(0, 1, 1), () -> null, (name, task) -> true);
+		processed = new ArrayList<>();
+		failed = new ArrayList<>();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		flusher.shutdownNow();
+	}
+
+	private QueueDelivery newDelivery(int queueId) {
+		List<QueueDelivery> deliveries = new ArrayList<>();
+		tracker.track(new IQueueEntryListener() {
+			@Override
+			public void onProcessed(int id) {
+				processed.add(id);
+			}
+
+			@Override
+			public void onFailed(int id, Throwable exception) {
+				failed.add(id);
+			}
+		}, () -> deliveries.add(tracker.newDelivery(queueId)));
+		return deliveries.get(0);
+	}
+
+	@Test
+	public void testAcknowledgedWhenAllDocumentsAreDelivered() {
+		QueueDelivery delivery = newDelivery(10);
+		IGenericDocument first = TestDocument.newInstance();
+		IGenericDocument second = TestDocument.newInstance();
+		delivery.register();
+		delivery.register();
+		delivery.close();
+		delivery.onDelivered(first);
+		assertTrue(processed.isEmpty());
+		delivery.onDelivered(second);
+		assertEquals(List.of(10), processed);
+		assertTrue(failed.isEmpty());
+	}
+
+	@Test
+	public void testNotAcknowledgedBeforeClose() {
+		QueueDelivery delivery = newDelivery(11);
+		delivery.register();
+		delivery.onDelivered(TestDocument.newInstance());
+		assertTrue(processed.isEmpty());
+		delivery.close();
+		assertEquals(List.of(11), processed);
+	}
+
+	@Test
+	public void testEntryWithoutDocumentsIsAcknowledged() {
+		QueueDelivery delivery = newDelivery(12);
+		delivery.close();
+		assertEquals(List.of(12), processed);
+	}
+
+	@Test
+	public void testFailedDocumentFailsEntry() {
+		QueueDelivery delivery = newDelivery(13);
+		IGenericDocument first = TestDocument.newInstance();
+		IGenericDocument second = TestDocument.newInstance();
+		delivery.register();
+		delivery.register();
+		delivery.close();
+		delivery.onFailed(first, new AdempiereException("Broker not available"));
+		delivery.onDelivered(second);
+		assertTrue(processed.isEmpty());
+		assertEquals(List.of(13), failed);
+		assertSame(first, delivery.getFailedDocument());
+		assertEquals(1, tracker.getRetries(13));
+	}
+
+	@Test
+	public void testFailedBeforeSend() {
+		QueueDelivery delivery = newDelivery(14);
+		delivery.fail(new AdempiereException("Entity not found"));
+		delivery.close();
+		assertTrue(processed.isEmpty());
+		assertEquals(List.of(14), failed);
+		assertNull(delivery.getFailedDocument());
+	}
+}
@@ -0,0 +1,268 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.spin.eca56.util.support.IDeliveryListener;
+import org.spin.eca56.util.support.IGenericDocument;
+import org.spin.eca56.util.support.IGenericSender;
+import org.spin.eca56.util.support.kafka.TestDocument;
+
+/**
+ * Retries and dead letters of failed queue entries
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class QueueDeliveryTrackerTest {
+
+	/**	Max time for wait an event	*/
+	private static final long TIMEOUT = 5;
+	/**	Max retries of policy	*/
+	private static final int MAX_RETRIES = 2;
+
+	private ScheduledExecutorService flusher;
+	private QueueDeliveryTracker tracker;
+	/**	Tasks accepted by worker	*/
+	private BlockingQueue<String> workerTasks;
+	/**	Worker accept tasks	*/
+	private AtomicBoolean isWorkerAvailable;
+	/**	Dead letters sent	*/
+	private BlockingQueue<SentDocument> sentDocuments;
+	/**	Notifications of listener	*/
+	private BlockingQueue<String> events;
+
+	/**
+	 * Document sent to server
+	 */
+	private static final class SentDocument {
+		private final IGenericDocument document;
+		private final String channel;
+		private final IDeliveryListener listener;
+
+		private SentDocument(IGenericDocument document, String channel, IDeliveryListener listener) {
+			this.document = document;
+			this.channel = channel;
+			this.listener = listener;
+		}
+	}
+
+	@BeforeEach
+	public void setUp() {
+		flusher = Executors.newSingleThreadScheduledExecutor();
+		workerTasks = new LinkedBlockingQueue<>();
+		isWorkerAvailable = new AtomicBoolean(true);
+		sentDocuments = new LinkedBlockingQueue<>();
+		events = new LinkedBlockingQueue<>();
+		IGenericSender sender = new IGenericSender() {
+			@Override
+			public String testConnection() {
+				return "Ok";
+			}
+
+			@Override
+			public void setAppRegistrationId(int registrationId) {
+			}
+
+			@Override
+			public int getAppRegistrationId() {
+				return 0;
+			}
+
+			@Override
+			public void send(IGenericDocument document, String channel) {
+				sentDocuments.add(new SentDocument(document, channel, null));
+			}
+
+			@Override
+			public void send(IGenericDocument document, String channel, IDeliveryListener listener) {
+				sentDocuments.add(new SentDocument(document, channel, listener));
+			}
+		};
+		tracker = new QueueDeliveryTracker(flusher, () -> DeliveryRetryPolicy.newInstance(MAX_RETRIES, 1, 1), () -> sender, (name, task) -> {
+			if(!isWorkerAvailable.get()) {
+				return false;
+			}
+			workerTasks.add(name);
+			task.run();
+			return true;
+		});
+	}
+
+	@AfterEach
+	public void tearDown() {
+		flusher.shutdownNow();
+	}
+
+	/**
+	 * Listener that add events
+	 * @return
+	 */
+	private IQueueEntryListener newListener() {
+		return new IQueueEntryListener() {
+			@Override
+			public void onProcessed(int queueId) {
+				events.add("Processed " + queueId);
+			}
+
+			@Override
+			public void onFailed(int queueId, Throwable exception) {
+				events.add("Failed " + queueId);
+			}
+		};
+	}
+
+	/**
+	 * Send a entry with a document that fails, the retry send it again and it fails again
+	 * @param queueId
+	 * @param isRetry
+	 */
+	private void sendFailedEntry(int queueId, boolean isRetry) {
+		AtomicReference<Runnable> retry = new AtomicReference<>();
+		retry.set(() -> {
+			QueueDelivery delivery = tracker.newDelivery(queueId).withRetry(retry.get());
+			delivery.onFailed(TestDocument.newInstance(), new AdempiereException("Broker not available"));
+		});
+		tracker.track(newListener(), () -> {
+			QueueDelivery delivery = tracker.newDelivery(queueId);
+			if(isRetry) {
+				delivery.withRetry(retry.get());
+			}
+			delivery.register();
+			delivery.close();
+			delivery.onFailed(TestDocument.newInstance(), new AdempiereException("Broker not available"));
+		});
+	}
+
+	private SentDocument getSentDocument() throws InterruptedException {
+		SentDocument sentDocument = sentDocuments.poll(TIMEOUT, TimeUnit.SECONDS);
+		assertNotNull(sentDocument, "Document not sent");
+		return sentDocument;
+	}
+
+	private String getEvent() throws InterruptedException {
+		return events.poll(TIMEOUT, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testTrackedEntries() {
+		List<Integer> queueIds = tracker.track(newListener(), () -> {
+			tracker.newDelivery(1).close();
+			tracker.newDelivery(2).close();
+		});
+		assertEquals(List.of(1, 2), queueIds);
+		assertEquals("Processed 1", events.poll());
+		assertEquals("Processed 2", events.poll());
+		//	Entries outside of track are not notified
+		tracker.newDelivery(3).close();
+		assertNull(events.poll());
+	}
+
+	@Test
+	public void testRetryFromWorker() throws InterruptedException {
+		sendFailedEntry(10, true);
+		for(int retry = 1; retry <= MAX_RETRIES; retry++) {
+			assertEquals("Queue 10", workerTasks.poll(TIMEOUT, TimeUnit.SECONDS));
+		}
+		SentDocument deadLetter = getSentDocument();
+		assertEquals("Dead letter of queue 10", workerTasks.poll());
+		assertEquals(MAX_RETRIES + 1, tracker.getRetries(10));
+		assertTrue(deadLetter.document instanceof DeadLetterDocument);
+		assertEquals("Test" + DeadLetterDocument.CHANNEL_SUFFIX, deadLetter.channel);
+		assertEquals(TestDocument.KEY, deadLetter.document.getKey());
+		//	Listener receive the failure when the entry is sent to dead letter channel
+		assertEquals("Failed 10", getEvent());
+	}
+
+	@Test
+	public void testDeadLetterWithoutRetry() throws InterruptedException {
+		sendFailedEntry(11, false);
+		SentDocument deadLetter = getSentDocument();
+		assertEquals(List.of("Dead letter of queue 11"), List.copyOf(workerTasks));
+		assertEquals(1, tracker.getRetries(11));
+		assertEquals("Failed 11", getEvent());
+		//	Processed when dead letter is acknowledged
+		deadLetter.listener.onDelivered(deadLetter.document);
+		assertEquals(0, tracker.getRetries(11));
+		assertNull(events.poll());
+	}
+
+	@Test
+	public void testDeadLetterSentAgain() throws InterruptedException {
+		sendFailedEntry(12, false);
+		SentDocument deadLetter = getSentDocument();
+		deadLetter.listener.onFailed(deadLetter.document, new AdempiereException("Broker not available"));
+		SentDocument deadLetterAgain = getSentDocument();
+		assertSame(deadLetter.document, deadLetterAgain.document);
+		assertEquals(1, tracker.getRetries(12));
+		deadLetterAgain.listener.onDelivered(deadLetterAgain.document);
+		assertEquals(0, tracker.getRetries(12));
+	}
+
+	@Test
+	public void testDeadLetterKeptForQueueProcessor() throws InterruptedException {
+		sendFailedEntry(14, false);
+		for(int attempt = 1; attempt <= MAX_RETRIES + 1; attempt++) {
+			SentDocument deadLetter = getSentDocument();
+			deadLetter.listener.onFailed(deadLetter.document, new AdempiereException("Record too large"));
+		}
+		//	Not sent again, the entry is not processed
+		assertNull(sentDocuments.poll(100, TimeUnit.MILLISECONDS));
+		assertEquals(0, tracker.getRetries(14));
+	}
+
+	@Test
+	public void testRetryNotAcceptedByWorker() throws InterruptedException {
+		isWorkerAvailable.set(false);
+		sendFailedEntry(13, true);
+		assertEquals("Failed 13", getEvent());
+		//	Kept for queue processor without retries
+		assertEquals(0, tracker.getRetries(13));
+		assertTrue(workerTasks.isEmpty());
+		assertTrue(sentDocuments.isEmpty());
+	}
+
+	@Test
+	public void testDeliveryWithoutEntry() throws InterruptedException {
+		int deliveryId = tracker.newDeliveryId();
+		assertTrue(deliveryId < 0);
+		assertNotEquals(deliveryId, tracker.newDeliveryId());
+		sendFailedEntry(deliveryId, true);
+		assertEquals("Failed " + deliveryId, getEvent());
+		assertEquals(MAX_RETRIES, workerTasks.size());
+		//	Discarded without dead letter
+		assertTrue(sentDocuments.isEmpty());
+		assertEquals(0, tracker.getRetries(deliveryId));
+	}
+}
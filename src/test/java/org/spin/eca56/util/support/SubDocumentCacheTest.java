@@ -0,0 +1,168 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Cache of sub documents by export
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class SubDocumentCacheTest {
+
+	private static Map<String, Object> newDocument(int id) {
+		Map<String, Object> document = new HashMap<>();
+		document.put("id", id);
+		List<Object> parameters = new ArrayList<>();
+		parameters.add(new HashMap<String, Object>());
+		document.put("parameters", parameters);
+		return document;
+	}
+
+	@Test
+	public void testCurrentOnlyInsideRun() {
+		SubDocumentCache cache = SubDocumentCache.newInstance(10);
+		assertNull(SubDocumentCache.getCurrent());
+		cache.run(() -> assertSame(cache, SubDocumentCache.getCurrent()));
+		assertNull(SubDocumentCache.getCurrent());
+	}
+
+	@Test
+	public void testPreviousCacheAfterNestedCall() {
+		SubDocumentCache cache = SubDocumentCache.newInstance(10);
+		SubDocumentCache other = SubDocumentCache.newInstance(10);
+		cache.run(() -> {
+			assertEquals(1, (int) other.call(() -> {
+				assertSame(other, SubDocumentCache.getCurrent());
+				return 1;
+			}));
+			assertSame(cache, SubDocumentCache.getCurrent());
+		});
+		assertNull(SubDocumentCache.getCurrent());
+	}
+
+	@Test
+	public void testBuildOncePerKey() {
+		SubDocumentCache cache = SubDocumentCache.newInstance(10);
+		AtomicInteger builds = new AtomicInteger();
+		Map<String, Object> document = cache.get("process", 100, "en_US", () -> {
+			builds.incrementAndGet();
+			return newDocument(100);
+		});
+		assertSame(document, cache.get("process", 100, "en_US", () -> {
+			builds.incrementAndGet();
+			return newDocument(100);
+		}));
+		assertEquals(1, builds.get());
+		assertEquals(1, cache.getHits());
+		//	Other language or type is other document
+		cache.get("process", 100, "es_VE", () -> {
+			builds.incrementAndGet();
+			return newDocument(100);
+		});
+		cache.get("browser", 100, "en_US", () -> {
+			builds.incrementAndGet();
+			return newDocument(100);
+		});
+		assertEquals(3, builds.get());
+		//	Build again after clear
+		cache.clear();
+		cache.get("process", 100, "en_US", () -> {
+			builds.incrementAndGet();
+			return newDocument(100);
+		});
+		assertEquals(4, builds.get());
+	}
+
+	@Test
+	public void testEldestRemoved() {
+		SubDocumentCache cache = SubDocumentCache.newInstance(2);
+		AtomicInteger builds = new AtomicInteger();
+		for(int id = 1; id <= 3; id++) {
+			int documentId = id;
+			cache.get("form", documentId, "en_US", () -> {
+				builds.incrementAndGet();
+				return newDocument(documentId);
+			});
+		}
+		cache.get("form", 1, "en_US", () -> {
+			builds.incrementAndGet();
+			return newDocument(1);
+		});
+		assertEquals(4, builds.get());
+	}
+
+	@Test
+	public void testNullIsNotCached() {
+		SubDocumentCache cache = SubDocumentCache.newInstance(10);
+		AtomicInteger builds = new AtomicInteger();
+		assertNull(cache.get("workflow", 1, "en_US", () -> {
+			builds.incrementAndGet();
+			return null;
+		}));
+		assertNull(cache.get("workflow", 1, "en_US", () -> {
+			builds.incrementAndGet();
+			return null;
+		}));
+		assertEquals(2, builds.get());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testDocumentIsReadOnly() {
+		SubDocumentCache cache = SubDocumentCache.newInstance(10);
+		Map<String, Object> document = cache.get("process", 1, "en_US", () -> newDocument(1));
+		assertThrows(UnsupportedOperationException.class, () -> document.put("name", "Other"));
+		List<Object> parameters = (List<Object>) document.get("parameters");
+		assertThrows(UnsupportedOperationException.class, () -> parameters.add("Other"));
+		Map<String, Object> parameter = (Map<String, Object>) parameters.get(0);
+		assertThrows(UnsupportedOperationException.class, () -> parameter.put("name", "Other"));
+	}
+
+	@Test
+	public void testCurrentForOtherThreads() throws Exception {
+		SubDocumentCache cache = SubDocumentCache.newInstance(10);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			//	Without cache the function is the same
+			Function<Integer, SubDocumentCache> function = id -> SubDocumentCache.getCurrent();
+			assertSame(function, SubDocumentCache.withCurrent(function));
+			Function<Integer, SubDocumentCache> functionWithCache = cache.call(() -> SubDocumentCache.withCurrent(function));
+			Future<SubDocumentCache> result = executor.submit(() -> functionWithCache.apply(1));
+			assertSame(cache, result.get());
+			//	The worker thread is not changed after function
+			assertNull(executor.submit(() -> SubDocumentCache.getCurrent()).get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.support.documents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Index of dependent fields, it must match the same fields of regular expression used before
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class DependenceIndexTest {
+
+	/**
+	 * Match used before index
+	 * @param columnName
+	 * @param context
+	 * @return
+	 */
+	private static boolean isUsedWithExpression(String columnName, String context) {
+		if(context == null || context.trim().isEmpty()) {
+			return false;
+		}
+		String patternValue = "@($|#|\\d\\|){0,1}" + columnName + "(@)";
+		if(Pattern.compile(patternValue, Pattern.CASE_INSENSITIVE | Pattern.DOTALL).matcher(context).find()) {
+			return true;
+		}
+		return Pattern.compile(patternValue + "{0,1}", Pattern.CASE_INSENSITIVE | Pattern.DOTALL).matcher(context).find();
+	}
+
+	@Test
+	public void testReferencedNames() {
+		assertEquals(Set.of("C_BPartner_ID", "AD_Client_ID", "1", "IsSOTrx"), DependenceIndex.getReferencedNames("@C_BPartner_ID@ > 0 & @#AD_Client_ID@ > 0 & @1|IsSOTrx@='Y'"));
+		assertTrue(DependenceIndex.getReferencedNames(null).isEmpty());
+		assertTrue(DependenceIndex.getReferencedNames("").isEmpty());
+	}
+
+	@Test
+	public void testReferencedByPrefixIgnoringCase() {
+		assertTrue(DependenceIndex.isReferenced("C_BPartner", "@C_BPartner_ID@ > 0"));
+		assertTrue(DependenceIndex.isReferenced("c_bpartner_id", "@C_BPartner_ID@ > 0"));
+		assertTrue(DependenceIndex.isReferenced("AD_Client_ID", "@#AD_Client_ID@"));
+		assertTrue(DependenceIndex.isReferenced("IsSOTrx", "@1|IsSOTrx@='Y'"));
+		assertFalse(DependenceIndex.isReferenced("BPartner", "@C_BPartner_ID@ > 0"));
+		assertFalse(DependenceIndex.isReferenced("C_BPartner_ID", "C_BPartner_ID > 0"));
+	}
+
+	@Test
+	public void testSameMatchOfExpression() {
+		String[] columnNames = {"a", "aB", "B_1", "1", "ab_1"};
+		String characters = "@@@#$|1aAbB_ x";
+		Random random = new Random(12345);
+		for(int test = 0; test < 200000; test++) {
+			StringBuilder context = new StringBuilder();
+			int length = random.nextInt(16);
+			for(int index = 0; index < length; index++) {
+				context.append(characters.charAt(random.nextInt(characters.length())));
+			}
+			for(String columnName : columnNames) {
+				assertEquals(isUsedWithExpression(columnName, context.toString()), DependenceIndex.isReferenced(columnName, context.toString()),
+						columnName + " on " + context);
+			}
+		}
+	}
+
+	@Test
+	public void testDependentsInOrderOfAdd() {
+		Map<String, Object> currency = Map.of("column_name", "C_Currency_ID");
+		Map<String, Object> priceList = Map.of("column_name", "M_PriceList_ID");
+		Map<String, Object> paymentRule = Map.of("column_name", "PaymentRule");
+		DependenceIndex index = DependenceIndex.newInstance()
+			.addDependent(currency, List.of("@M_PriceList_ID@ > 0", ""))
+			.addDependent(priceList, List.of("@IsSOTrx@ = 'Y'", "@C_BPartner_ID@ > 0"))
+			.addDependent(paymentRule, List.of("@C_BPartner_ID@ > 0 & @M_PriceList_ID@ > 0"))
+		;
+		assertEquals(List.of(priceList, paymentRule), index.getDependents("C_BPartner_ID"));
+		assertEquals(List.of(currency, paymentRule), index.getDependents("M_PriceList_ID"));
+		assertEquals(List.of(currency, priceList, paymentRule), index.getDependents("IsSOTrx", "M_PriceList_ID", "C_BPartner_ID"));
+		assertEquals(new ArrayList<>(), index.getDependents("C_Order_ID", null, ""));
+	}
+}
@@ -0,0 +1,87 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.support.documents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Context column names, they must be the same of regular expression used before
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class ReferenceUtilTest {
+
+	/**
+	 * Names returned before tokenizer
+	 * @param context
+	 * @return
+	 */
+	private static List<String> getContextColumnNamesWithExpression(String context) {
+		if(context == null || context.trim().isEmpty()) {
+			return new ArrayList<String>();
+		}
+		Pattern pattern = Pattern.compile("\\@(#|$|\\d\\|){0,1}(\\w+)\\@", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+		Matcher matcher = pattern.matcher(context);
+		Map<String, Boolean> columnNamesMap = new HashMap<String, Boolean>();
+		while(matcher.find()) {
+			columnNamesMap.put(matcher.group().replace("@", ""), true);
+		}
+		return new ArrayList<String>(columnNamesMap.keySet());
+	}
+
+	@Test
+	public void testContextColumnNames() {
+		assertEquals(getContextColumnNamesWithExpression("@AD_Org_ID@ = @#AD_Org_ID@ AND @1|IsSOTrx@='Y'"), ReferenceUtil.getContextColumnNames("@AD_Org_ID@ = @#AD_Org_ID@ AND @1|IsSOTrx@='Y'"));
+		assertTrue(ReferenceUtil.getContextColumnNames("@AD_Org_ID@ = @#AD_Org_ID@ AND @1|IsSOTrx@='Y'").contains("#AD_Org_ID"));
+		assertTrue(ReferenceUtil.getContextColumnNames("@AD_Org_ID@ = @#AD_Org_ID@ AND @1|IsSOTrx@='Y'").contains("1|IsSOTrx"));
+		assertTrue(ReferenceUtil.getContextColumnNames(null).isEmpty());
+		assertTrue(ReferenceUtil.getContextColumnNames(" ").isEmpty());
+		//	$ is not a prefix
+		assertEquals(List.of("C_Currency_ID"), ReferenceUtil.getContextColumnNames("@$C_AcctSchema_ID@ = @C_Currency_ID@"));
+	}
+
+	@Test
+	public void testSameNamesAndOrderOfExpression() {
+		String characters = "@@@#$|1aZ_ x";
+		Random random = new Random(54321);
+		for(int test = 0; test < 200000; test++) {
+			StringBuilder context = new StringBuilder();
+			int length = random.nextInt(20);
+			for(int index = 0; index < length; index++) {
+				context.append(characters.charAt(random.nextInt(characters.length())));
+			}
+			assertEquals(getContextColumnNamesWithExpression(context.toString()), ReferenceUtil.getContextColumnNames(context.toString()), context.toString());
+		}
+	}
+
+	@Test
+	public void testResultCanBeChanged() {
+		List<String> columnNames = ReferenceUtil.getContextColumnNames("@C_BPartner_ID@ > 0");
+		columnNames.add("Other");
+		assertEquals(List.of("C_BPartner_ID"), ReferenceUtil.getContextColumnNames("@C_BPartner_ID@ > 0"));
+	}
+}
@@ -0,0 +1,93 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * Copyright (C) 2003-Present E.R.P. Consultores y Asociados, C.A.            *
+ * All Rights Reserved.                                                       *
+ * Contributor(s): Yamel Senih www.erpcya.com                                 *
+ *****************************************************************************/
+package org.spin.eca56.util.support.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Hash of published documents used by delta suppression
+ * @author Yamel Senih, ysenih@erpya.com, ERPCyA http://www.erpya.com
+ */
+public class DocumentHashStoreTest {
+
+	@TempDir
+	Path folder;
+
+	private Map<String, Object> getDocument(String name, boolean isReverseOrder) {
+		Map<String, Object> detail = new LinkedHashMap<>();
+		Map<String, Object> document = new LinkedHashMap<>();
+		if(isReverseOrder) {
+			detail.put("name", name);
+			detail.put("id", 100);
+			document.put("fields", List.of("Value", "Name"));
+			document.put("document", detail);
+		} else {
+			detail.put("id", 100);
+			detail.put("name", name);
+			document.put("document", detail);
+			document.put("fields", List.of("Value", "Name"));
+		}
+		return document;
+	}
+
+	@Test
+	public void testHashIgnoreOrderOfKeys() {
+		assertEquals(DocumentHashStore.hash(getDocument("Sales Order", false)), DocumentHashStore.hash(getDocument("Sales Order", true)));
+	}
+
+	@Test
+	public void testHashChangeWithValues() {
+		assertNotEquals(DocumentHashStore.hash(getDocument("Sales Order", false)), DocumentHashStore.hash(getDocument("Purchase Order", false)));
+		//	The order of lists is part of document
+		Map<String, Object> reversedList = new HashMap<>(getDocument("Sales Order", false));
+		reversedList.put("fields", List.of("Name", "Value"));
+		assertNotEquals(DocumentHashStore.hash(getDocument("Sales Order", false)), DocumentHashStore.hash(reversedList));
+	}
+
+	@Test
+	public void testPublished() {
+		DocumentHashStore store = DocumentHashStore.getInstance(folder.resolve("document-hash.properties").toString());
+		String key = "window|uuid|en_US|client";
+		String hash = DocumentHashStore.hash(getDocument("Sales Order", false));
+		assertFalse(store.isPublished(key, hash));
+		store.setPublished(key, hash);
+		assertTrue(store.isPublished(key, hash));
+		assertFalse(store.isPublished(key, DocumentHashStore.hash(getDocument("Purchase Order", false))));
+		assertFalse(store.isPublished(key, null));
+		store.clear();
+		assertFalse(store.isPublished(key, hash));
+	}
+
+	@Test
+	public void testSameStoreByFile() {
+		String fileName = folder.resolve("document-hash.properties").toString();
+		assertSame(DocumentHashStore.getInstance(fileName), DocumentHashStore.getInstance(folder.resolve(".").resolve("document-hash.properties").toString()));
+	}
+}